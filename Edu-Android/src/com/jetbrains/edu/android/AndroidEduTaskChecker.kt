@@ -7,11 +7,15 @@ import com.android.tools.idea.avdmanager.AvdManagerConnection
 import com.android.tools.idea.avdmanager.AvdOptionsModel
 import com.android.tools.idea.avdmanager.AvdWizardUtils
 import com.android.tools.idea.run.LaunchableAndroidDevice
+import com.intellij.openapi.Disposable
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.progress.ProgressIndicator
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.ui.Messages
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.util.Key
+import com.intellij.openapi.util.UserDataHolderEx
 import com.jetbrains.edu.learning.checker.CheckResult
 import com.jetbrains.edu.learning.checker.gradle.GradleCommandLine
 import com.jetbrains.edu.learning.checker.gradle.GradleEduTaskChecker
@@ -29,44 +33,98 @@ class AndroidChecker(task: EduTask, project: Project) : GradleEduTaskChecker(tas
 
   override fun check(indicator: ProgressIndicator): CheckResult {
     indicator.isIndeterminate = true
+    val timings = StageTimings()
+
+    val hasInstrumentedTests = task.testsText.any { (path, _) -> path.startsWith("src/androidTest") && !path.endsWith("AndroidEduTestRunner.kt") }
+    if (hasInstrumentedTests) {
+      // emulator boots while task is being built
+      ApplicationManager.getApplication().invokeAndWait {
+        deviceLaunching = getLaunchedEmulator() ?: launchEmulator()?.also { remember(it) }
+      }
+    }
 
     val taskModuleName = getGradleProjectName(task)
     val assembleTask = "$taskModuleName:assemble"
-
-    indicator.text = "Building task..."
-    val assembleResult = GradleCommandLine.create(project, assembleTask)?.launchAndCheck() ?: CheckResult.FAILED_TO_CHECK
-    if (assembleResult.status != CheckStatus.Solved) return assembleResult
-
-    indicator.text = "Running unit tests..."
     val unitTestTask = "$taskModuleName:testDebugUnitTest"
-    val unitTestResult = GradleCommandLine.create(project, unitTestTask)?.launchAndCheck() ?: CheckResult.FAILED_TO_CHECK
-    if (unitTestResult.status != CheckStatus.Solved) return unitTestResult
-
-    val hasInstrumentedTests = task.testsText.any { (path, _) -> path.startsWith("src/androidTest") && !path.endsWith("AndroidEduTestRunner.kt") }
-    if (!hasInstrumentedTests) return unitTestResult
 
-    indicator.text = "Launching emulator..."
-    ApplicationManager.getApplication().invokeAndWait {
-      deviceLaunching = launchEmulator()
+    indicator.text = "Building task and running unit tests..."
+    val unitTestResult = timings.measure("Build and unit tests") {
+      GradleCommandLine.create(project, listOf(assembleTask, unitTestTask))?.launchAndCheck() ?: CheckResult.FAILED_TO_CHECK
     }
-    val emulatorLaunched = try {
-      deviceLaunching?.get() != null
-    } catch (e: Exception) {
-      LOG.warn("Failed to launch emulator", e)
-      false
+    if (unitTestResult.status != CheckStatus.Solved) {
+      // emulator keeps booting, it's reused by the next check once the task is fixed
+      return timings.appendTo(unitTestResult)
     }
-    if (!emulatorLaunched) return CheckResult.FAILED_TO_CHECK
+    if (!hasInstrumentedTests) return timings.appendTo(unitTestResult)
+
+    indicator.text = "Waiting for emulator..."
+    val emulatorLaunched = timings.measure("Waiting for emulator") {
+      try {
+        deviceLaunching?.get() != null
+      } catch (e: Exception) {
+        LOG.warn("Failed to launch emulator", e)
+        false
+      }
+    }
+    if (!emulatorLaunched) return timings.appendTo(CheckResult.FAILED_TO_CHECK)
 
     indicator.text = "Running instrumented tests..."
     val instrumentedTestTask = "$taskModuleName:connectedDebugAndroidTest"
-    return GradleCommandLine.create(project, instrumentedTestTask)?.launchAndCheck() ?: CheckResult.FAILED_TO_CHECK
+    val instrumentedTestResult = timings.measure("Instrumented tests") {
+      GradleCommandLine.create(project, instrumentedTestTask)?.launchAndCheck() ?: CheckResult.FAILED_TO_CHECK
+    }
+    return timings.appendTo(instrumentedTestResult)
+  }
+
+  override fun onCancel() {
+    // launched emulator is kept for next checks, only unfinished launch is cancelled
+    cancelLaunch()
   }
 
   override fun clearState() {
-    deviceLaunching?.cancel(true)
     deviceLaunching = null
   }
 
+  private fun cancelLaunch() {
+    val launching = deviceLaunching
+    if (launching != null && !launching.isDone) {
+      launching.cancel(true)
+      if (project.getUserData(DEVICE_LAUNCHING) === launching) {
+        project.putUserData(DEVICE_LAUNCHING, null)
+      }
+    }
+  }
+
+  /**
+   * Returns emulator launched by one of previous checks if it's still running or launching
+   */
+  private fun getLaunchedEmulator(): Future<IDevice>? {
+    val cached = project.getUserData(DEVICE_LAUNCHING)
+    return if (cached != null && !cached.isCancelled && (!cached.isDone || cached.getDeviceIfLaunched()?.isOnline == true)) cached else null
+  }
+
+  private fun remember(launching: Future<IDevice>) {
+    project.putUserData(DEVICE_LAUNCHING, launching)
+    // unfinished launch of any check is cancelled together with the project, disposable is registered once per project
+    val disposable = Disposable {
+      val unfinished = project.getUserData(DEVICE_LAUNCHING)
+      if (unfinished != null && !unfinished.isDone) {
+        unfinished.cancel(true)
+      }
+    }
+    if ((project as UserDataHolderEx).putUserDataIfAbsent(LAUNCH_DISPOSABLE, disposable) === disposable) {
+      Disposer.register(project, disposable)
+    }
+  }
+
+  private fun Future<IDevice>.getDeviceIfLaunched(): IDevice? {
+    return try {
+      get()
+    } catch (e: Exception) {
+      null
+    }
+  }
+
   private fun launchEmulator(): Future<IDevice>? {
     val future = startEmulatorIfExists()
     if (future != null) return future
@@ -109,7 +167,30 @@ class AndroidChecker(task: EduTask, project: Project) : GradleEduTaskChecker(tas
     }
   }
 
+  private class StageTimings {
+    private val stages = mutableListOf<Pair<String, Long>>()
+
+    fun <T> measure(stage: String, action: () -> T): T {
+      val start = System.currentTimeMillis()
+      try {
+        return action()
+      }
+      finally {
+        stages += stage to System.currentTimeMillis() - start
+      }
+    }
+
+    fun appendTo(result: CheckResult): CheckResult {
+      val timings = stages.joinToString("\n", "Check stages:\n") { (stage, time) -> "$stage: $time ms" }
+      val details = if (result.details.isNullOrEmpty()) timings else "${result.details}\n\n$timings"
+      return CheckResult(result.status, result.message, details)
+    }
+  }
+
   companion object {
     private val LOG = Logger.getInstance(AndroidChecker::class.java)
+
+    private val DEVICE_LAUNCHING = Key.create<Future<IDevice>>("Edu.androidDeviceLaunching")
+    private val LAUNCH_DISPOSABLE = Key.create<Disposable>("Edu.androidDeviceLaunchDisposable")
   }
 }
@@ -1,7 +1,5 @@
 package com.jetbrains.edu.kotlin.checker
 
-import com.intellij.openapi.application.ApplicationManager
-import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.psi.PsiManager
@@ -23,24 +21,11 @@ class KtTaskCheckerProvider : GradleTaskCheckerProvider() {
           return super.getGradleTask()
         }
 
-        val testDirs = task.findTestDirs(project)
-        check(testDirs.isNotEmpty()) {
+        val testClasses = findTestClasses(project, task) { KotlinJUnitRunConfigurationProducer.getTestClass(it)?.qualifiedName }
+        check(testClasses.isNotEmpty() || task.findTestDirs(project).isNotEmpty()) {
           error("Failed to find test dirs for task ${task.name}")
         }
 
-        val testClasses: List<String> = testDirs.flatMap { testDir ->
-          var tests: List<String>? = null
-          ApplicationManager.getApplication().invokeAndWait {
-             tests = runReadAction {
-              testDir.children.mapNotNull {
-                val psiFile = PsiManager.getInstance(project).findFile(it) ?: return@mapNotNull null
-                KotlinJUnitRunConfigurationProducer.getTestClass(psiFile)?.qualifiedName
-              }
-            }
-          }
-          tests ?: emptyList()
-        }
-
         return if (testClasses.isEmpty()) {
           LOG.warn("Can't find any test class. Check course project is compilable")
           GradleTask(ASSEMBLE_TASK_NAME)
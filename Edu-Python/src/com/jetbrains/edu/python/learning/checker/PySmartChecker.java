@@ -1,147 +1,208 @@
 package com.jetbrains.edu.python.learning.checker;
 
 import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
 import com.intellij.execution.process.CapturingProcessHandler;
 import com.intellij.execution.process.ProcessOutput;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
-import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.jetbrains.edu.learning.StudyTaskManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.checker.TestsOutputParser;
-import com.jetbrains.edu.learning.EduDocumentListener;
-import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder;
-import com.jetbrains.edu.learning.courseFormat.Course;
 import com.jetbrains.edu.learning.courseFormat.CheckStatus;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Finds out which placeholders of a failed task are filled in correctly.
+ *
+ * For every placeholder a variant of the task file is checked, where the placeholder contains user's answer
+ * and all other placeholders contain correct answers. Variants are prepared in memory
+ * and checked in parallel in background, each one in its own file in a temporary directory outside of the project.
+ */
 class PySmartChecker {
+  private static final Logger LOG = Logger.getInstance(PySmartChecker.class);
+
+  private static final int MAX_PARALLEL_PROCESSES =
+    Integer.getInteger("edu.python.smart.check.max.parallel.processes", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+  private static final ExecutorService EXECUTOR =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("PySmartChecker", MAX_PARALLEL_PROCESSES);
+  private static final long CANCELLATION_CHECK_INTERVAL_MS = 100;
+
   private PySmartChecker() {
 
   }
 
-  private static final Logger LOG = Logger.getInstance(PySmartChecker.class);
+  /**
+   * Collects everything needed to check placeholders of the task file, so the check itself can be done in background.
+   * Should be called under read action.
+   */
+  @NotNull
+  static List<Variant> createVariants(@NotNull final VirtualFile taskDir, @NotNull final TaskFile taskFile) {
+    final VirtualFile virtualFile = EduUtils.findTaskFileInDir(taskFile, taskDir);
+    if (virtualFile == null) {
+      return Collections.emptyList();
+    }
+    final Document document = FileDocumentManager.getInstance().getDocument(virtualFile);
+    if (document == null) {
+      return Collections.emptyList();
+    }
+    final String text = document.getText();
+    final List<AnswerPlaceholder> placeholders = taskFile.getAnswerPlaceholders();
+    final List<AnswerPlaceholder> sortedPlaceholders = new ArrayList<>(placeholders);
+    sortedPlaceholders.sort(Comparator.comparingInt(AnswerPlaceholder::getOffset));
 
-  private static void smartCheck(@NotNull final AnswerPlaceholder placeholder,
-                                @NotNull final Project project,
-                                @NotNull final VirtualFile answerFile,
-                                @NotNull final TaskFile answerTaskFile,
-                                @NotNull final TaskFile usersTaskFile,
-                                @NotNull final PyTestRunner testRunner,
-                                @NotNull final VirtualFile virtualFile,
-                                @NotNull final Document usersDocument) {
-    VirtualFile fileWindows = null;
-    VirtualFile windowCopy = null;
-    try {
-      final int index = placeholder.getIndex();
-      String windowCopyName = answerFile.getNameWithoutExtension() + index + EduNames.WINDOW_POSTFIX + answerFile.getExtension();
-      windowCopy = answerFile.copy(project, answerFile.getParent(), windowCopyName);
-      final FileDocumentManager documentManager = FileDocumentManager.getInstance();
-      final Document windowDocument = documentManager.getDocument(windowCopy);
-      if (windowDocument != null) {
-        TaskFile windowTaskFile = answerTaskFile.getTask().copy().getTaskFile(EduUtils.pathRelativeToTask(project, virtualFile));
-        if (windowTaskFile == null) {
-          return;
-        }
-        EduDocumentListener listener = new EduDocumentListener(project, windowTaskFile);
-        windowDocument.addDocumentListener(listener);
-        int start = placeholder.getOffset();
-        int end = start + placeholder.getRealLength();
-        final AnswerPlaceholder userAnswerPlaceholder = usersTaskFile.getAnswerPlaceholders().get(placeholder.getIndex());
-        int userStart = userAnswerPlaceholder.getOffset();
-        int userEnd = userStart + userAnswerPlaceholder.getRealLength();
-        String text = usersDocument.getText(new TextRange(userStart, userEnd));
-        windowDocument.replaceString(start, end, text);
-        ApplicationManager.getApplication().runWriteAction(() -> documentManager.saveDocument(windowDocument));
-        windowDocument.removeDocumentListener(listener);
+    final String variantNamePrefix = virtualFile.getNameWithoutExtension() + EduNames.ANSWERS_POSTFIX;
+    final List<Variant> variants = new ArrayList<>();
+    for (int i = 0; i < placeholders.size(); i++) {
+      final AnswerPlaceholder placeholder = placeholders.get(i);
+      final Map<AnswerPlaceholder, String> contents = new HashMap<>();
+      final StringBuilder variantText = new StringBuilder(text.length());
+      int lastOffset = 0;
+      for (AnswerPlaceholder current : sortedPlaceholders) {
+        final int start = current.getOffset();
+        final int end = start + current.getRealLength();
+        final String content = current == placeholder ? text.substring(start, end) : StringUtil.notNullize(current.getPossibleAnswer());
+        contents.put(current, content);
+        variantText.append(text, lastOffset, start).append(content);
+        lastOffset = end;
+      }
+      variantText.append(text, lastOffset, text.length());
 
-        fileWindows = EduUtils.flushWindows(windowTaskFile, windowCopy);
-        Process smartTestProcess = testRunner.createCheckProcess(project, windowCopy.getPath());
-        final CapturingProcessHandler handler = new CapturingProcessHandler(smartTestProcess, null, windowCopy.getPath());
-        final ProcessOutput output = handler.runProcess();
-        final Course course = StudyTaskManager.getInstance(project).getCourse();
-        if (course != null) {
-          final CheckStatus status = TestsOutputParser.getCheckResult(output.getStdoutLines()).getStatus();
-          userAnswerPlaceholder.setStatus(status);
-        }
+      final List<String> windows = new ArrayList<>();
+      for (AnswerPlaceholder current : placeholders) {
+        windows.add(contents.get(current));
       }
+      final String fileName = variantNamePrefix + i + EduNames.WINDOW_POSTFIX + virtualFile.getExtension();
+      variants.add(new Variant(placeholder, fileName, variantText.toString(), windows));
     }
-    catch (ExecutionException | IOException e) {
-      LOG.error(e);
-    }
-    finally {
-      EduUtils.deleteFile(windowCopy);
-      EduUtils.deleteFile(fileWindows);
-    }
+    return variants;
   }
 
-  static void runSmartTestProcess(@NotNull final VirtualFile taskDir,
-                                  @NotNull final PyTestRunner testRunner,
-                                  @NotNull final TaskFile taskFile,
-                                  @NotNull final Project project) {
-    final VirtualFile virtualFile = EduUtils.findTaskFileInDir(taskFile, taskDir);
-    if (virtualFile == null) {
-      return;
+  /**
+   * Checks all variants, should be called on a background thread.
+   * Checks are stopped if the current progress indicator is cancelled.
+   *
+   * @return statuses of placeholders which were successfully checked
+   */
+  @NotNull
+  static Map<AnswerPlaceholder, CheckStatus> runSmartTestProcess(@NotNull final Project project,
+                                                                 @NotNull final VirtualFile taskDir,
+                                                                 @NotNull final List<Variant> variants) {
+    final File variantsDir;
+    try {
+      variantsDir = FileUtil.createTempDirectory("pySmartCheck", null);
     }
-    Pair<VirtualFile, TaskFile> pair = getCopyWithAnswers(project, taskDir, virtualFile, taskFile);
-    if (pair == null) {
-      return;
+    catch (IOException e) {
+      LOG.error(e);
+      return Collections.emptyMap();
+    }
+    final List<Future<CheckStatus>> futures = new ArrayList<>();
+    for (Variant variant : variants) {
+      futures.add(EXECUTOR.submit(() -> smartCheck(project, taskDir, variantsDir, variant)));
     }
-    VirtualFile answerFile = pair.getFirst();
-    TaskFile answerTaskFile = pair.getSecond();
+    final Map<AnswerPlaceholder, CheckStatus> statuses = new HashMap<>();
+    boolean isFinished = false;
     try {
-      for (final AnswerPlaceholder answerPlaceholder : answerTaskFile.getAnswerPlaceholders()) {
-        final Document document = FileDocumentManager.getInstance().getDocument(virtualFile);
-        if (document == null) {
-          continue;
+      for (int i = 0; i < variants.size(); i++) {
+        final CheckStatus status = waitFor(futures.get(i));
+        if (status != null) {
+          statuses.put(variants.get(i).myPlaceholder, status);
         }
-        smartCheck(answerPlaceholder, project, answerFile, answerTaskFile, taskFile, testRunner,
-                   virtualFile, document);
       }
+      isFinished = true;
+    }
+    catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+      LOG.error(e);
     }
     finally {
-      EduUtils.deleteFile(answerFile);
+      if (!isFinished) {
+        for (Future<CheckStatus> future : futures) {
+          future.cancel(true);
+        }
+      }
+      FileUtil.delete(variantsDir);
+    }
+    return statuses;
+  }
+
+  private static <T> T waitFor(@NotNull Future<T> future) throws InterruptedException, java.util.concurrent.ExecutionException {
+    while (true) {
+      ProgressManager.checkCanceled();
+      try {
+        return future.get(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException e) {
+        // check cancellation and wait again
+      }
     }
   }
 
-  static Pair<VirtualFile, TaskFile> getCopyWithAnswers(@NotNull Project project,
-                                                        @NotNull final VirtualFile taskDir,
-                                                        @NotNull final VirtualFile file,
-                                                        @NotNull final TaskFile source) {
+  @Nullable
+  private static CheckStatus smartCheck(@NotNull final Project project,
+                                        @NotNull final VirtualFile taskDir,
+                                        @NotNull final File variantsDir,
+                                        @NotNull final Variant variant) {
+    // test helper looks for placeholder contents next to the checked file, tests are still run from the task directory
+    final File windowCopy = new File(variantsDir, variant.myFileName);
+    final File fileWindows = new File(variantsDir, FileUtil.getNameWithoutExtension(variant.myFileName) + EduNames.WINDOWS_POSTFIX);
     try {
-      VirtualFile answerFile = file.copy(taskDir, taskDir, file.getNameWithoutExtension() + EduNames.ANSWERS_POSTFIX + "." + file.getExtension());
-      final FileDocumentManager documentManager = FileDocumentManager.getInstance();
-      final Document document = documentManager.getDocument(answerFile);
-      if (document != null) {
-        TaskFile answerTaskFile = source.getTask().copy().getTaskFile(EduUtils.pathRelativeToTask(project, file));
-        if (answerTaskFile == null) {
-          return null;
-        }
-        EduDocumentListener listener = new EduDocumentListener(project, answerTaskFile);
-        document.addDocumentListener(listener);
-        for (AnswerPlaceholder answerPlaceholder : answerTaskFile.getAnswerPlaceholders()) {
-          final int start = answerPlaceholder.getOffset();
-          final int end = start + answerPlaceholder.getRealLength();
-          final String text = answerPlaceholder.getPossibleAnswer();
-          document.replaceString(start, end, text);
+      FileUtil.writeToFile(windowCopy, variant.myText);
+      try (PrintWriter printWriter = new PrintWriter(new FileOutputStream(fileWindows))) {
+        for (String window : variant.myWindows) {
+          printWriter.println("#educational_plugin_window = " + window);
         }
-        ApplicationManager.getApplication().runWriteAction(() -> documentManager.saveDocument(document));
-        document.removeDocumentListener(listener);
-        return Pair.create(answerFile, answerTaskFile);
       }
+      final PyTestRunner testRunner = new PyTestRunner(taskDir);
+      final GeneralCommandLine commandLine = ReadAction.compute(() -> testRunner.createCheckCommandLine(project, windowCopy.getPath()));
+      if (commandLine == null) {
+        return null;
+      }
+      final CapturingProcessHandler handler = new CapturingProcessHandler(commandLine);
+      final ProcessOutput output = handler.runProcess();
+      return TestsOutputParser.getCheckResult(output.getStdoutLines()).getStatus();
     }
-    catch (IOException e) {
+    catch (ExecutionException | IOException e) {
       LOG.error(e);
+      return null;
+    }
+    finally {
+      FileUtil.delete(windowCopy);
+      FileUtil.delete(fileWindows);
+    }
+  }
+
+  static class Variant {
+    private final AnswerPlaceholder myPlaceholder;
+    private final String myFileName;
+    private final String myText;
+    private final List<String> myWindows;
+
+    private Variant(@NotNull AnswerPlaceholder placeholder, @NotNull String fileName, @NotNull String text, @NotNull List<String> windows) {
+      myPlaceholder = placeholder;
+      myFileName = fileName;
+      myText = text;
+      myWindows = windows;
     }
-    return null;
   }
 }
@@ -4,7 +4,6 @@ import com.intellij.execution.ExecutionException;
 import com.intellij.execution.process.CapturingProcessHandler;
 import com.intellij.execution.process.ProcessOutput;
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
@@ -16,6 +15,7 @@ import com.jetbrains.edu.learning.checker.CheckResult;
 import com.jetbrains.edu.learning.checker.CheckUtils;
 import com.jetbrains.edu.learning.checker.TaskChecker;
 import com.jetbrains.edu.learning.checker.TestsOutputParser;
+import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder;
 import com.jetbrains.edu.learning.courseFormat.CheckStatus;
 import com.jetbrains.edu.learning.courseFormat.Course;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
@@ -25,6 +25,9 @@ import com.jetbrains.edu.learning.editor.EduEditorKt;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
@@ -86,19 +89,36 @@ public class PyTaskChecker extends TaskChecker<EduTask> {
     ApplicationManager.getApplication().invokeLater(() -> {
       VirtualFile taskDir = task.getTaskDir(project);
       if (taskDir == null) return;
-      for (Map.Entry<String, TaskFile> entry : task.getTaskFiles().entrySet()) {
-        final TaskFile taskFile = entry.getValue();
-        if (taskFile.getAnswerPlaceholders().size() < 2) {
-          continue;
-        }
-        final Course course = task.getLesson().getCourse();
-        if (course.isStudy()) {
-          CommandProcessor.getInstance().runUndoTransparentAction(
-            () -> ApplicationManager.getApplication().runWriteAction(
-              () -> PySmartChecker.runSmartTestProcess(taskDir, new PyTestRunner(taskDir), taskFile, project)));
+      final List<PySmartChecker.Variant> variants = new ArrayList<>();
+      final Course course = task.getLesson().getCourse();
+      if (course.isStudy()) {
+        for (Map.Entry<String, TaskFile> entry : task.getTaskFiles().entrySet()) {
+          final TaskFile taskFile = entry.getValue();
+          if (taskFile.getAnswerPlaceholders().size() < 2) {
+            continue;
+          }
+          variants.addAll(PySmartChecker.createVariants(taskDir, taskFile));
         }
       }
-      CheckUtils.navigateToFailedPlaceholder(new EduState(EduUtils.getSelectedEduEditor(project)), task, taskDir, project);
+      if (variants.isEmpty()) {
+        CheckUtils.navigateToFailedPlaceholder(new EduState(EduUtils.getSelectedEduEditor(project)), task, taskDir, project);
+        return;
+      }
+      ProgressManager.getInstance().run(new com.intellij.openapi.progress.Task.Backgroundable(project, "Checking Placeholders", true) {
+        private Map<AnswerPlaceholder, CheckStatus> myStatuses = Collections.emptyMap();
+
+        @Override
+        public void run(@NotNull ProgressIndicator indicator) {
+          myStatuses = PySmartChecker.runSmartTestProcess(project, taskDir, variants);
+        }
+
+        @Override
+        public void onFinished() {
+          if (project.isDisposed()) return;
+          myStatuses.forEach(AnswerPlaceholder::setStatus);
+          CheckUtils.navigateToFailedPlaceholder(new EduState(EduUtils.getSelectedEduEditor(project)), task, taskDir, project);
+        }
+      });
     });
   }
 
@@ -14,6 +14,7 @@ import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.python.PythonLanguage;
 import com.jetbrains.python.sdk.PythonSdkType;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.Map;
@@ -29,6 +30,15 @@ class PyTestRunner {
   }
 
   Process createCheckProcess(@NotNull final Project project, @NotNull final String executablePath) throws ExecutionException {
+    final GeneralCommandLine commandLine = createCheckCommandLine(project, executablePath);
+    return commandLine == null ? null : commandLine.createProcess();
+  }
+
+  /**
+   * Reads project model, so it should be called under read action unlike creation of the process itself
+   */
+  @Nullable
+  GeneralCommandLine createCheckCommandLine(@NotNull final Project project, @NotNull final String executablePath) {
     final Sdk sdk = PythonSdkType.findPythonSdk(ModuleManager.getInstance(project).getModules()[0]);
     EduConfigurator<?> configurator = EduConfiguratorManager.forLanguageAndCourseType(EduNames.PYCHARM, PythonLanguage.getInstance());
     if (configurator == null) {
@@ -51,7 +61,7 @@ class PyTestRunner {
         myCommandLine.setExePath(pythonPath);
         myCommandLine.addParameter(testRunner.getPath());
         myCommandLine.addParameter(FileUtil.toSystemDependentName(executablePath));
-        return myCommandLine.createProcess();
+        return myCommandLine;
       }
     }
     return null;
@@ -24,9 +24,9 @@ import com.intellij.util.Function
 import com.intellij.util.PathUtil
 import com.jetbrains.edu.coursecreator.configuration.YamlFormatSynchronizer
 import com.jetbrains.edu.coursecreator.stepik.StepikCourseChangeHandler
-import com.jetbrains.edu.learning.EduDocumentTransformListener
 import com.jetbrains.edu.learning.EduNames
 import com.jetbrains.edu.learning.EduUtils
+import com.jetbrains.edu.learning.PlaceholderTextTransformer
 import com.jetbrains.edu.learning.StudyTaskManager
 import com.jetbrains.edu.learning.courseFormat.*
 import com.jetbrains.edu.learning.courseFormat.ext.configurator
@@ -92,23 +92,6 @@ object CCUtils {
     }
   }
 
-  @JvmStatic
-  fun generateFolder(project: Project, module: Module, name: String): VirtualFile? {
-    val generatedRoot = getGeneratedFilesFolder(project, module) ?: return null
-
-    var folder = generatedRoot.findChild(name)
-    //need to delete old folder
-    runWriteAction {
-      try {
-        folder?.delete(CCUtils::class.java)
-        folder = generatedRoot.createChildDirectory(null, name)
-      } catch (e: IOException) {
-        LOG.info("Failed to generate folder $name", e)
-      }
-    }
-    return folder
-  }
-
   @JvmStatic
   fun isCourseCreator(project: Project): Boolean {
     val course = StudyTaskManager.getInstance(project).course ?: return false
@@ -229,23 +212,36 @@ object CCUtils {
       return
     }
     val document = FileDocumentManager.getInstance().getDocument(file) ?: return
-    val listener = EduDocumentTransformListener(project, taskFile)
-    document.addDocumentListener(listener)
     taskFile.sortAnswerPlaceholders()
-    taskFile.isTrackLengths = false
+    val placeholders = taskFile.answerPlaceholders
+    for (placeholder in placeholders) {
+      placeholder.placeholderText = document.getText(TextRange.from(placeholder.offset, placeholder.length))
+    }
+    val answerText = PlaceholderTextTransformer.transform(document.immutableCharSequence, placeholders,
+                                                          { it.length }, { it.possibleAnswer })
 
+    // only placeholder ranges are replaced, so caret and highlighters of open editors are kept,
+    // placeholders are moved to their new offsets at once instead of by document listener
+    taskFile.isTrackChanges = false
     try {
-      for (placeholder in taskFile.answerPlaceholders) {
-        replaceAnswerPlaceholder(document, placeholder)
-        placeholder.useLength = false
-      }
-
       CommandProcessor.getInstance().executeCommand(project, {
-        runWriteAction { FileDocumentManager.getInstance().saveDocumentAsIs(document) }
+        runWriteAction {
+          for (placeholder in placeholders.asReversed()) {
+            document.replaceString(placeholder.offset, placeholder.offset + placeholder.length, placeholder.possibleAnswer ?: "")
+          }
+          FileDocumentManager.getInstance().saveDocumentAsIs(document)
+        }
       }, "Create answer document", "Create answer document")
     } finally {
-      document.removeDocumentListener(listener)
-      taskFile.isTrackLengths = true
+      taskFile.isTrackChanges = true
+    }
+    answerText.applyOffsets(placeholders)
+    for (placeholder in placeholders) {
+      placeholder.init()
+      placeholder.useLength = false
+    }
+    if (placeholders.isNotEmpty()) {
+      StepikCourseChangeHandler.changed(taskFile)
     }
   }
 
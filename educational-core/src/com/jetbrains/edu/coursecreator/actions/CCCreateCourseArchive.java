@@ -1,49 +1,50 @@
 package com.jetbrains.edu.coursecreator.actions;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.common.annotations.VisibleForTesting;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.ide.projectView.ProjectView;
 import com.intellij.ide.util.PropertiesComponent;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
 import com.intellij.openapi.actionSystem.Presentation;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
-import com.intellij.openapi.module.Module;
-import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.ui.Messages;
-import com.intellij.openapi.util.Ref;
-import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
-import com.intellij.util.io.ZipUtil;
 import com.jetbrains.edu.coursecreator.CCUtils;
 import com.jetbrains.edu.coursecreator.ui.CCCreateCourseArchiveDialog;
 import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.EduUtils;
+import com.jetbrains.edu.learning.PlaceholderTextTransformer;
 import com.jetbrains.edu.learning.StudyTaskManager;
-import com.jetbrains.edu.learning.courseFormat.Course;
-import com.jetbrains.edu.learning.courseFormat.DescriptionFormat;
-import com.jetbrains.edu.learning.courseFormat.Lesson;
-import com.jetbrains.edu.learning.courseFormat.TaskFile;
+import com.jetbrains.edu.learning.courseFormat.*;
 import com.jetbrains.edu.learning.courseFormat.ext.TaskExt;
 import com.jetbrains.edu.learning.courseFormat.tasks.Task;
-import com.jetbrains.edu.learning.serialization.SerializationUtils;
+import com.jetbrains.edu.learning.serialization.CourseJsonCodec;
 import com.jetbrains.edu.learning.statistics.EduUsagesCollector;
 import kotlin.collections.ArraysKt;
+import org.apache.commons.codec.binary.Base64;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.io.*;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import static com.jetbrains.edu.learning.EduNames.COURSE_META_FILE;
@@ -81,17 +82,13 @@ public class CCCreateCourseArchive extends DumbAwareAction {
   public void actionPerformed(@NotNull AnActionEvent e) {
     final Project project = e.getData(CommonDataKeys.PROJECT);
     if (project == null) return;
-    final VirtualFile baseDir = project.getBaseDir();
-    if (baseDir == null) return;
-    Module module = ModuleUtilCore.findModuleForFile(baseDir, project);
-    if (module == null) return;
 
     CCCreateCourseArchiveDialog dlg = new CCCreateCourseArchiveDialog(project, this);
     dlg.show();
     if (dlg.getExitCode() != DialogWrapper.OK_EXIT_CODE) {
       return;
     }
-    boolean isSuccessful = createCourseArchive(project, module, myZipName, myLocationDir, true);
+    boolean isSuccessful = createCourseArchive(project, myZipName, myLocationDir, true);
     if (isSuccessful) {
       PropertiesComponent.getInstance(project).setValue(LAST_ARCHIVE_LOCATION, myLocationDir);
       EduUsagesCollector.createdCourseArchive();
@@ -101,130 +98,144 @@ public class CCCreateCourseArchive extends DumbAwareAction {
   }
 
   /**
+   * Student texts of tasks are computed in parallel from answer files texts,
+   * course.json is written directly into the archive.
+   *
    * @return true if course archive was created successfully, false otherwise
    */
-  public static boolean createCourseArchive(final Project project, Module module, String zipName, String locationDir, boolean showMessage) {
+  public static boolean createCourseArchive(final Project project, String zipName, String locationDir, boolean showMessage) {
     final Course course = StudyTaskManager.getInstance(project).getCourse();
     if (course == null) return false;
-    VirtualFile archiveFolder = CCUtils.generateFolder(project, module, zipName);
-    if (archiveFolder == null) {
-      return false;
-    }
     FileDocumentManager.getInstance().saveAllDocuments();
 
-    final Ref<Boolean> isCreationSuccessful = Ref.create();
-    ApplicationManager.getApplication().runWriteAction(new Runnable() {
-      @Override
-      public void run() {
-        archiveFolder.refresh(false, true);
-        Course courseCopy = course.copy();
-        loadActualTexts(courseCopy);
-        courseCopy.sortItems();
-        createAdditionalFiles(courseCopy);
-        try {
-          generateJson(archiveFolder, courseCopy);
-          VirtualFileManager.getInstance().refreshWithoutFileWatcher(false);
-          packCourse(archiveFolder, locationDir, zipName, showMessage);
-          synchronize(project);
-          isCreationSuccessful.set(true);
-        } catch (IOException e) {
-          LOG.error("Failed to create course archive", e);
-          isCreationSuccessful.set(false);
-        }
-      }
+    final Course courseCopy = course.copy();
+    final List<Task> tasks = new ArrayList<>();
+    courseCopy.visitLessons(lesson -> {
+      tasks.addAll(lesson.getTaskList());
+      return true;
+    });
+    courseCopy.sortItems();
+    final Lesson additionalLesson = CCUtils.createAdditionalLesson(courseCopy, project, EduNames.ADDITIONAL_MATERIALS);
+    if (additionalLesson != null) {
+      courseCopy.addLesson(additionalLesson);
+    }
 
-      private void createAdditionalFiles(Course course) {
-        final Lesson lesson = CCUtils.createAdditionalLesson(course, project, EduNames.ADDITIONAL_MATERIALS);
-        if (lesson != null) {
-          course.addLesson(lesson);
-        }
+    final File zipFile = new File(locationDir, zipName + ".zip");
+    boolean created = false;
+    try {
+      ProgressManager.getInstance().runProcessWithProgressSynchronously((ThrowableComputable<Void, IOException>)() -> {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        loadActualTexts(project, tasks, indicator);
+        indicator.setText2("");
+        indicator.setIndeterminate(true);
+        writeArchive(courseCopy, zipFile);
+        return null;
+      }, "Creating Course Archive", true, project);
+      created = true;
+    }
+    catch (ProcessCanceledException e) {
+      return false;
+    }
+    catch (IOException e) {
+      LOG.error("Failed to create course archive", e);
+      return false;
+    }
+    finally {
+      // partially written archive shouldn't be left
+      if (!created) {
+        FileUtil.delete(zipFile);
       }
+    }
 
-      private void loadActualTexts(@NotNull Course courseCopy) {
-        courseCopy.visitLessons((lesson) -> {
-          final VirtualFile lessonDir = lesson.getLessonDir(project);
-          if (lessonDir == null) return true;
-          for (Task task : lesson.getTaskList()) {
-            final VirtualFile taskDir = task.getTaskDir(project);
-            if (taskDir == null) continue;
-            convertToStudentTaskFiles(task, taskDir);
-            CCUtils.loadTestTextsToTask(task, taskDir);
-            CCUtils.loadAdditionalFileTextsToTask(task, taskDir);
-            addDescriptions(task);
-          }
-          return true;
-        });
-      }
+    synchronize(project);
+    if (showMessage) {
+      Messages.showInfoMessage("Course archive was saved to " + zipFile.getPath(), "Course Archive Was Created Successfully");
+    }
+    return true;
+  }
 
-      private void convertToStudentTaskFiles(Task task, VirtualFile taskDir) {
-        final LinkedHashMap<String, TaskFile> studentTaskFiles = new LinkedHashMap<>();
-        for (Map.Entry<String, TaskFile> entry : task.getTaskFiles().entrySet()) {
-          VirtualFile answerFile = EduUtils.findTaskFileInDir(entry.getValue(), taskDir);
-          if (answerFile == null) {
-            continue;
-          }
-          final TaskFile studentFile = EduUtils.createStudentFile(project, answerFile, task);
-          if (studentFile != null) {
-            studentTaskFiles.put(entry.getKey(), studentFile);
-          }
-        }
-        task.setTaskFiles(studentTaskFiles);
-      }
+  private static void loadActualTexts(@NotNull Project project, @NotNull List<Task> tasks, @NotNull ProgressIndicator indicator) {
+    indicator.setIndeterminate(false);
+    AtomicInteger processedTasks = new AtomicInteger();
+    boolean completed = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(tasks, indicator, task -> {
+      ReadAction.run(() -> {
+        final VirtualFile taskDir = task.getTaskDir(project);
+        if (taskDir == null) return;
+        convertToStudentTaskFiles(task, taskDir);
+        CCUtils.loadTestTextsToTask(task, taskDir);
+        CCUtils.loadAdditionalFileTextsToTask(task, taskDir);
+        addDescriptions(project, task);
+      });
+      indicator.setText2(task.getName());
+      indicator.setFraction((double)processedTasks.incrementAndGet() / tasks.size());
+      return true;
+    });
+    if (!completed) {
+      throw new ProcessCanceledException();
+    }
+  }
 
-      private void addDescriptions(@NotNull final Task task) {
-        VirtualFile descriptionFile = TaskExt.getDescriptionFile(task, project);
-
-        if (descriptionFile != null) {
-          try {
-            task.setDescriptionText(VfsUtilCore.loadText(descriptionFile));
-            String extension = descriptionFile.getExtension();
-            DescriptionFormat descriptionFormat =
-              ArraysKt.firstOrNull(DescriptionFormat.values(), format -> format.getFileExtension().equals(extension));
-            if (descriptionFormat != null) {
-              task.setDescriptionFormat(descriptionFormat);
-            }
-          } catch (IOException e) {
-            LOG.warn("Failed to load text " + descriptionFile.getName());
-          }
-        } else {
-          LOG.warn(String.format("Can't find description file for task `%s`", task.getName()));
+  @VisibleForTesting
+  static void convertToStudentTaskFiles(@NotNull Task task, @NotNull VirtualFile taskDir) {
+    final LinkedHashMap<String, TaskFile> studentTaskFiles = new LinkedHashMap<>();
+    for (Map.Entry<String, TaskFile> entry : task.getTaskFiles().entrySet()) {
+      TaskFile taskFile = entry.getValue();
+      VirtualFile answerFile = EduUtils.findTaskFileInDir(taskFile, taskDir);
+      if (answerFile == null) {
+        continue;
+      }
+      try {
+        if (EduUtils.isImage(taskFile.getName())) {
+          taskFile.setText(Base64.encodeBase64String(answerFile.contentsToByteArray()));
+        }
+        else {
+          List<AnswerPlaceholder> placeholders = taskFile.getAnswerPlaceholders();
+          PlaceholderTextTransformer.Result studentText =
+            PlaceholderTextTransformer.toStudentText(EduUtils.loadDocumentText(answerFile), placeholders);
+          studentText.applyOffsets(placeholders);
+          taskFile.setText(studentText.getText());
         }
+        studentTaskFiles.put(entry.getKey(), taskFile);
       }
-    });
-
-    return isCreationSuccessful.get();
+      catch (IOException | IllegalArgumentException e) {
+        LOG.error("Failed to convert answer file to student one", e);
+      }
+    }
+    task.setTaskFiles(studentTaskFiles);
   }
 
-  private static void synchronize(@NotNull final Project project) {
-    VirtualFileManager.getInstance().refreshWithoutFileWatcher(true);
-    ProjectView.getInstance(project).refresh();
+  private static void addDescriptions(@NotNull Project project, @NotNull final Task task) {
+    VirtualFile descriptionFile = TaskExt.getDescriptionFile(task, project);
+
+    if (descriptionFile != null) {
+      try {
+        task.setDescriptionText(VfsUtilCore.loadText(descriptionFile));
+        String extension = descriptionFile.getExtension();
+        DescriptionFormat descriptionFormat =
+          ArraysKt.firstOrNull(DescriptionFormat.values(), format -> format.getFileExtension().equals(extension));
+        if (descriptionFormat != null) {
+          task.setDescriptionFormat(descriptionFormat);
+        }
+      } catch (IOException e) {
+        LOG.warn("Failed to load text " + descriptionFile.getName());
+      }
+    } else {
+      LOG.warn(String.format("Can't find description file for task `%s`", task.getName()));
+    }
   }
 
-  private static void packCourse(@NotNull final VirtualFile baseDir, String locationDir,
-                                    String zipName, boolean showMessage) throws IOException {
-    final File zipFile = new File(locationDir, zipName + ".zip");
-    VirtualFile[] courseFiles = baseDir.getChildren();
+  private static void writeArchive(@NotNull Course course, @NotNull File zipFile) throws IOException {
     try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)))) {
-      for (VirtualFile file : courseFiles) {
-        ZipUtil.addFileOrDirRecursively(zos, null, new File(file.getPath()), file.getName(), null, null);
-      }
-      if (showMessage) {
-        ApplicationManager.getApplication().invokeLater(
-          () -> Messages.showInfoMessage("Course archive was saved to " + zipFile.getPath(),
-                                         "Course Archive Was Created Successfully"));
-
-      }
+      zos.putNextEntry(new ZipEntry(COURSE_META_FILE));
+      Writer writer = new OutputStreamWriter(zos, CharsetToolkit.UTF8_CHARSET);
+      CourseJsonCodec.write(course, writer);
+      writer.flush();
+      zos.closeEntry();
     }
   }
 
-  public static void generateJson(VirtualFile parentDir, Course course) throws IOException {
-    final Gson gson = new GsonBuilder()
-      .setPrettyPrinting()
-      .excludeFieldsWithoutExposeAnnotation()
-      .registerTypeHierarchyAdapter(Course.class, new SerializationUtils.Json.CourseAdapter())
-      .create();
-    final String json = gson.toJson(course);
-    final VirtualFile courseJsonFile = parentDir.findOrCreateChildData(CCCreateCourseArchive.class, COURSE_META_FILE);
-    VfsUtil.saveText(courseJsonFile, json);
+  private static void synchronize(@NotNull final Project project) {
+    VirtualFileManager.getInstance().refreshWithoutFileWatcher(true);
+    ProjectView.getInstance(project).refresh();
   }
 }
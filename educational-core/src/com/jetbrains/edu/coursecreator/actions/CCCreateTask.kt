@@ -56,7 +56,7 @@ class CCCreateTask : CCCreateStudyItemActionBase<Task>(StudyItemType.TASK, Educa
 
   override fun sortSiblings(course: Course, parentItem: StudyItem?) {
     if (parentItem is Lesson) {
-      Collections.sort(parentItem.getTaskList(), EduUtils.INDEX_COMPARATOR)
+      parentItem.sortTasks()
     }
   }
 
@@ -85,9 +85,9 @@ public class CCAddAnswerPlaceholder extends CCAnswerPlaceholderAction {
 
     @Override
     public void performUndo() {
-      final List<AnswerPlaceholder> answerPlaceholders = getTaskFile().getAnswerPlaceholders();
-      if (answerPlaceholders.contains(myPlaceholder)) {
-        answerPlaceholders.remove(myPlaceholder);
+      final TaskFile taskFile = getTaskFile();
+      if (taskFile.getAnswerPlaceholders().contains(myPlaceholder)) {
+        taskFile.removeAnswerPlaceholder(myPlaceholder);
         PlaceholderPainter.hidePlaceholder(myPlaceholder);
       }
     }
@@ -53,14 +53,16 @@ public class CCDeleteAllAnswerPlaceholdersAction extends CCAnswerPlaceholderActi
 
     @Override
     public void performUndo() {
-      myTaskFile.getAnswerPlaceholders().addAll(myPlaceholders);
+      for (AnswerPlaceholder placeholder : myPlaceholders) {
+        myTaskFile.addAnswerPlaceholder(placeholder);
+      }
       PlaceholderPainter.showPlaceholders(myProject, myTaskFile);
     }
 
     @Override
     public void performRedo() {
       PlaceholderPainter.hidePlaceholders(myTaskFile);
-      myTaskFile.getAnswerPlaceholders().clear();
+      myTaskFile.setAnswerPlaceholders(new ArrayList<>());
     }
 
     @Override
@@ -33,7 +33,7 @@ private class RemoveFileFromTask(
   override fun changeState(project: Project) {
     when (info.kind) {
       FileKind.TASK_FILE -> {
-        val taskFile = info.task.taskFiles.remove(info.pathInTask)
+        val taskFile = info.task.removeTaskFile(info.pathInTask)
         if (taskFile != null) {
           PlaceholderPainter.hidePlaceholders(taskFile)
         }
@@ -32,7 +32,7 @@ private class IncludeFileIntoTask(private val info: FileInfo.FileInTask) : State
 
   override fun restoreState(project: Project) {
     when (info.kind) {
-      TASK_FILE -> info.task.taskFiles.remove(info.pathInTask)
+      TASK_FILE -> info.task.removeTaskFile(info.pathInTask)
       TEST_FILE -> info.task.testsText.remove(info.pathInTask)
       ADDITIONAL_FILE -> info.task.additionalFiles.remove(info.pathInTask)
     }
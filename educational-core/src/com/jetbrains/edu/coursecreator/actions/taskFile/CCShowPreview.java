@@ -114,12 +114,10 @@ public class CCShowPreview extends DumbAwareAction {
     }
 
     final Task task = taskFile.getTask();
-    ApplicationManager.getApplication().runWriteAction(() -> {
-      TaskFile studentTaskFile = EduUtils.createStudentFile(project, virtualFile, task);
-      if (studentTaskFile != null) {
-        showPreviewDialog(project, studentTaskFile);
-      }
-    });
+    TaskFile studentTaskFile = EduUtils.createStudentFile(project, virtualFile, task);
+    if (studentTaskFile != null) {
+      showPreviewDialog(project, studentTaskFile);
+    }
   }
 
   private static void showPreviewDialog(@NotNull Project project, @NotNull TaskFile taskFile) {
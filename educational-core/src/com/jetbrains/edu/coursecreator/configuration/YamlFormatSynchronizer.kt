@@ -8,6 +8,7 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator
 import com.fasterxml.jackson.module.kotlin.registerKotlinModule
 import com.google.common.annotations.VisibleForTesting
+import com.intellij.openapi.Disposable
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.application.runUndoTransparentWriteAction
 import com.intellij.openapi.command.undo.UndoManager
@@ -15,7 +16,12 @@ import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.editor.Document
 import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.project.ProjectManager
+import com.intellij.openapi.project.ProjectManagerListener
+import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.util.Key
 import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.Alarm
 import com.jetbrains.edu.coursecreator.configuration.YamlFormatSettings.COURSE_CONFIG
 import com.jetbrains.edu.coursecreator.configuration.YamlFormatSettings.LESSON_CONFIG
 import com.jetbrains.edu.coursecreator.configuration.YamlFormatSettings.SECTION_CONFIG
@@ -28,10 +34,14 @@ import com.jetbrains.edu.learning.courseFormat.tasks.EduTask
 import com.jetbrains.edu.learning.courseFormat.tasks.OutputTask
 import com.jetbrains.edu.learning.courseFormat.tasks.Task
 import com.jetbrains.edu.learning.courseFormat.tasks.TheoryTask
+import com.jetbrains.edu.learning.isUnitTestMode
 
 
 object YamlFormatSynchronizer {
   private val LOG = Logger.getInstance(YamlFormatSynchronizer.javaClass)
+  private const val SAVE_DELAY_MS = 300
+
+  private val PENDING_ITEMS: Key<PendingItems> = Key.create("Edu.yamlPendingItems")
 
   @VisibleForTesting
   val MAPPER: ObjectMapper by lazy {
@@ -101,6 +111,76 @@ object YamlFormatSynchronizer {
     }
   }
 
+  /**
+   * Saves item after [SAVE_DELAY_MS] of inactivity, so several changes in a row (e.g. typing in a placeholder)
+   * lead to a single config file update
+   */
+  @JvmStatic
+  fun saveItemWithDelay(item: StudyItem) {
+    if (isUnitTestMode) {
+      saveItem(item)
+      return
+    }
+    if (YamlFormatSettings.isDisabled() || item.course.isStudy) {
+      return
+    }
+    val project = item.course.project
+    if (project == null || project.isDisposed) {
+      return
+    }
+    getPendingItems(project).add(item)
+  }
+
+  private fun getPendingItems(project: Project): PendingItems {
+    var pendingItems = project.getUserData(PENDING_ITEMS)
+    if (pendingItems == null) {
+      pendingItems = PendingItems(project)
+      Disposer.register(project, pendingItems)
+      project.putUserData(PENDING_ITEMS, pendingItems)
+    }
+    return pendingItems
+  }
+
+  /**
+   * Items of a project waiting for [saveItemWithDelay]. They are saved when the project is closing,
+   * so changes made right before closing aren't lost, and dropped when it's disposed.
+   * Accessed only from EDT.
+   */
+  private class PendingItems(private val project: Project) : Disposable {
+    private val items = LinkedHashSet<StudyItem>()
+    private val alarm = Alarm(Alarm.ThreadToUse.SWING_THREAD, this)
+
+    init {
+      ApplicationManager.getApplication().messageBus.connect(this).subscribe(ProjectManager.TOPIC, object : ProjectManagerListener {
+        override fun projectClosing(closingProject: Project) {
+          if (closingProject == project) {
+            save()
+          }
+        }
+      })
+    }
+
+    fun add(item: StudyItem) {
+      items.add(item)
+      alarm.cancelAllRequests()
+      alarm.addRequest({ save() }, SAVE_DELAY_MS)
+    }
+
+    fun save() {
+      alarm.cancelAllRequests()
+      val itemsToSave = items.toList()
+      items.clear()
+      for (item in itemsToSave) {
+        saveItem(item)
+      }
+    }
+
+    override fun dispose() {
+      items.clear()
+      project.putUserData(PENDING_ITEMS, null)
+    }
+  }
+
   @JvmStatic
   fun saveAll(project: Project) {
     val course = StudyTaskManager.getInstance(project).course
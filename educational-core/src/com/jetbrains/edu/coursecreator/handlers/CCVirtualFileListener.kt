@@ -227,7 +227,7 @@ class CCVirtualFileListener(project: Project) : EduVirtualFileListener(project)
     val lessonDir = removedTask.parent ?: error("`$removedTask` parent shouldn't be null")
     val lesson = task.lesson
     CCUtils.updateHigherElements(lessonDir.children, Function { lesson.getTask(it.name) }, task.index, -1)
-    lesson.getTaskList().remove(task)
+    lesson.removeTask(task)
     YamlFormatSynchronizer.saveItem(lesson)
     StepikCourseChangeHandler.contentChanged(lesson)
 
@@ -240,20 +240,20 @@ class CCVirtualFileListener(project: Project) : EduVirtualFileListener(project)
   private fun deleteFileInTask(info: FileInfo.FileInTask, removedFile: VirtualFile) {
     val (task, pathInTask, kind) = info
 
-    fun <T> remove(data: MutableMap<String, T>) {
+    fun <T> remove(data: MutableMap<String, T>, removeItem: (String) -> Unit = { data.remove(it) }) {
       val toRemove = data.keys.filter { it.startsWith(pathInTask) }
       for (path in toRemove) {
-        data.remove(path)
+        removeItem(path)
       }
     }
 
     if (removedFile.isDirectory) {
-      remove(task.taskFiles)
+      remove(task.taskFiles) { task.removeTaskFile(it) }
       remove(task.testsText)
       remove(task.additionalFiles)
     } else {
       when (kind) {
-        TASK_FILE -> task.taskFiles.remove(pathInTask)
+        TASK_FILE -> task.removeTaskFile(pathInTask)
         TEST_FILE -> task.testsText.remove(pathInTask)
         ADDITIONAL_FILE -> task.additionalFiles.remove(pathInTask)
       }
@@ -3,13 +3,15 @@ package com.jetbrains.edu.coursecreator.stepik
 import com.google.common.annotations.VisibleForTesting
 import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.project.Project
-import com.intellij.testFramework.runInEdtAndWait
+import com.intellij.util.concurrency.AppExecutorUtil
 import com.jetbrains.edu.learning.EduUtils
 import com.jetbrains.edu.learning.StudyTaskManager
 import com.jetbrains.edu.learning.courseFormat.*
 import com.jetbrains.edu.learning.courseFormat.ext.getVirtualFile
 import com.jetbrains.edu.learning.courseFormat.tasks.Task
 import com.jetbrains.edu.learning.isUnitTestMode
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
 
 @VisibleForTesting
 data class StepikChangesInfo(var isCourseInfoChanged: Boolean = false,
@@ -99,12 +101,21 @@ class StepikChangeRetriever(val project: Project, private val courseFromServer:
 
   private fun setTaskFileTextFromDocuments() {
     val course = StudyTaskManager.getInstance(project).course as RemoteCourse
-    runInEdtAndWait {
-      runReadAction {
-        course.lessons
-          .flatMap { it.taskList }
-          .flatMap { it.taskFiles.values }
-          .forEach { it.setText(EduUtils.createStudentFile(project, it.getVirtualFile(project)!!, it.task)!!.getText()) }
+    val taskFiles = course.lessons
+      .flatMap { it.taskList }
+      .flatMap { it.taskFiles.values }
+    // student texts are computed concurrently, but task files are changed only in the current thread
+    val texts = taskFiles.map { taskFile ->
+      EXECUTOR.submit(Callable {
+        runReadAction { EduUtils.createStudentFile(project, taskFile.getVirtualFile(project)!!, taskFile.task)!!.getText() }
+      })
+    }
+    for ((taskFile, text) in taskFiles.zip(texts)) {
+      try {
+        taskFile.setText(text.get())
+      }
+      catch (e: ExecutionException) {
+        throw e.cause ?: e
       }
     }
   }
@@ -228,4 +239,9 @@ class StepikChangeRetriever(val project: Project, private val courseFromServer:
 
     return true
   }
-}
\ No newline at end of file
+
+  companion object {
+    private val EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("StepikChangeRetriever",
+                                                                                Runtime.getRuntime().availableProcessors())
+  }
+}
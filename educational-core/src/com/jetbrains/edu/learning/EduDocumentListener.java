@@ -5,14 +5,18 @@ import com.intellij.openapi.editor.event.DocumentEvent;
 import com.intellij.openapi.editor.event.DocumentListener;
 import com.intellij.openapi.editor.impl.event.DocumentEventImpl;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.edu.coursecreator.configuration.YamlFormatSynchronizer;
 import com.jetbrains.edu.coursecreator.stepik.StepikCourseChangeHandler;
 import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder;
+import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholderComparator;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Listens changes in study files and updates
  * coordinates of all the placeholders in current task file
@@ -20,6 +24,9 @@ import org.jetbrains.annotations.NotNull;
 public class EduDocumentListener implements DocumentListener {
   protected final Project myProject;
   protected final TaskFile myTaskFile;
+  // placeholders don't overlap, so placeholders sorted by offset are sorted by end offset too
+  private List<AnswerPlaceholder> mySortedPlaceholders;
+  private long mySortedPlaceholdersModificationCount;
 
   public EduDocumentListener(Project project, TaskFile taskFile) {
     myProject = project;
@@ -55,22 +62,21 @@ public class EduDocumentListener implements DocumentListener {
     final CharSequence fragment = e.getNewFragment();
     CharSequence oldFragment = e.getOldFragment();
 
-    for (AnswerPlaceholder placeholder : myTaskFile.getAnswerPlaceholders()) {
+    List<AnswerPlaceholder> placeholders = getSortedPlaceholders();
+    // placeholders located before the change are not affected by it
+    for (int i = findFirstAffectedPlaceholder(placeholders, offset); i < placeholders.size(); i++) {
+      AnswerPlaceholder placeholder = placeholders.get(i);
       int placeholderStart = placeholder.getOffset();
       int placeholderEnd = placeholder.getEndOffset();
 
-      final Pair<Integer, Integer> changes = getChangeForOffsets(offset, change, placeholder);
-      int changeForStartOffset = changes.getFirst();
-      int changeForEndOffset = changes.getSecond();
-
-      placeholderStart += changeForStartOffset;
-      placeholderEnd += changeForEndOffset;
+      placeholderStart += getChangeForStartOffset(offset, change, placeholderStart);
+      placeholderEnd += getChangeForEndOffset(offset, change, placeholderEnd);
 
-      if (placeholderStart - 1 == offset && fragment.toString().isEmpty() && oldFragment.toString().startsWith("\n")) {
+      if (placeholderStart - 1 == offset && fragment.length() == 0 && StringUtil.startsWithChar(oldFragment, '\n')) {
         placeholderStart -= 1;
       }
 
-      if (placeholderStart == offset && oldFragment.toString().isEmpty() && fragment.toString().startsWith("\n")) {
+      if (placeholderStart == offset && oldFragment.length() == 0 && StringUtil.startsWithChar(fragment, '\n')) {
         placeholderStart += 1;
       }
 
@@ -81,28 +87,50 @@ public class EduDocumentListener implements DocumentListener {
     }
   }
 
-  private static Pair<Integer, Integer> getChangeForOffsets(int offset, int change, @NotNull final AnswerPlaceholder placeholder) {
-    int placeholderStart = placeholder.getOffset();
-    int placeholderEnd = placeholder.getEndOffset();
-    int start = 0;
-    int end = change;
-    if (offset > placeholderEnd) {
-      return Pair.create(0, 0);
+  @NotNull
+  private List<AnswerPlaceholder> getSortedPlaceholders() {
+    long modificationCount = myTaskFile.getPlaceholdersModificationCount();
+    if (mySortedPlaceholders == null || mySortedPlaceholdersModificationCount != modificationCount) {
+      mySortedPlaceholders = new ArrayList<>(myTaskFile.getAnswerPlaceholders());
+      mySortedPlaceholders.sort(new AnswerPlaceholderComparator());
+      mySortedPlaceholdersModificationCount = modificationCount;
     }
+    return mySortedPlaceholders;
+  }
 
-    if (offset < placeholderStart) {
-      start = change;
-
-      if (change < 0 && offset - change > placeholderStart) {  // delete part of placeholder start
-        start = offset - placeholderStart;
+  /**
+   * @return index of the first placeholder which ends at the offset or after it
+   */
+  private static int findFirstAffectedPlaceholder(@NotNull List<AnswerPlaceholder> sortedPlaceholders, int offset) {
+    int low = 0;
+    int high = sortedPlaceholders.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sortedPlaceholders.get(middle).getEndOffset() < offset) {
+        low = middle + 1;
+      }
+      else {
+        high = middle;
       }
     }
+    return low;
+  }
 
-    if (change < 0 && offset - change > placeholderEnd) {   // delete part of placeholder end
-      end = offset - placeholderEnd;
+  private static int getChangeForStartOffset(int offset, int change, int placeholderStart) {
+    if (offset >= placeholderStart) {
+      return 0;
+    }
+    if (change < 0 && offset - change > placeholderStart) {  // delete part of placeholder start
+      return offset - placeholderStart;
     }
+    return change;
+  }
 
-    return Pair.create(start, end);
+  private static int getChangeForEndOffset(int offset, int change, int placeholderEnd) {
+    if (change < 0 && offset - change > placeholderEnd) {   // delete part of placeholder end
+      return offset - placeholderEnd;
+    }
+    return change;
   }
 
   protected void updatePlaceholder(@NotNull AnswerPlaceholder answerPlaceholder,
@@ -113,7 +141,7 @@ public class EduDocumentListener implements DocumentListener {
     } else {
       if (myTaskFile.isTrackLengths()) {
         answerPlaceholder.setPossibleAnswer(document.getText(TextRange.create(start, start + length)));
-        YamlFormatSynchronizer.saveItem(myTaskFile.getTask());
+        YamlFormatSynchronizer.saveItemWithDelay(myTaskFile.getTask());
       }
     }
   }
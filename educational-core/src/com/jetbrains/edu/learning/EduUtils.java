@@ -1,7 +1,6 @@
 package com.jetbrains.edu.learning;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.gson.*;
 import com.intellij.ide.SaveAndSyncHandler;
 import com.intellij.ide.fileTemplates.FileTemplate;
 import com.intellij.ide.fileTemplates.FileTemplateManager;
@@ -27,7 +26,6 @@ import com.intellij.openapi.fileEditor.FileEditor;
 import com.intellij.openapi.fileEditor.FileEditorManager;
 import com.intellij.openapi.fileEditor.ex.FileEditorManagerEx;
 import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
-import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.openapi.keymap.KeymapUtil;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleManager;
@@ -36,9 +34,9 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
 import com.intellij.openapi.startup.StartupManager;
 import com.intellij.openapi.util.Pair;
-import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.*;
 import com.intellij.openapi.wm.IdeFocusManager;
 import com.intellij.openapi.wm.IdeFrame;
@@ -46,7 +44,6 @@ import com.intellij.openapi.wm.WindowManager;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
-import com.intellij.testFramework.LightVirtualFile;
 import com.intellij.util.PlatformUtils;
 import com.intellij.util.TimeoutUtil;
 import com.intellij.util.io.zip.JBZipEntry;
@@ -60,7 +57,7 @@ import com.jetbrains.edu.learning.courseFormat.tasks.Task;
 import com.jetbrains.edu.learning.editor.EduEditor;
 import com.jetbrains.edu.learning.newproject.CourseProjectGenerator;
 import com.jetbrains.edu.learning.projectView.CourseViewPane;
-import com.jetbrains.edu.learning.serialization.SerializationUtils;
+import com.jetbrains.edu.learning.serialization.CourseJsonCodec;
 import com.jetbrains.edu.learning.stepik.OAuthDialog;
 import com.jetbrains.edu.learning.stepik.StepikUser;
 import com.jetbrains.edu.learning.stepik.StepikUserWidget;
@@ -415,6 +412,37 @@ public class EduUtils {
 
   @Nullable
   public static VirtualFile getTaskDir(@NotNull Course course, @NotNull VirtualFile taskFile) {
+    if (course.getDirectoryPath() == null) {
+      return findTaskDirByNames(course, taskFile);
+    }
+    String path = pathRelativeToCourse(taskFile, course);
+    if (path == null) {
+      return null;
+    }
+    List<String> names = StringUtil.split(path, VfsUtilCore.VFS_SEPARATOR);
+    // task directories are on the second or the third level of the course, the nearest one to the file is preferred
+    for (int depth = Math.min(3, names.size() - 1); depth >= 2; depth--) {
+      StudyItem lessonCandidate = course.findItem(StringUtil.join(names.subList(0, depth - 1), VfsUtilCore.VFS_SEPARATOR));
+      if (lessonCandidate instanceof Lesson && isTaskDirName((Lesson)lessonCandidate, names.get(depth - 1))) {
+        VirtualFile taskDir = taskFile;
+        for (int i = names.size(); i > depth && taskDir != null; i--) {
+          taskDir = taskDir.getParent();
+        }
+        return taskDir;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isTaskDirName(@NotNull Lesson lesson, @NotNull String name) {
+    return lesson instanceof FrameworkLesson && EduNames.TASK.equals(name) || lesson.getTask(name) != null;
+  }
+
+  /**
+   * Resolves items by directory names only, used for courses which directory is unknown
+   */
+  @Nullable
+  private static VirtualFile findTaskDirByNames(@NotNull Course course, @NotNull VirtualFile taskFile) {
     VirtualFile file = taskFile.getParent();
     while (file != null) {
       VirtualFile lessonDirCandidate = file.getParent();
@@ -422,11 +450,8 @@ public class EduUtils {
         return null;
       }
       Lesson lesson = getLesson(lessonDirCandidate, course);
-      if (lesson != null) {
-        if (lesson instanceof FrameworkLesson && EduNames.TASK.equals(file.getName()) ||
-            lesson.getTask(file.getName()) != null) {
-          return file;
-        }
+      if (lesson != null && isTaskDirName(lesson, file.getName())) {
+        return file;
       }
 
       file = lessonDirCandidate;
@@ -561,7 +586,7 @@ public class EduUtils {
     if (eduEditor == null) return;
     final Editor editor = eduEditor.getEditor();
     IdeFocusManager.getInstance(project).requestFocus(editor.getContentComponent(), true);
-    if (!eduEditor.getTaskFile().isValid(editor.getDocument().getText())) return;
+    if (!eduEditor.getTaskFile().isValid(editor.getDocument().getTextLength())) return;
     final List<AnswerPlaceholder> placeholders = eduEditor.getTaskFile().getAnswerPlaceholders();
     final AnswerPlaceholder placeholder = placeholders.stream().filter(p -> p.isVisible()).findFirst().orElse(null);
     if (placeholder == null) return;
@@ -668,26 +693,12 @@ public class EduUtils {
     if (stepId == 0) {
       return;
     }
-    Task task = getTask(course, stepId);
+    Task task = course.getTask(stepId);
     if (task != null) {
       navigateToTask(project, task);
     }
   }
 
-  @Nullable
-  private static Task getTask(@NotNull Course course, int stepId) {
-    Ref<Task> taskRef = new Ref<>();
-    course.visitLessons((lesson) -> {
-      Task task = lesson.getTask(stepId);
-      if (task != null) {
-        taskRef.set(task);
-        return false;
-      }
-      return true;
-    });
-    return null;
-  }
-
   @Nullable
   public static StepikUserWidget getVisibleWidget(Project project) {
     IdeFrame frame = WindowManager.getInstance().getIdeFrame(project);
@@ -705,6 +716,20 @@ public class EduUtils {
     }
   }
 
+  /**
+   * Loads text of the file the way its document sees it: with unsaved changes and with line separators converted to {@code \n},
+   * so offsets of placeholders are valid in it. Doesn't create documents.
+   */
+  @NotNull
+  public static CharSequence loadDocumentText(@NotNull VirtualFile file) {
+    Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    return document != null ? document.getImmutableCharSequence() : LoadTextUtil.loadText(file);
+  }
+
+  /**
+   * Creates copy of the task file where possible answers of placeholders are replaced with placeholder texts.
+   * Doesn't modify documents, so it can be called from any thread inside read action.
+   */
   @Nullable
   public static TaskFile createStudentFile(@NotNull Project project, @NotNull VirtualFile answerFile, @NotNull final Task task) {
     try {
@@ -718,25 +743,13 @@ public class EduUtils {
         taskFile.setText(Base64.encodeBase64String(answerFile.contentsToByteArray()));
         return taskFile;
       }
-      Document document = FileDocumentManager.getInstance().getDocument(answerFile);
-      if (document == null) {
+      if (answerFile.getFileType().isBinary()) {
         return null;
       }
-      FileDocumentManager.getInstance().saveDocument(document);
-      final LightVirtualFile studentFile = new LightVirtualFile("student_task", PlainTextFileType.INSTANCE, document.getText());
-      Document studentDocument = FileDocumentManager.getInstance().getDocument(studentFile);
-      if (studentDocument == null) {
-        return null;
-      }
-      EduDocumentListener listener = new EduDocumentTransformListener(project, taskFile);
-      studentDocument.addDocumentListener(listener);
-      taskFile.setTrackLengths(false);
-      for (AnswerPlaceholder placeholder : taskFile.getAnswerPlaceholders()) {
-        replaceAnswerPlaceholder(studentDocument, placeholder, placeholder.getPossibleAnswer().length(), placeholder.getPlaceholderText());
-      }
-      taskFile.setTrackLengths(true);
-      studentDocument.removeDocumentListener(listener);
-      taskFile.setText(studentDocument.getImmutableCharSequence().toString());
+      List<AnswerPlaceholder> placeholders = taskFile.getAnswerPlaceholders();
+      PlaceholderTextTransformer.Result studentText = PlaceholderTextTransformer.toStudentText(loadDocumentText(answerFile), placeholders);
+      studentText.applyOffsets(placeholders);
+      taskFile.setText(studentText.getText());
       return taskFile;
     }
     catch (IOException e) {
@@ -792,6 +805,10 @@ public class EduUtils {
 
   @Nullable
   public static Task getTask(@NotNull VirtualFile taskDir, @NotNull final Course course) {
+    if (course.getDirectoryPath() != null) {
+      StudyItem item = findItem(taskDir, course);
+      return item instanceof Task ? (Task)item : null;
+    }
     VirtualFile lessonDir = taskDir.getParent();
     if (lessonDir == null) {
       return null;
@@ -903,21 +920,56 @@ public class EduUtils {
     return null;
   }
 
+  /**
+   * Reads only course properties needed to show the course in courses list (name, language, description, etc.),
+   * content of the course is loaded with {@link #loadLocalCourseItems(Course)} before course project is created.
+   */
+  @Nullable
+  public static Course getLocalCourseInfo(@NotNull final String zipFilePath) {
+    try (JBZipFile zipFile = new JBZipFile(zipFilePath)) {
+      final JBZipEntry entry = zipFile.getEntry(EduNames.COURSE_META_FILE);
+      if (entry == null) {
+        return null;
+      }
+      try (Reader reader = new BufferedReader(new InputStreamReader(entry.getInputStream(), CharsetToolkit.UTF8_CHARSET))) {
+        final Course course = CourseJsonCodec.deserializeInfo(reader);
+        course.setArchivePath(zipFilePath);
+        return course;
+      }
+    }
+    catch (IOException e) {
+      LOG.error("Failed to unzip course archive", e);
+    }
+    catch (Exception e) {
+      LOG.error("Failed to deserialize course json", e);
+    }
+    return null;
+  }
+
+  /**
+   * Loads items of course got with {@link #getLocalCourseInfo(String)}
+   *
+   * @return false if course archive can't be read
+   */
+  public static boolean loadLocalCourseItems(@NotNull Course course) {
+    final String archivePath = course.getArchivePath();
+    if (archivePath == null) {
+      return true;
+    }
+    final Course fullCourse = getLocalCourse(archivePath);
+    if (fullCourse == null) {
+      return false;
+    }
+    course.setItems(new ArrayList<>(fullCourse.getItems()));
+    course.setArchivePath(null);
+    return true;
+  }
+
   @VisibleForTesting
   @Nullable
   public static Course deserializeLocalCourse(@NotNull final String courseJsonText) {
-    Gson gson = new GsonBuilder()
-      .registerTypeHierarchyAdapter(Course.class, new SerializationUtils.Json.CourseAdapter())
-      .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-      .create();
-    JsonParser parser = new JsonParser();
-    JsonObject object = parser.parse(courseJsonText).getAsJsonObject();
-    JsonElement id = object.get("id");
     try {
-      if (id != null && 0 != id.getAsInt()) {
-        return gson.fromJson(object, RemoteCourse.class);
-      }
-      return gson.fromJson(object, Course.class);
+      return CourseJsonCodec.deserialize(courseJsonText);
     } catch (Exception e) {
       LOG.error("Failed to deserialize course json", e);
     }
@@ -956,6 +1008,10 @@ public class EduUtils {
     if (!lessonDir.isDirectory()) {
       return null;
     }
+    if (course.getDirectoryPath() != null) {
+      StudyItem item = findItem(lessonDir, course);
+      return item instanceof Lesson ? (Lesson)item : null;
+    }
     VirtualFile sectionDir = lessonDir.getParent();
     if (sectionDir == null) {
       return null;
@@ -971,6 +1027,32 @@ public class EduUtils {
   @Nullable
   public static Section getSection(@NotNull VirtualFile sectionDir, @NotNull final Course course) {
     if (!sectionDir.isDirectory()) return null;
+    if (course.getDirectoryPath() != null) {
+      StudyItem item = findItem(sectionDir, course);
+      return item instanceof Section ? (Section)item : null;
+    }
     return course.getSection(sectionDir.getName());
   }
+
+  @Nullable
+  private static StudyItem findItem(@NotNull VirtualFile dir, @NotNull Course course) {
+    String path = pathRelativeToCourse(dir, course);
+    return path == null ? null : course.findItem(path);
+  }
+
+  /**
+   * @return path of the file relative to directory of the course or null if the file isn't inside it
+   */
+  @Nullable
+  private static String pathRelativeToCourse(@NotNull VirtualFile file, @NotNull Course course) {
+    String courseDirPath = course.getDirectoryPath();
+    if (courseDirPath == null) return null;
+    String path = file.getPath();
+    if (path.length() <= courseDirPath.length() + 1 ||
+        !path.startsWith(courseDirPath) ||
+        path.charAt(courseDirPath.length()) != VfsUtilCore.VFS_SEPARATOR_CHAR) {
+      return null;
+    }
+    return path.substring(courseDirPath.length() + 1);
+  }
 }
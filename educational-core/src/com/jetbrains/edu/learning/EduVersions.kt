@@ -3,5 +3,5 @@
 package com.jetbrains.edu.learning
 
 // If you change version of any format, add point about it in `docs/Versions.md`
-const val XML_FORMAT_VERSION: Int = 11
+const val XML_FORMAT_VERSION: Int = 12
 const val JSON_FORMAT_VERSION: Int = 8
@@ -1,14 +1,24 @@
 package com.jetbrains.edu.learning
 
 import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.editor.Editor
+import com.intellij.openapi.editor.FoldRegion
 import com.intellij.openapi.editor.actionSystem.EditorActionManager
+import com.intellij.openapi.editor.event.CaretEvent
+import com.intellij.openapi.editor.event.CaretListener
+import com.intellij.openapi.editor.event.DocumentEvent
+import com.intellij.openapi.editor.event.DocumentListener
+import com.intellij.openapi.editor.ex.FoldingListener
+import com.intellij.openapi.editor.ex.FoldingModelEx
 import com.intellij.openapi.editor.ex.util.EditorUtil
 import com.intellij.openapi.fileEditor.FileEditorManager
 import com.intellij.openapi.fileEditor.TextEditor
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.ui.AbstractPainter
+import com.intellij.openapi.util.Condition
 import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.util.Key
 import com.intellij.openapi.wm.IdeGlassPaneUtil
 import com.intellij.util.ui.JBUI
 import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder
@@ -20,6 +30,7 @@ import org.jetbrains.annotations.TestOnly
 import java.awt.BasicStroke
 import java.awt.Component
 import java.awt.Graphics2D
+import java.awt.Rectangle
 import java.awt.Shape
 
 object PlaceholderPainter {
@@ -57,26 +68,13 @@ object PlaceholderPainter {
     editor: Editor
   ) {
     val document = editor.document
-    if (!taskFile.isValid(document.text)) return
+    if (!taskFile.isValid(document.textLength)) return
 
     val isStudentProject = EduUtils.isStudentProject(project)
-    val painter: AbstractPainter = object : AbstractPainter() {
-
-      override fun needsRepaint() = !editor.isDisposed
-
-      override fun executePaint(component: Component?, g: Graphics2D) {
-        if (isStudentProject && !placeholder.isVisible) return
-        g.color = placeholder.color
-        g.stroke = BasicStroke(JBUI.scale(2f))
-        val shape = getPlaceholderShape(editor, placeholder.offset, placeholder.endOffset).getShape()
-        if (!isVisible(shape, editor)) return
-        g.draw(shape)
-      }
-    }
-
     val placeholderDisposables = disposables.getOrPut(placeholder) { HashSet() }
     val painterDisposable = PainterDisposable(placeholder, editor)
     placeholderDisposables += painterDisposable
+    val painter = PlaceholderShapePainter(editor, placeholder, isStudentProject, painterDisposable)
     IdeGlassPaneUtil.installPainter(editor.contentComponent, painter, painterDisposable)
 
     val handler = EditorActionManager.getInstance().getReadonlyFragmentModificationHandler(document)
@@ -104,10 +102,6 @@ object PlaceholderPainter {
       .toList()
   }
 
-  private fun isVisible(shape: Shape, editor: Editor): Boolean {
-    return editor.contentComponent.visibleRect.contains(shape.bounds)
-  }
-
   @JvmStatic
   fun hidePlaceholder(placeholder: AnswerPlaceholder) {
     disposables.remove(placeholder).orEmpty().forEach(Disposer::dispose)
@@ -124,6 +118,160 @@ object PlaceholderPainter {
   @JvmStatic
   fun getPaintedPlaceholder(): Set<AnswerPlaceholder> = disposables.keys
 
+  /**
+   * Caches placeholder shape until something that affects it changes:
+   * placeholder or document modification, folding, soft wraps, font or horizontal scrolling
+   * (shape is cut by the visible area horizontally, see [PlaceholderShape.visiblePoint]).
+   *
+   * Document, caret and folding changes don't repaint the whole editor, so on these events
+   * the shape is rebuilt by [EditorPaintersUpdater] and only its old and new bounds are repainted.
+   * Other changes repaint the whole editor, so the shape is just rebuilt on the next paint.
+   */
+  private class PlaceholderShapePainter(
+    private val editor: Editor,
+    private val placeholder: AnswerPlaceholder,
+    private val isStudentProject: Boolean,
+    parentDisposable: Disposable
+  ) : AbstractPainter() {
+
+    private val updater: EditorPaintersUpdater = EditorPaintersUpdater.getInstance(editor)
+    private var cachedShape: Shape? = null
+    private var cachedBounds: Rectangle? = null
+    private var cacheKey: ShapeKey? = null
+
+    init {
+      updater.add(this)
+      Disposer.register(parentDisposable, Disposable { updater.remove(this) })
+    }
+
+    override fun needsRepaint() = !editor.isDisposed
+
+    override fun executePaint(component: Component?, g: Graphics2D) {
+      if (isStudentProject && !placeholder.isVisible) return
+      val key = createKey()
+      val shape = cachedShape?.takeIf { key == cacheKey } ?: rebuildShape(key)
+      val bounds = cachedBounds ?: return
+      if (!editor.contentComponent.visibleRect.contains(bounds)) return
+      g.color = placeholder.color
+      g.stroke = BasicStroke(JBUI.scale(2f))
+      g.draw(shape)
+    }
+
+    fun updateShape() {
+      if (editor.isDisposed || isStudentProject && !placeholder.isVisible) return
+      val key = createKey()
+      if (cachedShape != null && key == cacheKey) return
+      val oldBounds = cachedBounds
+      rebuildShape(key)
+      val newBounds = cachedBounds
+      if (oldBounds == newBounds) return
+      // erase outdated placeholder frame and draw the new one
+      repaint(oldBounds)
+      repaint(newBounds)
+    }
+
+    private fun repaint(bounds: Rectangle?) {
+      if (bounds == null) return
+      val stroke = JBUI.scale(2)
+      editor.contentComponent.repaint(bounds.x - stroke, bounds.y - stroke, bounds.width + 2 * stroke, bounds.height + 2 * stroke)
+    }
+
+    private fun createKey(): ShapeKey {
+      val visibleRect = editor.contentComponent.visibleRect
+      return ShapeKey(placeholder.offset, placeholder.endOffset, editor.document.modificationStamp, updater.foldingModificationCount,
+                      editor.softWrapModel.isSoftWrappingEnabled, editor.colorsScheme.editorFontName,
+                      editor.colorsScheme.editorFontSize, editor.lineHeight, visibleRect.x, visibleRect.width)
+    }
+
+    private fun rebuildShape(key: ShapeKey): Shape {
+      val shape = getPlaceholderShape(editor, placeholder.offset, placeholder.endOffset).getShape()
+      cachedShape = shape
+      cachedBounds = shape.bounds
+      cacheKey = key
+      return shape
+    }
+  }
+
+  /**
+   * Listens to changes of the editor once for all its placeholders, so a document change schedules a single update of their shapes
+   */
+  private class EditorPaintersUpdater private constructor(private val editor: Editor) : Disposable {
+    private val painters: MutableSet<PlaceholderShapePainter> = LinkedHashSet()
+    private var isUpdateScheduled = false
+    var foldingModificationCount = 0
+      private set
+
+    init {
+      EditorUtil.disposeWithEditor(editor, this)
+      (editor.foldingModel as? FoldingModelEx)?.addListener(object : FoldingListener {
+        override fun onFoldRegionStateChange(region: FoldRegion) {}
+
+        override fun onFoldProcessingEnd() {
+          foldingModificationCount++
+          updateShapes()
+        }
+      }, this)
+      editor.document.addDocumentListener(object : DocumentListener {
+        override fun documentChanged(event: DocumentEvent) {
+          if (isUpdateScheduled) return
+          isUpdateScheduled = true
+          // placeholder offsets are updated by another document listener, so shapes are rebuilt when all of them are notified
+          ApplicationManager.getApplication().invokeLater(Runnable {
+            isUpdateScheduled = false
+            updateShapes()
+          }, Condition<Any> { editor.isDisposed })
+        }
+      }, this)
+      editor.caretModel.addCaretListener(object : CaretListener {
+        override fun caretPositionChanged(event: CaretEvent) {
+          updateShapes()
+        }
+      }, this)
+    }
+
+    fun add(painter: PlaceholderShapePainter) {
+      painters += painter
+    }
+
+    fun remove(painter: PlaceholderShapePainter) {
+      painters -= painter
+      if (painters.isEmpty()) {
+        Disposer.dispose(this)
+      }
+    }
+
+    private fun updateShapes() {
+      for (painter in painters.toList()) {
+        painter.updateShape()
+      }
+    }
+
+    override fun dispose() {
+      editor.putUserData(KEY, null)
+    }
+
+    companion object {
+      private val KEY: Key<EditorPaintersUpdater> = Key.create("Edu.placeholderPaintersUpdater")
+
+      fun getInstance(editor: Editor): EditorPaintersUpdater {
+        return editor.getUserData(KEY) ?: EditorPaintersUpdater(editor).also { editor.putUserData(KEY, it) }
+      }
+    }
+  }
+
+  private data class ShapeKey(
+    val startOffset: Int,
+    val endOffset: Int,
+    val documentModificationStamp: Long,
+    val foldingModificationCount: Int,
+    val isSoftWrappingEnabled: Boolean,
+    val fontName: String?,
+    val fontSize: Int,
+    val lineHeight: Int,
+    val visibleX: Int,
+    val visibleWidth: Int
+  )
+
   private class PainterDisposable(private val placeholder: AnswerPlaceholder, editor: Editor) : Disposable {
     init {
       EditorUtil.disposeWithEditor(editor, this)
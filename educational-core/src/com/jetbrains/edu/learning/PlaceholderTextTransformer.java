@@ -0,0 +1,100 @@
+package com.jetbrains.edu.learning;
+
+import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Replaces text of all placeholders of a file in one pass over plain text, without documents and write actions,
+ * so it can be used in any thread.
+ *
+ * Placeholders themselves aren't modified, new offsets are returned in {@link Result}.
+ */
+public final class PlaceholderTextTransformer {
+
+  private PlaceholderTextTransformer() {
+  }
+
+  /**
+   * Replaces possible answers of placeholders with placeholder texts
+   */
+  @NotNull
+  public static Result toStudentText(@NotNull CharSequence authorText, @NotNull List<AnswerPlaceholder> placeholders) {
+    return transform(authorText, placeholders, placeholder -> placeholder.getPossibleAnswer().length(),
+                     AnswerPlaceholder::getPlaceholderText);
+  }
+
+  /**
+   * @param placeholders placeholders of the text, they shouldn't intersect
+   * @param length       length of current text of placeholder
+   * @param replacement  new text of placeholder
+   */
+  @NotNull
+  public static Result transform(@NotNull CharSequence text,
+                                 @NotNull List<AnswerPlaceholder> placeholders,
+                                 @NotNull ToIntFunction<AnswerPlaceholder> length,
+                                 @NotNull Function<AnswerPlaceholder, String> replacement) {
+    List<Integer> order = new ArrayList<>(placeholders.size());
+    for (int i = 0; i < placeholders.size(); i++) {
+      order.add(i);
+    }
+    order.sort(Comparator.comparingInt(i -> placeholders.get(i).getOffset()));
+
+    StringBuilder result = new StringBuilder(text.length());
+    int[] offsets = new int[placeholders.size()];
+    int textOffset = 0;
+    for (int i : order) {
+      AnswerPlaceholder placeholder = placeholders.get(i);
+      int start = placeholder.getOffset();
+      int end = start + length.applyAsInt(placeholder);
+      if (start < textOffset || end > text.length()) {
+        throw new IllegalArgumentException("Invalid placeholder " + placeholder + " for text of length " + text.length());
+      }
+      result.append(text, textOffset, start);
+      offsets[i] = result.length();
+      String newText = replacement.apply(placeholder);
+      if (newText != null) {
+        result.append(newText);
+      }
+      textOffset = end;
+    }
+    result.append(text, textOffset, text.length());
+    return new Result(result.toString(), offsets);
+  }
+
+  public static class Result {
+    private final String myText;
+    private final int[] myOffsets;
+
+    Result(@NotNull String text, @NotNull int[] offsets) {
+      myText = text;
+      myOffsets = offsets;
+    }
+
+    @NotNull
+    public String getText() {
+      return myText;
+    }
+
+    /**
+     * @return new offset of placeholder with given index in the list of transformed placeholders
+     */
+    public int getOffset(int placeholderIndex) {
+      return myOffsets[placeholderIndex];
+    }
+
+    /**
+     * Moves transformed placeholders to their new offsets
+     */
+    public void applyOffsets(@NotNull List<AnswerPlaceholder> placeholders) {
+      for (int i = 0; i < placeholders.size(); i++) {
+        placeholders.get(i).setOffset(myOffsets[i]);
+      }
+    }
+  }
+}
@@ -21,12 +21,15 @@ import com.jetbrains.edu.learning.courseFormat.Course;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import com.jetbrains.edu.learning.courseFormat.UserTest;
 import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import com.jetbrains.edu.learning.serialization.ShardedCourseSerializer;
 import com.jetbrains.edu.learning.serialization.StudyUnrecognizedFormatException;
 import org.jdom.Element;
 import org.jdom.output.XMLOutputter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -51,9 +54,15 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
   public final Map<Task, List<UserTest>> myUserTests = new HashMap<>();
 
   @Transient @Nullable private final Project myProject;
+  @Transient private final ShardedCourseSerializer myCourseSerializer;
+  // state which failed to load, it's saved back as is not to lose the course
+  @Transient @Nullable private Element myUnloadedState;
+  // project base directory is used if it's null
+  @Transient @Nullable private String myCourseDirectoryPath;
 
   public StudyTaskManager(@Nullable Project project) {
     myProject = project;
+    myCourseSerializer = createCourseSerializer();
   }
 
   public StudyTaskManager() {
@@ -63,6 +72,8 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
   @Transient
   public void setCourse(Course course) {
     myCourse = course;
+    myUnloadedState = null;
+    updateCourseDirectory();
     if (myProject != null) {
       myProject.getMessageBus().syncPublisher(COURSE_SET).courseSet(course);
     }
@@ -108,7 +119,7 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
   @Override
   public Element getState() {
     if (myCourse == null) {
-      return null;
+      return myUnloadedState;
     }
 
     return serialize();
@@ -126,11 +137,12 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
   }
 
   private Element serializeCourse() {
-    Class<? extends Course> courseClass = myCourse.getClass();
-    String serializedName = courseClass.getSimpleName();
-    final Element courseElement = new Element(serializedName);
-    XmlSerializer.serializeInto(courseClass.cast(myCourse), courseElement);
-    return courseElement;
+    return myCourseSerializer.serialize(myCourse);
+  }
+
+  @NotNull
+  private ShardedCourseSerializer createCourseSerializer() {
+    return new ShardedCourseSerializer(myProject == null ? null : myProject.getBasePath());
   }
 
   @Override
@@ -141,6 +153,18 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
         LOG.error("StudyTaskManager doesn't contain any version:\n" + state.getValue());
         return;
       }
+      List<String> taskKeys;
+      try {
+        taskKeys = myCourseSerializer.resolveShards(state);
+      }
+      catch (IOException e) {
+        LOG.error("Failed to load tasks of the course", e);
+        if (myCourse == null) {
+          myUnloadedState = state;
+        }
+        return;
+      }
+      myUnloadedState = null;
       if (myProject != null) {
         switch (version) {
           case 1:
@@ -164,15 +188,18 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
             state = convertToTenthVersion(myProject, state);
           case 10:
             state = convertToEleventhVersion(myProject, state);
+            // 11 -> 12: tasks are moved to separate files, shards are resolved by the course serializer before conversion
             // uncomment for future versions
-            //case 11:
-            // state = SerializationUtils.Xml.convertToTwelfthVersion(myProject, state);
+            //case 12:
+            // state = SerializationUtils.Xml.convertToThirteenthVersion(myProject, state);
         }
       }
       deserialize(state);
       VERSION = EduVersions.XML_FORMAT_VERSION;
       if (myCourse != null) {
         myCourse.init(null, null, true);
+        updateCourseDirectory();
+        myCourseSerializer.courseLoaded(myCourse, taskKeys);
       }
     }
     catch (StudyUnrecognizedFormatException e) {
@@ -180,6 +207,24 @@ public class StudyTaskManager implements PersistentStateComponent<Element>, Dumb
     }
   }
 
+  /**
+   * Course items are resolved by paths relative to the course directory, see {@link EduUtils#getTaskForFile}
+   */
+  private void updateCourseDirectory() {
+    if (myCourse == null || myProject == null) return;
+    myCourse.setDirectoryPath(myCourseDirectoryPath != null ? myCourseDirectoryPath : myProject.getBasePath());
+  }
+
+  /**
+   * Files of light test projects are placed in a module content root instead of the project base directory
+   */
+  @TestOnly
+  @Transient
+  public void setCourseDirectoryPath(@Nullable String courseDirectoryPath) {
+    myCourseDirectoryPath = courseDirectoryPath;
+    updateCourseDirectory();
+  }
+
   private void updateTestHelper() {
     if (myProject == null) return;
     StartupManager.getInstance(myProject).runWhenProjectIsInitialized(() -> ApplicationManager.getApplication().runWriteAction(() -> {
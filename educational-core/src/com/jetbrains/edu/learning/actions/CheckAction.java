@@ -31,6 +31,7 @@ import com.jetbrains.edu.learning.courseFormat.tasks.Task;
 import com.jetbrains.edu.learning.courseFormat.tasks.TheoryTask;
 import com.jetbrains.edu.learning.coursera.CourseraNames;
 import com.jetbrains.edu.learning.editor.EduEditor;
+import com.jetbrains.edu.learning.placeholderDependencies.PlaceholderDependencyManager;
 import com.jetbrains.edu.learning.statistics.EduUsagesCollector;
 import com.jetbrains.edu.learning.ui.taskDescription.TaskDescriptionView;
 import com.jetbrains.edu.learning.ui.taskDescription.check.CheckPanel;
@@ -196,6 +197,9 @@ public class CheckAction extends DumbAwareAction {
       ApplicationManager.getApplication().invokeLater(() -> {
         EduUtils.updateCourseProgress(myProject);
         ProjectView.getInstance(myProject).refresh();
+        if (status == CheckStatus.Solved) {
+          PlaceholderDependencyManager.propagateAnswers(myProject, myTask);
+        }
 
         for (CheckListener listener : CheckListener.EP_NAME.getExtensions()) {
           listener.afterCheck(myProject, myTask, myResult);
@@ -210,6 +214,7 @@ public class CheckAction extends DumbAwareAction {
     @Override
     public void onCancel() {
       if (myChecker != null) {
+        myChecker.onCancel();
         myChecker.clearState();
       }
       myCheckInProgress.set(false);
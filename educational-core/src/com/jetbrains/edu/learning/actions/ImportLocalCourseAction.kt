@@ -20,7 +20,7 @@ open class ImportLocalCourseAction(text: String = "Import Local Course") : DumbA
   override fun actionPerformed(e: AnActionEvent) {
     FileChooser.chooseFile(LocalCourseFileChooser, null, importLocation()) { file ->
       val fileName = file.path
-      val course = EduUtils.getLocalCourse(fileName)
+      val course = EduUtils.getLocalCourseInfo(fileName)
       when {
         course == null -> showInvalidCourseDialog()
         course.configurator == null -> showUnsupportedCourseDialog(course)
@@ -17,6 +17,9 @@ open class TaskChecker<out T : Task>(@JvmField val task: T, @JvmField val projec
 
   open fun clearState() {}
 
+  // called when check is cancelled, before [clearState]
+  open fun onCancel() {}
+
   companion object {
     const val EP_NAME = "Educational.taskChecker"
     @JvmField
@@ -0,0 +1,152 @@
+package com.jetbrains.edu.learning.checker.gradle
+
+import com.intellij.execution.process.ProcessOutput
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.progress.ProgressManager
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.Disposer
+import org.gradle.tooling.*
+import org.gradle.tooling.events.OperationType
+import org.gradle.tooling.events.task.TaskFinishEvent
+import org.gradle.tooling.events.test.JvmTestOperationDescriptor
+import org.gradle.tooling.events.test.TestFailureResult
+import org.gradle.tooling.events.test.TestFinishEvent
+import org.gradle.tooling.events.test.TestSuccessResult
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.util.*
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+/**
+ * Runs gradle tasks through Gradle Tooling API.
+ *
+ * Connection is kept open while project is open, so neither gradle client nor wrapper are started for every check
+ * and the same warm daemon is reused.
+ * Set `edu.gradle.tooling.api.enabled` system property to `false` to launch gradle wrapper instead.
+ */
+object GradleToolingApiRunner {
+  private val LOG: Logger = Logger.getInstance(GradleToolingApiRunner::class.java)
+
+  private val isEnabled: Boolean = System.getProperty("edu.gradle.tooling.api.enabled", "true").toBoolean()
+  private const val CANCELLATION_CHECK_INTERVAL_MS = 100L
+
+  private val connections: MutableMap<Project, ProjectConnection> = ConcurrentHashMap()
+  // projects which close their connection on dispose, connection can be reopened several times after failures
+  private val disposeListeningProjects: MutableSet<Project> = ConcurrentHashMap.newKeySet()
+
+  /**
+   * Returns null if task can't be launched through Tooling API, so command line should be used instead
+   */
+  fun run(project: Project, projectPath: String, javaHome: String, taskNames: List<String>, params: List<String>): ToolingApiOutput? {
+    if (!isEnabled || project.isDisposed) return null
+
+    val stdout = ByteArrayOutputStream()
+    val stderr = ByteArrayOutputStream()
+    val tests = Collections.synchronizedList(ArrayList<GradleTestResult>())
+    val executedTasks = ConcurrentHashMap.newKeySet<String>()
+    val tokenSource = GradleConnector.newCancellationTokenSource()
+    val result = CompletableFuture<GradleConnectionException?>()
+
+    try {
+      getConnection(project, projectPath)
+        .newBuild()
+        .forTasks(*taskNames.toTypedArray())
+        .withArguments(*params.toTypedArray())
+        .setJavaHome(File(javaHome))
+        .setStandardOutput(stdout)
+        .setStandardError(stderr)
+        .withCancellationToken(tokenSource.token())
+        .addProgressListener(org.gradle.tooling.events.ProgressListener { event ->
+          when (event) {
+            is TaskFinishEvent -> executedTasks += event.descriptor.taskPath
+            is TestFinishEvent -> {
+              val testResult = event.result
+              val descriptor = event.descriptor
+              // suites are reported as tests too, take only test methods not to report the same failure several times
+              if (descriptor is JvmTestOperationDescriptor && descriptor.methodName != null) {
+                when (testResult) {
+                  is TestSuccessResult -> tests += GradleTestResult(descriptor.displayName, null)
+                  is TestFailureResult -> {
+                    tests += GradleTestResult(descriptor.displayName, testResult.failures.firstOrNull()?.message ?: descriptor.displayName)
+                  }
+                }
+              }
+            }
+          }
+        }, EnumSet.of(OperationType.TASK, OperationType.TEST))
+        .run(object : ResultHandler<Void> {
+          override fun onComplete(r: Void?) {
+            result.complete(null)
+          }
+
+          override fun onFailure(failure: GradleConnectionException) {
+            result.complete(failure)
+          }
+        })
+    }
+    catch (e: GradleConnectionException) {
+      return connectionFailed(project, e)
+    }
+    catch (e: IllegalStateException) {
+      // connection was closed concurrently
+      return connectionFailed(project, e)
+    }
+
+    val failure = waitForResult(result, tokenSource)
+    when (failure) {
+      null, is BuildException -> Unit // build failures (e.g. compilation errors or failed tests) are reported via output
+      is BuildCancelledException -> throw ProcessCanceledException()
+      else -> return connectionFailed(project, failure)
+    }
+
+    val output = ProcessOutput()
+    output.appendStdout(stdout.toString())
+    output.appendStderr(stderr.toString())
+    return ToolingApiOutput(output, tests.toList(), executedTasks.toSet())
+  }
+
+  private fun getConnection(project: Project, projectPath: String): ProjectConnection {
+    if (disposeListeningProjects.add(project)) {
+      Disposer.register(project, Disposable {
+        disposeListeningProjects.remove(project)
+        connections.remove(project)?.close()
+      })
+    }
+    return connections.computeIfAbsent(project) {
+      GradleConnector.newConnector().forProjectDirectory(File(projectPath)).connect()
+    }
+  }
+
+  private fun waitForResult(result: CompletableFuture<GradleConnectionException?>,
+                            tokenSource: CancellationTokenSource): GradleConnectionException? {
+    val indicator = ProgressManager.getInstance().progressIndicator
+    while (true) {
+      try {
+        return result.get(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)
+      }
+      catch (e: TimeoutException) {
+        if (indicator != null && indicator.isCanceled && !tokenSource.token().isCancellationRequested) {
+          tokenSource.cancel()
+        }
+      }
+    }
+  }
+
+  private fun connectionFailed(project: Project, e: Exception): ToolingApiOutput? {
+    LOG.warn("Failed to run gradle via Tooling API, falling back to command line", e)
+    connections.remove(project)?.close()
+    return null
+  }
+
+  class ToolingApiOutput(val processOutput: ProcessOutput, val tests: List<GradleTestResult>, private val executedTasks: Set<String>) {
+    /**
+     * [taskName] is either a task path (`:lesson1-task1:test`) or a task name executed in every project (`test`)
+     */
+    fun isExecuted(taskName: String): Boolean = executedTasks.any { it == taskName || it.endsWith(":$taskName") }
+  }
+}
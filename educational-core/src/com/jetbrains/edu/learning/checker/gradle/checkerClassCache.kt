@@ -0,0 +1,51 @@
+package com.jetbrains.edu.learning.checker.gradle
+
+import com.intellij.openapi.project.DumbService
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.roots.ProjectRootModificationTracker
+import com.intellij.openapi.util.Computable
+import com.intellij.openapi.util.Key
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.openapi.vfs.VirtualFileManager
+import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiManager
+import com.intellij.psi.util.CachedValue
+import com.intellij.psi.util.CachedValueProvider
+import com.intellij.psi.util.CachedValuesManager
+import com.jetbrains.edu.learning.courseFormat.ext.findTestDirs
+import com.jetbrains.edu.learning.courseFormat.tasks.Task
+
+private val MAIN_CLASS: Key<CachedValue<String?>> = Key.create("Edu.gradle.mainClass")
+private val TEST_CLASSES: Key<CachedValue<List<String>>> = Key.create("Edu.gradle.testClasses")
+
+/**
+ * Returns main class of the file. Value is cached until the file or project roots are changed.
+ * Should be called inside read action.
+ */
+fun getCachedMainClass(project: Project, file: VirtualFile, mainClassForFile: (Project, VirtualFile) -> String?): String? {
+  val psiFile = PsiManager.getInstance(project).findFile(file) ?: return null
+  return CachedValuesManager.getManager(project).getCachedValue(psiFile, MAIN_CLASS, CachedValueProvider {
+    CachedValueProvider.Result.create(mainClassForFile(project, file), psiFile, ProjectRootModificationTracker.getInstance(project))
+  }, false)
+}
+
+/**
+ * Returns qualified names of test classes from test dirs of the task.
+ *
+ * Classes are looked for in background read action when indices are ready,
+ * found classes of every test dir are cached until one of its files is changed, added or removed, or project roots are changed
+ * (e.g. classes found before the end of Gradle import aren't kept after it).
+ */
+fun findTestClasses(project: Project, task: Task, testClassForFile: (PsiFile) -> String?): List<String> {
+  return DumbService.getInstance(project).runReadActionInSmartMode(Computable {
+    task.findTestDirs(project).flatMap { testDir ->
+      val psiDir = PsiManager.getInstance(project).findDirectory(testDir) ?: return@flatMap emptyList<String>()
+      CachedValuesManager.getManager(project).getCachedValue(psiDir, TEST_CLASSES, CachedValueProvider {
+        val psiFiles = psiDir.files
+        val testClasses = psiFiles.mapNotNull(testClassForFile)
+        CachedValueProvider.Result.create(testClasses, *psiFiles, VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+                                          ProjectRootModificationTracker.getInstance(project))
+      }, false)
+    }
+  })
+}
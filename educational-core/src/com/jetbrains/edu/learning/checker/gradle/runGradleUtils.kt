@@ -39,29 +39,23 @@ fun getGradleProjectName(task: Task) =
     ":${EduGradleUtils.sanitizeName(task.lesson.name)}-${EduGradleUtils.sanitizeName(task.dirName)}"
 
 class GradleCommandLine private constructor(
+  private val project: Project,
   private val cmd: GeneralCommandLine,
-  val taskName: String
+  private val projectPath: String,
+  private val javaHome: String,
+  private val taskNames: List<String>,
+  private val params: List<String>
 ) {
 
-  fun launchAndCheck(): CheckResult {
-    val output = launch() ?: return CheckResult.FAILED_TO_CHECK
-    if (!output.isSuccess) return CheckResult(CheckStatus.Failed, output.firstMessage, output.messages.joinToString("\n"))
-
-    return TestsOutputParser.getCheckResult(output.messages)
-  }
+  fun launchAndCheck(): CheckResult = launch()?.toCheckResult() ?: CheckResult.FAILED_TO_CHECK
 
+  /**
+   * Runs gradle through Tooling API (see [GradleToolingApiRunner]) and falls back to gradle wrapper
+   * if Tooling API can't be used
+   */
   fun launch(): GradleOutput? {
-    val output = try {
-      val handler = CapturingProcessHandler(cmd)
-      if (ProgressManager.getInstance().hasProgressIndicator()) {
-        handler.runProcessWithProgressIndicator(ProgressManager.getInstance().progressIndicator)
-      } else {
-        handler.runProcess()
-      }
-    } catch (e: ExecutionException) {
-      LOG.info(CheckUtils.FAILED_TO_CHECK_MESSAGE, e)
-      return null
-    }
+    val toolingApiOutput = GradleToolingApiRunner.run(project, projectPath, javaHome, taskNames, params)
+    val output = toolingApiOutput?.processOutput ?: launchWrapper() ?: return null
 
     val stderr = output.stderr
     if (!stderr.isEmpty() && output.stdout.isEmpty()) {
@@ -73,12 +67,32 @@ class GradleCommandLine private constructor(
       return GradleOutput(false, listOf(COMPILATION_FAILED_MESSAGE, output.stderr))
     }
 
-    if (!output.stdout.contains(taskName)) {
-      LOG.warn("#educational: executing $taskName fails: \n" + output.stdout)
+    val allTasksExecuted = if (toolingApiOutput != null) {
+      taskNames.all { toolingApiOutput.isExecuted(it) }
+    }
+    else {
+      taskNames.all { output.stdout.contains(it) }
+    }
+    if (!allTasksExecuted) {
+      LOG.warn("#educational: executing ${taskNames.joinToString()} fails: \n" + output.stdout)
       return GradleOutput(false, listOf("$FAILED_TO_CHECK_MESSAGE. See idea.log for more details."))
     }
 
-    return GradleOutput(true, collectMessages(output))
+    return GradleOutput(true, collectMessages(output), toolingApiOutput?.tests)
+  }
+
+  private fun launchWrapper(): ProcessOutput? {
+    return try {
+      val handler = CapturingProcessHandler(cmd)
+      if (ProgressManager.getInstance().hasProgressIndicator()) {
+        handler.runProcessWithProgressIndicator(ProgressManager.getInstance().progressIndicator)
+      } else {
+        handler.runProcess()
+      }
+    } catch (e: ExecutionException) {
+      LOG.info(CheckUtils.FAILED_TO_CHECK_MESSAGE, e)
+      null
+    }
   }
 
   private fun collectMessages(output: ProcessOutput): List<String> {
@@ -113,7 +127,14 @@ class GradleCommandLine private constructor(
 
     private val LOG: Logger = Logger.getInstance(GradleCommandLine::class.java  )
 
-    fun create(project: Project, command: String, vararg additionalParams: String): GradleCommandLine? {
+    fun create(project: Project, command: String, vararg additionalParams: String): GradleCommandLine? =
+      create(project, listOf(command), *additionalParams)
+
+    /**
+     * Creates command line running several tasks in one gradle invocation,
+     * so gradle configuration phase is passed only once
+     */
+    fun create(project: Project, commands: List<String>, vararg additionalParams: String): GradleCommandLine? {
       val basePath = project.basePath ?: return null
       val projectJdkPath = ProjectRootManager.getInstance(project).projectSdk?.homePath ?: return null
       val projectPath = FileUtil.toSystemDependentName(basePath)
@@ -121,18 +142,41 @@ class GradleCommandLine private constructor(
         .withEnvironment("JAVA_HOME", projectJdkPath)
         .withWorkDirectory(FileUtil.toSystemDependentName(basePath))
         .withExePath(if (SystemInfo.isWindows) FileUtil.join(projectPath, GRADLE_WRAPPER_WIN) else "./$GRADLE_WRAPPER_UNIX")
-        .withParameters(command)
+        .withParameters(commands)
         .withParameters(*additionalParams)
 
-      return GradleCommandLine(cmd, command)
+      return GradleCommandLine(project, cmd, projectPath, projectJdkPath, commands, additionalParams.toList())
     }
   }
 }
 
-class GradleOutput(val isSuccess: Boolean, _messages: List<String>) {
+/**
+ * [tests] are null if gradle was launched via wrapper, so test results are known only from [messages]
+ */
+class GradleOutput(val isSuccess: Boolean, _messages: List<String>, val tests: List<GradleTestResult>? = null) {
   val messages = _messages.map { it.postProcessOutput() }
 
   val firstMessage: String get() = messages.firstOrNull { it.isNotBlank() } ?: "<no output>"
+
+  fun toCheckResult(): CheckResult {
+    if (!isSuccess) return CheckResult(CheckStatus.Failed, firstMessage, messages.joinToString("\n"))
+
+    val result = TestsOutputParser.getCheckResult(messages)
+    // test results are reported by gradle only when tests are run through Tooling API,
+    // otherwise (or if no tests were run) the only source of results are messages printed by tests
+    val tests = tests?.takeIf { it.isNotEmpty() } ?: return result
+    val failedTests = tests.filter { !it.isPassed }
+    if (failedTests.isEmpty()) {
+      return if (result.status == CheckStatus.Solved) result else CheckResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS)
+    }
+    // messages printed by tests are more readable than raw assertion messages, so they are preferred when present
+    if (result.status == CheckStatus.Failed) return result
+    return CheckResult(CheckStatus.Failed, failedTests.first().failureMessage!!, failedTests.joinToString("\n") { it.failureMessage!! })
+  }
+}
+
+class GradleTestResult(val name: String, val failureMessage: String?) {
+  val isPassed: Boolean get() = failureMessage == null
 }
 
 fun String.postProcessOutput(): String = replace(System.getProperty("line.separator"), "\n").removeSuffix("\n")
@@ -167,14 +211,14 @@ private fun findMainClass(project: Project, task: Task, mainClassForFile: (Proje
     if (selectedFile != null) {
       val fileTask = EduUtils.getTaskForFile(project, selectedFile)
       if (fileTask == task) {
-        val mainClass = mainClassForFile(project, selectedFile)
+        val mainClass = getCachedMainClass(project, selectedFile, mainClassForFile)
         if (mainClass != null) return@runReadAction mainClass
       }
     }
 
     for ((_, taskFile) in task.taskFiles) {
       val file = taskFile.getVirtualFile(project) ?: continue
-      return@runReadAction mainClassForFile(project, file) ?: continue
+      return@runReadAction getCachedMainClass(project, file, mainClassForFile) ?: continue
     }
     null
   }
@@ -2,6 +2,7 @@ package com.jetbrains.edu.learning.checkio.courseFormat;
 
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.learning.courseFormat.CheckStatus;
+import com.jetbrains.edu.learning.courseFormat.Lesson;
 import com.jetbrains.edu.learning.courseFormat.TaskFile;
 import com.jetbrains.edu.learning.courseFormat.tasks.EduTask;
 import org.jetbrains.annotations.NotNull;
@@ -36,6 +37,7 @@ public class CheckiOMission extends EduTask {
 
   public void setSecondsFromLastChangeOnServer(long secondsFromLastChangeOnServer) {
     mySecondsFromLastChangeOnServer = secondsFromLastChangeOnServer;
+    incModificationStamp();
   }
 
   public long getSecondsFromLastChangeOnServer() {
@@ -49,6 +51,7 @@ public class CheckiOMission extends EduTask {
 
   public void setCode(@NotNull String code) {
     this.myCode = code;
+    incModificationStamp();
   }
 
   @NotNull
@@ -61,12 +64,22 @@ public class CheckiOMission extends EduTask {
 
   @Override
   public void setStatus(CheckStatus status) {
-    if (myStatus == CheckStatus.Unchecked) {
-      myStatus = status;
+    final Runnable statusChange = () -> {
+      if (myStatus == CheckStatus.Unchecked) {
+        myStatus = status;
+      }
+      else if (myStatus == CheckStatus.Failed && status == CheckStatus.Solved) {
+        myStatus = CheckStatus.Solved;
+      }
+    };
+    final Lesson lesson = getLesson();
+    if (lesson != null) {
+      lesson.changeTaskStatus(this, statusChange);
     }
-    else if (myStatus == CheckStatus.Failed && status == CheckStatus.Solved) {
-      myStatus = CheckStatus.Solved;
+    else {
+      statusChange.run();
     }
+    incModificationStamp();
   }
 
   @Override
@@ -1,9 +1,22 @@
 package com.jetbrains.edu.learning.courseFormat
 
+import com.intellij.util.xmlb.annotations.Transient
+import com.jetbrains.edu.learning.courseFormat.tasks.Task
+
 class AdditionalFile() : StudyFile() {
+  @Transient
+  private var task: Task? = null
 
   constructor(text: String, isVisible: Boolean) : this() {
     this.setText(text)
     this.isVisible = isVisible
   }
+
+  fun setTask(task: Task?) {
+    this.task = task
+  }
+
+  override fun modified() {
+    task?.incModificationStamp()
+  }
 }
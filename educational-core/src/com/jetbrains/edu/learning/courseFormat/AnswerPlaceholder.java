@@ -82,6 +82,7 @@ public class AnswerPlaceholder {
 
   public void setIndex(int index) {
     myIndex = index;
+    modified();
   }
 
   /**
@@ -92,7 +93,9 @@ public class AnswerPlaceholder {
   }
 
   public void setLength(int length) {
+    if (myLength == length) return;
     myLength = length;
+    modified();
   }
 
   public String getPossibleAnswer() {
@@ -101,6 +104,7 @@ public class AnswerPlaceholder {
 
   public void setPossibleAnswer(String possibleAnswer) {
     myPossibleAnswer = possibleAnswer;
+    modified();
   }
 
   public MyInitialState getInitialState() {
@@ -109,6 +113,7 @@ public class AnswerPlaceholder {
 
   public void setInitialState(MyInitialState initialState) {
     myInitialState = initialState;
+    modified();
   }
 
   public String getPlaceholderText() {
@@ -117,6 +122,7 @@ public class AnswerPlaceholder {
 
   public void setPlaceholderText(String placeholderText) {
     myPlaceholderText = placeholderText;
+    modified();
   }
 
   @Transient
@@ -141,6 +147,13 @@ public class AnswerPlaceholder {
     myLength = myInitialState.getLength();
     myStatus = CheckStatus.Unchecked;
     myIsInitializedFromDependency = false;
+    modified();
+  }
+
+  private void modified() {
+    if (myTaskFile != null) {
+      myTaskFile.modified();
+    }
   }
 
   public CheckStatus getStatus() {
@@ -149,6 +162,7 @@ public class AnswerPlaceholder {
 
   public void setStatus(CheckStatus status) {
     myStatus = status;
+    modified();
   }
 
   public boolean getSelected() {
@@ -157,6 +171,7 @@ public class AnswerPlaceholder {
 
   public void setSelected(boolean selected) {
     mySelected = selected;
+    modified();
   }
 
   public void init() {
@@ -176,6 +191,7 @@ public class AnswerPlaceholder {
 
   public void setUseLength(boolean useLength) {
     myUseLength = useLength;
+    modified();
   }
 
   public int getOffset() {
@@ -183,7 +199,10 @@ public class AnswerPlaceholder {
   }
 
   public void setOffset(int offset) {
+    // it's called on document changes, unchanged values shouldn't make the task modified
+    if (myOffset == offset) return;
     myOffset = offset;
+    modified();
   }
 
   public List<String> getHints() {
@@ -192,6 +211,7 @@ public class AnswerPlaceholder {
 
   public void setHints(@NotNull final List<String> hints) {
     myHints = hints;
+    modified();
   }
 
   @Nullable
@@ -201,6 +221,7 @@ public class AnswerPlaceholder {
 
   public void setStudentAnswer(@Nullable String studentAnswer) {
     myStudentAnswer = studentAnswer;
+    modified();
   }
 
   public boolean isVisible() {
@@ -251,6 +272,7 @@ public class AnswerPlaceholder {
     if (placeholderDependency != null) {
       myPlaceholderDependency.setAnswerPlaceholder(this);
     }
+    StudyItem.structureChanged(myTaskFile == null ? null : myTaskFile.getTask());
   }
 
   public boolean isInitializedFromDependency() {
@@ -259,6 +281,7 @@ public class AnswerPlaceholder {
 
   public void setInitializedFromDependency(boolean initializedFromDependency) {
     myIsInitializedFromDependency = initializedFromDependency;
+    modified();
   }
 
   public int getEndOffset() {
@@ -163,6 +163,7 @@ public class AnswerPlaceholderDependency {
 
   public void setSectionName(@Nullable String sectionName) {
     mySectionName = sectionName;
+    structureChanged();
   }
 
   public String getLessonName() {
@@ -171,6 +172,7 @@ public class AnswerPlaceholderDependency {
 
   public void setLessonName(String lessonName) {
     myLessonName = lessonName;
+    structureChanged();
   }
 
   public String getTaskName() {
@@ -179,6 +181,7 @@ public class AnswerPlaceholderDependency {
 
   public void setTaskName(String taskName) {
     myTaskName = taskName;
+    structureChanged();
   }
 
   public String getFileName() {
@@ -187,6 +190,7 @@ public class AnswerPlaceholderDependency {
 
   public void setFileName(String fileName) {
     myFileName = fileName;
+    structureChanged();
   }
 
   public int getPlaceholderIndex() {
@@ -195,6 +199,7 @@ public class AnswerPlaceholderDependency {
 
   public void setPlaceholderIndex(int placeholderIndex) {
     myPlaceholderIndex = placeholderIndex;
+    structureChanged();
   }
 
   public boolean isVisible() {
@@ -211,6 +216,11 @@ public class AnswerPlaceholderDependency {
     return section + StringUtil.join(ContainerUtil.newArrayList(myLessonName, myTaskName, myFileName, myPlaceholderIndex + 1), "#");
   }
 
+  private void structureChanged() {
+    TaskFile taskFile = myAnswerPlaceholder == null ? null : myAnswerPlaceholder.getTaskFile();
+    StudyItem.structureChanged(taskFile == null ? null : taskFile.getTask());
+  }
+
   public static class InvalidDependencyException extends IllegalStateException {
     private final String myCustomMessage;
 
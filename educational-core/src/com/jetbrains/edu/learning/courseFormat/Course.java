@@ -6,13 +6,11 @@ import com.intellij.lang.Language;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.xmlb.XmlSerializer;
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.learning.EduNames;
 import com.jetbrains.edu.learning.EduUtils;
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
 import com.jetbrains.edu.learning.stepik.StepikUserInfo;
-import one.util.streamex.StreamEx;
-import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -20,10 +18,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class Course extends ItemContainer {
   transient private List<StepikUserInfo> authors = new ArrayList<>();
+  @Transient transient private CourseIndex myIndex;
+  // incremented when items, task files or placeholder dependencies of the course are added, removed or renamed
+  @Transient transient private final AtomicLong myStructureModificationCount = new AtomicLong();
   @Expose @SerializedName("summary") private String description;
   @Expose @SerializedName("title") private String name;
 
@@ -35,6 +37,11 @@ public class Course extends ItemContainer {
   // plan to use to change appearance of these courses in courses panel
   private boolean myIsFromZip = false;
 
+  // path to archive of the course which items weren't loaded yet, see EduUtils#getLocalCourseInfo
+  transient private String myArchivePath;
+  // path to directory of the course in the project, used to resolve files to course items
+  transient private volatile String myDirectoryPath;
+
   //this field is used to distinguish ordinary and CheckIO projects,
   //"PyCharm" is used here for historical reasons
   @Expose @SerializedName("course_type") private String courseType = EduNames.PYCHARM;
@@ -51,6 +58,7 @@ public class Course extends ItemContainer {
       item.setIndex(i + 1);
       item.init(this, this, isRestarted);
     }
+    structureChanged();
   }
 
   /**
@@ -72,6 +80,7 @@ public class Course extends ItemContainer {
 
   public void addSection(@NotNull Section section) {
     items.add(section);
+    structureChanged();
   }
 
   @NotNull
@@ -81,11 +90,13 @@ public class Course extends ItemContainer {
 
   public void removeSection(@NotNull final Section toRemove) {
     items.remove(toRemove);
+    structureChanged();
   }
 
   public void removeAdditionalLesson() {
     items.stream().filter(it -> it instanceof Lesson && ((Lesson)it).isAdditional()).findFirst().
       ifPresent(lesson -> items.remove(lesson));
+    structureChanged();
   }
 
   @Nullable
@@ -96,20 +107,90 @@ public class Course extends ItemContainer {
         return section.getLesson(lessonName);
       }
     }
-    return (Lesson)StreamEx.of(items).filter(Lesson.class::isInstance)
-      .findFirst(lesson -> lessonName.equals(lesson.getName())).orElse(null);
+    return getLesson(lessonName);
+  }
+
+  @Nullable
+  @Override
+  public Lesson getLesson(@NotNull final String name) {
+    return getIndex().getLesson(name);
   }
 
   @Nullable
   public Section getSection(@NotNull final String name) {
-    return (Section)items.stream().filter(Section.class::isInstance).
-      filter(item -> item.getName().equals(name)).findFirst().orElse(null);
+    return getIndex().getSection(name);
+  }
+
+  /**
+   * @param path path of section, lesson or task directory relative to the course directory, with {@code /} separators
+   */
+  @Nullable
+  public StudyItem findItem(@NotNull String path) {
+    return getIndex().getItem(path);
+  }
+
+  /**
+   * @return path of the course directory, it's known only for the course of a project (see {@code StudyTaskManager})
+   */
+  @Transient
+  @Nullable
+  public String getDirectoryPath() {
+    return myDirectoryPath;
+  }
+
+  @Transient
+  public void setDirectoryPath(@Nullable String directoryPath) {
+    myDirectoryPath = directoryPath;
   }
 
   @Nullable
   public Lesson getLesson(int lessonId) {
-    return (Lesson)items.stream().filter(Lesson.class::isInstance).
-      filter(item -> item.getId() == lessonId).findFirst().orElse(null);
+    return getIndex().getLesson(lessonId);
+  }
+
+  /**
+   * @return the first task with given step id in all lessons of the course
+   */
+  @Nullable
+  public Task getTask(int stepId) {
+    return getIndex().getTask(stepId);
+  }
+
+  @Transient
+  @NotNull
+  public PlaceholderDependencyGraph getPlaceholderDependencyGraph() {
+    return getIndex().getPlaceholderDependencyGraph();
+  }
+
+  @Transient
+  @NotNull
+  public TaskCounters getTaskCounters() {
+    TaskCounters counters = getIndex().getTaskCounters(this);
+    assert counters != null;
+    return counters;
+  }
+
+  @Transient
+  public long getStructureModificationCount() {
+    return myStructureModificationCount.get();
+  }
+
+  void itemStructureChanged(@NotNull StudyItem item) {
+    myStructureModificationCount.incrementAndGet();
+    CourseIndex index = myIndex;
+    if (index != null) {
+      index.itemChanged(item);
+    }
+  }
+
+  @NotNull
+  CourseIndex getIndex() {
+    CourseIndex index = myIndex;
+    if (index == null) {
+      index = new CourseIndex(this);
+      myIndex = index;
+    }
+    return index;
   }
 
   @NotNull
@@ -125,6 +206,17 @@ public class Course extends ItemContainer {
     myIsFromZip = fromZip;
   }
 
+  @Transient
+  @Nullable
+  public String getArchivePath() {
+    return myArchivePath;
+  }
+
+  @Transient
+  public void setArchivePath(@Nullable String archivePath) {
+    myArchivePath = archivePath;
+  }
+
   public static String getAuthorsString(@NotNull List<StepikUserInfo> authors) {
     return StringUtil.join(authors, StepikUserInfo::getName, ", ");
   }
@@ -238,8 +330,9 @@ public class Course extends ItemContainer {
   }
 
   public Course copy() {
-    Element element = XmlSerializer.serialize(this);
-    Course copy = XmlSerializer.deserialize(element, getClass());
+    Course copy = StudyItemCopier.copy(this);
+    // authors are transient not to be serialized to json, but they are serialized to xml via accessors
+    copy.setAuthors(StudyItemCopier.copy(authors));
     copy.init(null, null, true);
     return copy;
   }
@@ -307,5 +400,6 @@ public class Course extends ItemContainer {
 
   public void addItem(@NotNull StudyItem item, int index) {
     items.add(index, item);
+    structureChanged();
   }
 }
@@ -0,0 +1,383 @@
+package com.jetbrains.edu.learning.courseFormat;
+
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Lookup tables of course items by directory paths and ids, used to resolve files to course items
+ * without scanning the whole course.
+ *
+ * Sections, lessons and tasks are indexed by paths of their directories relative to the course directory,
+ * built from item names (e.g. {@code section/lesson/task}), so items of a container are looked up by names too.
+ * Paths and ids are updated incrementally when an item reports its structure change (see {@link StudyItem#structureChanged()}):
+ * only children of the changed item and of its container are compared with the index, and only subtrees with changed paths are re-indexed.
+ * If there are several items with the same path or id, the first indexed one is kept.
+ *
+ * Task counters and placeholder dependency graph are computed once for the current structure
+ * (see {@link Course#getStructureModificationCount()}), counters are then updated on task status changes.
+ */
+class CourseIndex {
+  private final Course myCourse;
+  // guards task counters and task status changes, so counters are never built from a status which change isn't counted yet
+  private final Object myStatusLock = new Object();
+  private volatile Snapshot mySnapshot;
+
+  // guards lookup tables below
+  private final Object myLock = new Object();
+  private boolean myIsBuilt;
+  private final Map<StudyItem, Node> myNodes = new IdentityHashMap<>();
+  private final Map<String, StudyItem> myItemsByPath = new HashMap<>();
+  private final Map<Integer, Lesson> myLessonsById = new HashMap<>();
+  private final Map<Integer, Task> myTasksByStepId = new HashMap<>();
+
+  CourseIndex(@NotNull Course course) {
+    myCourse = course;
+  }
+
+  @Nullable
+  Section getSection(@NotNull String name) {
+    StudyItem item = getItem(name);
+    return item instanceof Section ? (Section)item : null;
+  }
+
+  @Nullable
+  Lesson getLesson(@NotNull String name) {
+    StudyItem item = getItem(name);
+    return item instanceof Lesson ? (Lesson)item : null;
+  }
+
+  @Nullable
+  Lesson getLesson(int id) {
+    synchronized (myLock) {
+      ensureBuilt();
+      return myLessonsById.get(id);
+    }
+  }
+
+  @Nullable
+  Task getTask(int stepId) {
+    synchronized (myLock) {
+      ensureBuilt();
+      return myTasksByStepId.get(stepId);
+    }
+  }
+
+  /**
+   * @param path path of item directory relative to the course directory, with {@code /} separators
+   * @return section, lesson or task which directory has the given path
+   */
+  @Nullable
+  StudyItem getItem(@NotNull String path) {
+    synchronized (myLock) {
+      ensureBuilt();
+      return myItemsByPath.get(path);
+    }
+  }
+
+  /**
+   * Looks for a child section, lesson or task of the item by name
+   *
+   * @param fallback used to find child if the item isn't a part of the course
+   */
+  @Nullable
+  <T extends StudyItem> T getChild(@NotNull StudyItem item,
+                                   @NotNull String name,
+                                   @NotNull Class<T> childClass,
+                                   @NotNull Supplier<T> fallback) {
+    Node child;
+    synchronized (myLock) {
+      ensureBuilt();
+      Node node = myNodes.get(item);
+      if (node == null) {
+        child = null;
+      }
+      else {
+        child = node.myChildrenByName.get(name);
+        if (child == null) return null;
+      }
+    }
+    if (child == null) {
+      return fallback.get();
+    }
+    return childClass.isInstance(child.myItem) ? childClass.cast(child.myItem) : null;
+  }
+
+  /**
+   * @return path of item directory relative to the course directory or null if item isn't a part of the course
+   */
+  @Nullable
+  String getPath(@NotNull StudyItem item) {
+    synchronized (myLock) {
+      ensureBuilt();
+      Node node = myNodes.get(item);
+      return node == null ? null : node.myPath;
+    }
+  }
+
+  /**
+   * Updates lookup tables after structure change of the item: its children, name or id were changed
+   */
+  void itemChanged(@NotNull StudyItem item) {
+    synchronized (myLock) {
+      if (!myIsBuilt) return;
+      if (item == myCourse) {
+        updateChildren(myNodes.get(myCourse));
+        return;
+      }
+      Node node = myNodes.get(item);
+      if (node == null) {
+        // item isn't added to the course yet, it'll be indexed together with its container
+        return;
+      }
+      // name or id of the item could be changed, they're indexed by its container
+      Node parent = node.myParent;
+      if (parent != null) {
+        updateChildren(parent);
+      }
+      Node updatedNode = myNodes.get(item);
+      if (updatedNode != null) {
+        updateChildren(updatedNode);
+      }
+    }
+  }
+
+  private void ensureBuilt() {
+    if (myIsBuilt) return;
+    Node root = new Node(myCourse, null, "", myCourse.getId());
+    myNodes.put(myCourse, root);
+    myIsBuilt = true;
+    updateChildren(root);
+  }
+
+  private void updateChildren(@NotNull Node node) {
+    List<? extends StudyItem> children = getChildren(node.myItem);
+    List<String> paths = new ArrayList<>(children.size());
+    Set<Node> keptChildren = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (StudyItem child : children) {
+      String path = node.myItem == myCourse ? child.getName() : node.myPath + VfsUtilCore.VFS_SEPARATOR_CHAR + child.getName();
+      paths.add(path);
+      Node childNode = myNodes.get(child);
+      if (childNode != null && childNode.myParent == node && childNode.myPath.equals(path)) {
+        keptChildren.add(childNode);
+      }
+    }
+
+    // outdated nodes are removed first, so renamed items can take paths of each other
+    for (Node oldChild : node.myChildren) {
+      if (oldChild.myParent == node && !keptChildren.contains(oldChild)) {
+        remove(oldChild);
+      }
+    }
+
+    List<Node> newChildren = new ArrayList<>(children.size());
+    Map<String, Node> childrenByName = new HashMap<>();
+    Set<Node> addedChildren = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (int i = 0; i < children.size(); i++) {
+      StudyItem child = children.get(i);
+      Node childNode = myNodes.get(child);
+      if (childNode != null && addedChildren.contains(childNode)) {
+        // the same item is added to the container twice
+        continue;
+      }
+      if (childNode != null && keptChildren.contains(childNode)) {
+        if (childNode.myId != child.getId()) {
+          removeId(childNode);
+          childNode.myId = child.getId();
+          addId(childNode);
+        }
+      }
+      else {
+        if (childNode != null) {
+          // item was moved from another container which isn't updated yet
+          remove(childNode);
+        }
+        childNode = add(child, node, paths.get(i));
+      }
+      addedChildren.add(childNode);
+      newChildren.add(childNode);
+      childrenByName.putIfAbsent(child.getName(), childNode);
+    }
+    node.myChildren = newChildren;
+    node.myChildrenByName = childrenByName;
+  }
+
+  @NotNull
+  private Node add(@NotNull StudyItem item, @NotNull Node parent, @NotNull String path) {
+    Node node = new Node(item, parent, path, item.getId());
+    myNodes.put(item, node);
+    myItemsByPath.putIfAbsent(path, item);
+    addId(node);
+    updateChildren(node);
+    return node;
+  }
+
+  private void remove(@NotNull Node node) {
+    for (Node child : node.myChildren) {
+      if (child.myParent == node) {
+        remove(child);
+      }
+    }
+    node.myChildren = Collections.emptyList();
+    node.myChildrenByName = Collections.emptyMap();
+    if (myNodes.get(node.myItem) == node) {
+      myNodes.remove(node.myItem);
+    }
+    myItemsByPath.remove(node.myPath, node.myItem);
+    removeId(node);
+    // node can be removed from another container when item is moved, so it shouldn't be removed again by its old parent
+    node.myParent = null;
+  }
+
+  private void addId(@NotNull Node node) {
+    StudyItem item = node.myItem;
+    if (item instanceof Task) {
+      myTasksByStepId.putIfAbsent(node.myId, (Task)item);
+    }
+    else if (item instanceof Lesson && node.myParent != null && node.myParent.myItem == myCourse) {
+      myLessonsById.putIfAbsent(node.myId, (Lesson)item);
+    }
+  }
+
+  private void removeId(@NotNull Node node) {
+    StudyItem item = node.myItem;
+    if (item instanceof Task) {
+      myTasksByStepId.remove(node.myId, item);
+    }
+    else if (item instanceof Lesson) {
+      myLessonsById.remove(node.myId, item);
+    }
+  }
+
+  @NotNull
+  private static List<? extends StudyItem> getChildren(@NotNull StudyItem item) {
+    if (item instanceof ItemContainer) {
+      return ((ItemContainer)item).getItems();
+    }
+    if (item instanceof Lesson) {
+      return ((Lesson)item).getTaskList();
+    }
+    return Collections.emptyList();
+  }
+
+  @NotNull
+  PlaceholderDependencyGraph getPlaceholderDependencyGraph() {
+    Snapshot snapshot = getSnapshot();
+    PlaceholderDependencyGraph graph = snapshot.myDependencyGraph;
+    if (graph == null) {
+      // dependencies are resolved using this index, so graph can't be built in snapshot constructor
+      graph = new PlaceholderDependencyGraph(myCourse);
+      snapshot.myDependencyGraph = graph;
+    }
+    return graph;
+  }
+
+  /**
+   * @return counters of tasks in the lesson, section or the whole course or null if item isn't a part of the course
+   */
+  @Nullable
+  TaskCounters getTaskCounters(@NotNull StudyItem item) {
+    Snapshot snapshot = getSnapshot();
+    synchronized (myStatusLock) {
+      return snapshot.getTaskCounters(myCourse).get(item);
+    }
+  }
+
+  /**
+   * Runs status change of the task and updates task counters under the same lock
+   */
+  void changeTaskStatus(@NotNull Lesson lesson, @NotNull Task task, @NotNull Runnable statusChange) {
+    synchronized (myStatusLock) {
+      CheckStatus oldStatus = task.getStatus();
+      statusChange.run();
+      CheckStatus newStatus = task.getStatus();
+      // outdated snapshot will be dropped together with its counters, so there is no need to rebuild it here
+      Snapshot snapshot = mySnapshot;
+      if (snapshot != null && oldStatus != newStatus) {
+        snapshot.taskStatusChanged(myCourse, lesson, task, oldStatus, newStatus);
+      }
+    }
+  }
+
+  @NotNull
+  private Snapshot getSnapshot() {
+    long modificationCount = myCourse.getStructureModificationCount();
+    Snapshot snapshot = mySnapshot;
+    if (snapshot == null || snapshot.myModificationCount != modificationCount) {
+      snapshot = new Snapshot(modificationCount);
+      mySnapshot = snapshot;
+    }
+    return snapshot;
+  }
+
+  private static class Node {
+    private final StudyItem myItem;
+    private Node myParent;
+    private final String myPath;
+    private int myId;
+    private List<Node> myChildren = Collections.emptyList();
+    private Map<String, Node> myChildrenByName = Collections.emptyMap();
+
+    Node(@NotNull StudyItem item, @Nullable Node parent, @NotNull String path, int id) {
+      myItem = item;
+      myParent = parent;
+      myPath = path;
+      myId = id;
+    }
+  }
+
+  private static class Snapshot {
+    private final long myModificationCount;
+    private volatile PlaceholderDependencyGraph myDependencyGraph;
+    private Map<StudyItem, TaskCounters> myTaskCounters; // guarded by CourseIndex.myStatusLock
+
+    Snapshot(long modificationCount) {
+      myModificationCount = modificationCount;
+    }
+
+    @NotNull
+    Map<StudyItem, TaskCounters> getTaskCounters(@NotNull Course course) {
+      if (myTaskCounters == null) {
+        Map<StudyItem, TaskCounters> counters = new IdentityHashMap<>();
+        TaskCounters courseCounters = new TaskCounters();
+        counters.put(course, courseCounters);
+        course.visitLessons(lesson -> {
+          TaskCounters lessonCounters = new TaskCounters(lesson.getTaskList());
+          counters.put(lesson, lessonCounters);
+          Section section = lesson.getSection();
+          TaskCounters sectionCounters = section == null ? null : counters.computeIfAbsent(section, s -> new TaskCounters());
+          for (Task task : lesson.getTaskList()) {
+            courseCounters.addTask(task);
+            if (sectionCounters != null) {
+              sectionCounters.addTask(task);
+            }
+          }
+          return true;
+        });
+        myTaskCounters = counters;
+      }
+      return myTaskCounters;
+    }
+
+    void taskStatusChanged(@NotNull Course course,
+                           @NotNull Lesson lesson,
+                           @NotNull Task task,
+                           @Nullable CheckStatus oldStatus,
+                           @Nullable CheckStatus newStatus) {
+      if (myTaskCounters == null) return;
+      TaskCounters lessonCounters = myTaskCounters.get(lesson);
+      if (lessonCounters == null) return;
+      lessonCounters.statusChanged(task, oldStatus, newStatus);
+      Section section = lesson.getSection();
+      TaskCounters sectionCounters = section == null ? null : myTaskCounters.get(section);
+      if (sectionCounters != null) {
+        sectionCounters.statusChanged(task, oldStatus, newStatus);
+      }
+      myTaskCounters.get(course).statusChanged(task, oldStatus, newStatus);
+    }
+  }
+}
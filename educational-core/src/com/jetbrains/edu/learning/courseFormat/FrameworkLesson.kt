@@ -25,26 +25,19 @@ class FrameworkLesson() : Lesson() {
   var currentTaskIndex: Int = 0
 
   /**
-   * Contains diffs between neighbor tasks.
+   * Contains recently used diffs between neighbor tasks, they are calculated on demand.
    * [diffs]`[i]` is diff list between [taskList]`[i]` and [taskList]`[i - 1]`.
-   * [diffs]`[0]` is supposed to be empty.
    */
   @Transient
-  private var diffs: List<List<TaskDiff>> = emptyList()
+  private val diffs: MutableMap<Int, List<TaskDiff>> = object : LinkedHashMap<Int, List<TaskDiff>>(MAX_CACHED_DIFFS, 0.75f, true) {
+    override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, List<TaskDiff>>?): Boolean = size > MAX_CACHED_DIFFS
+  }
 
   fun currentTask(): Task = taskList[currentTaskIndex]
 
   override fun init(course: Course?, section: StudyItem?, isRestarted: Boolean) {
     super.init(course, section, isRestarted)
-    // We don't need calculate diffs in CC mode because we don't use them
-    if (course?.isStudy == true) {
-      diffs = List(taskList.size) { index ->
-        if (index == 0) return@List emptyList<TaskDiff>()
-        val task = taskList[index]
-        val prevTask = taskList[index - 1]
-        calculateDiffs(prevTask, task)
-      }
-    }
+    diffs.clear()
   }
 
   fun prepareNextTask(project: Project, taskDir: VirtualFile) {
@@ -52,17 +45,22 @@ class FrameworkLesson() : Lesson() {
       "`prepareNextTask` should be called only if course in study mode"
     }
     currentTaskIndex++
-    diffs[currentTaskIndex].forEach { diff -> diff.apply(project, taskDir) }
+    getDiffs(currentTaskIndex).forEach { diff -> diff.apply(project, taskDir) }
   }
 
   fun preparePrevTask(project: Project, taskDir: VirtualFile) {
     check(EduUtils.isStudentProject(project)) {
       "`preparePrevTask` should be called only if course in study mode"
     }
-    diffs[currentTaskIndex].forEach { diff -> diff.revert(project, taskDir) }
+    getDiffs(currentTaskIndex).forEach { diff -> diff.revert(project, taskDir) }
     currentTaskIndex--
   }
 
+  private fun getDiffs(index: Int): List<TaskDiff> {
+    if (index == 0) return emptyList()
+    return diffs.getOrPut(index) { calculateDiffs(taskList[index - 1], taskList[index]) }
+  }
+
   private fun calculateDiffs(prevTask: Task, nextTask: Task): List<TaskDiff> {
     val diffs = mutableListOf<TaskDiff>()
     diffs += calculateDiffs(
@@ -80,14 +78,19 @@ class FrameworkLesson() : Lesson() {
       change = ::changeFile
     )
     diffs += calculateDiffs(
-      prevTask.additionalFiles.mapValues { (_, file) -> file.getText() },
-      nextTask.additionalFiles.mapValues { (_, file) -> file.getText() },
-      add = ::addFile,
-      remove = ::removeFile,
-      change = ::changeFile
+      prevTask.additionalFiles,
+      nextTask.additionalFiles,
+      add = ::addAdditionalFile,
+      remove = ::removeAdditionalFile,
+      change = ::changeAdditionalFile,
+      isChanged = { prevFile, nextFile -> prevFile.getText() != nextFile.getText() }
     )
     return diffs
   }
+
+  companion object {
+    private const val MAX_CACHED_DIFFS = 4
+  }
 }
 
 private inline fun <T> calculateDiffs(
@@ -95,7 +98,8 @@ private inline fun <T> calculateDiffs(
   nextItems: Map<String, T>,
   add: (String, T) -> TaskDiff,
   remove: (String, T) -> TaskDiff,
-  change: (String, T, T) -> TaskDiff
+  change: (String, T, T) -> TaskDiff,
+  isChanged: (T, T) -> Boolean = { prevItem, nextItem -> prevItem != nextItem }
 ): List<TaskDiff> {
   val allItems = prevItems.keys + nextItems.keys
   return allItems.mapNotNull { path ->
@@ -105,7 +109,7 @@ private inline fun <T> calculateDiffs(
       prevItem == null && nextItem != null -> add(path, nextItem)
       prevItem != null && nextItem == null -> remove(path, prevItem)
       // TODO: implement `equals` for `TaskFile`
-      prevItem != null && nextItem != null && prevItem != nextItem -> change(path, prevItem, nextItem)
+      prevItem != null && nextItem != null && isChanged(prevItem, nextItem) -> change(path, prevItem, nextItem)
       else -> null
     }
   }
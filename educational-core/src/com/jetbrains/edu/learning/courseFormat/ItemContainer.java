@@ -24,6 +24,11 @@ public abstract class ItemContainer extends StudyItem {
 
   @Nullable
   public Lesson getLesson(@NotNull final String name) {
+    return findLesson(name);
+  }
+
+  @Nullable
+  protected Lesson findLesson(@NotNull final String name) {
     return (Lesson)StreamEx.of(items).filter(Lesson.class::isInstance)
       .findFirst(lesson -> name.equals(lesson.getName())).orElse(null);
   }
@@ -51,18 +56,22 @@ public abstract class ItemContainer extends StudyItem {
 
   public void addLessons(@NotNull final List<Lesson> lessons) {
     items.addAll(lessons);
+    structureChanged();
   }
 
   public void addLesson(@NotNull final Lesson lesson) {
     items.add(lesson);
+    structureChanged();
   }
 
   public void removeLesson(@NotNull Lesson lesson) {
     items.remove(lesson);
+    structureChanged();
   }
 
   public void sortItems() {
     Collections.sort(items, EduUtils.INDEX_COMPARATOR);
+    structureChanged();
   }
 
   public void visitLessons(@NotNull LessonVisitor visitor) {
@@ -94,5 +103,6 @@ public abstract class ItemContainer extends StudyItem {
 
   public void setItems(List<StudyItem> items) {
     this.items = items;
+    structureChanged();
   }
 }
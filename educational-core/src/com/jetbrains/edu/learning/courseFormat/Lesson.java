@@ -76,6 +76,7 @@ public class Lesson extends StudyItem {
   @Override
   public void setName(String name) {
     this.name = name;
+    structureChanged();
   }
 
   public List<Task> getTaskList() {
@@ -83,7 +84,7 @@ public class Lesson extends StudyItem {
   }
 
   public List<Task> getTaskListForProgress() {
-    return CollectionsKt.filter(taskList, task -> !(task instanceof TheoryTask));
+    return CollectionsKt.filter(taskList, TaskCounters::isForProgress);
   }
 
   @NotNull
@@ -105,10 +106,31 @@ public class Lesson extends StudyItem {
 
   public void addTask(@NotNull final Task task) {
     taskList.add(task);
+    structureChanged();
+  }
+
+  public void addTasks(@NotNull final List<Task> tasks) {
+    taskList.addAll(tasks);
+    structureChanged();
+  }
+
+  public void sortTasks() {
+    taskList.sort(EduUtils.INDEX_COMPARATOR);
+    structureChanged();
+  }
+
+  public void removeTask(@NotNull final Task task) {
+    taskList.remove(task);
+    structureChanged();
   }
 
   @Nullable
   public Task getTask(@NotNull final String name) {
+    return myCourse == null ? findTask(name) : myCourse.getIndex().getChild(this, name, Task.class, () -> findTask(name));
+  }
+
+  @Nullable
+  private Task findTask(@NotNull final String name) {
     return StreamEx.of(taskList).findFirst(task -> name.equals(task.getName())).orElse(null);
   }
 
@@ -123,15 +145,30 @@ public class Lesson extends StudyItem {
 
   public void updateTaskList(List<Task> taskList) {
     this.taskList = taskList;
+    structureChanged();
   }
 
   public CheckStatus getStatus() {
-    for (Task task : taskList) {
-      if (task.getStatus() != CheckStatus.Solved) {
-        return CheckStatus.Unchecked;
-      }
+    return getTaskCounters().isSolved() ? CheckStatus.Solved : CheckStatus.Unchecked;
+  }
+
+  @Transient
+  @NotNull
+  public TaskCounters getTaskCounters() {
+    TaskCounters counters = myCourse == null ? null : myCourse.getIndex().getTaskCounters(this);
+    return counters != null ? counters : new TaskCounters(taskList);
+  }
+
+  /**
+   * Runs status change of the lesson task and updates task counters of the lesson and its parents together with it
+   */
+  public void changeTaskStatus(@NotNull Task task, @NotNull Runnable statusChange) {
+    if (myCourse != null) {
+      myCourse.getIndex().changeTaskStatus(this, task, statusChange);
+    }
+    else {
+      statusChange.run();
     }
-    return CheckStatus.Solved;
   }
 
   public int getId() {
@@ -140,6 +177,7 @@ public class Lesson extends StudyItem {
 
   public void setId(int id) {
     this.myId = id;
+    structureChanged();
   }
 
   public Date getUpdateDate() {
@@ -0,0 +1,89 @@
+package com.jetbrains.edu.learning.courseFormat;
+
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Links between answer placeholders created by {@link AnswerPlaceholderDependency}, in both directions.
+ *
+ * Graph is built once for the current course structure by {@link CourseIndex}
+ * and rebuilt when course structure or placeholder dependencies change.
+ */
+public class PlaceholderDependencyGraph {
+  // placeholder -> dependencies of other placeholders on it
+  private final Map<AnswerPlaceholder, List<AnswerPlaceholderDependency>> myDependents = new IdentityHashMap<>();
+  // task -> tasks which have placeholders depending on it
+  private final Map<Task, Set<Task>> myDependentTasks = new IdentityHashMap<>();
+
+  PlaceholderDependencyGraph(@NotNull Course course) {
+    course.visitLessons(lesson -> {
+      for (Task task : lesson.getTaskList()) {
+        for (TaskFile taskFile : task.getTaskFiles().values()) {
+          for (AnswerPlaceholder placeholder : taskFile.getAnswerPlaceholders()) {
+            AnswerPlaceholderDependency dependency = placeholder.getPlaceholderDependency();
+            if (dependency == null) continue;
+            AnswerPlaceholder target = dependency.resolve(course);
+            if (target == null) continue;
+            myDependents.computeIfAbsent(target, k -> new ArrayList<>()).add(dependency);
+            myDependentTasks.computeIfAbsent(target.getTaskFile().getTask(), k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+              .add(task);
+          }
+        }
+      }
+      return true;
+    });
+  }
+
+  /**
+   * @return tasks which have placeholders depending on placeholders of the given task
+   */
+  @NotNull
+  public Set<Task> getDependentTasks(@NotNull Task task) {
+    Set<Task> tasks = myDependentTasks.get(task);
+    return tasks == null ? Collections.emptySet() : Collections.unmodifiableSet(tasks);
+  }
+
+  /**
+   * @return tasks depending on the given task directly or through other tasks, in topological order:
+   * every task goes after the tasks it depends on. Order of tasks in dependency cycles is arbitrary.
+   */
+  @NotNull
+  public List<Task> getTransitivelyDependentTasks(@NotNull Task task) {
+    Set<Task> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    List<Task> postOrder = new ArrayList<>();
+    visited.add(task);
+    // iterative depth-first search, so long chains of dependent tasks don't overflow the stack
+    Deque<Iterator<Task>> stack = new ArrayDeque<>();
+    Deque<Task> path = new ArrayDeque<>();
+    stack.push(getDependentTasks(task).iterator());
+    while (!stack.isEmpty()) {
+      Iterator<Task> dependents = stack.peek();
+      if (dependents.hasNext()) {
+        Task dependent = dependents.next();
+        if (visited.add(dependent)) {
+          path.push(dependent);
+          stack.push(getDependentTasks(dependent).iterator());
+        }
+      }
+      else {
+        stack.pop();
+        if (!path.isEmpty() && stack.size() == path.size()) {
+          postOrder.add(path.pop());
+        }
+      }
+    }
+    Collections.reverse(postOrder);
+    return postOrder;
+  }
+
+  /**
+   * @return dependencies of other placeholders on the given one
+   */
+  @NotNull
+  public List<AnswerPlaceholderDependency> getDependentPlaceholders(@NotNull AnswerPlaceholder placeholder) {
+    List<AnswerPlaceholderDependency> dependencies = myDependents.get(placeholder);
+    return dependencies == null ? Collections.emptyList() : Collections.unmodifiableList(dependencies);
+  }
+}
@@ -6,9 +6,11 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.learning.EduUtils;
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -78,6 +80,27 @@ public class Section extends ItemContainer {
   @Override
   public void setName(String name) {
     this.name = name;
+    structureChanged();
+  }
+
+  @Nullable
+  @Override
+  public Lesson getLesson(@NotNull String name) {
+    return myCourse == null ? findLesson(name) : myCourse.getIndex().getChild(this, name, Lesson.class, () -> findLesson(name));
+  }
+
+  @Transient
+  @NotNull
+  public TaskCounters getTaskCounters() {
+    TaskCounters counters = myCourse == null ? null : myCourse.getIndex().getTaskCounters(this);
+    if (counters != null) {
+      return counters;
+    }
+    List<Task> tasks = new ArrayList<>();
+    for (Lesson lesson : getLessons()) {
+      tasks.addAll(lesson.getTaskList());
+    }
+    return new TaskCounters(tasks);
   }
 
   public void setUpdateDate(Date updateDate) {
@@ -1,6 +1,7 @@
 package com.jetbrains.edu.learning.courseFormat
 
 import com.google.gson.annotations.Expose
+import com.google.gson.annotations.JsonAdapter
 import com.google.gson.annotations.SerializedName
 import com.intellij.util.xmlb.annotations.Transient
 
@@ -8,14 +9,25 @@ abstract class StudyFile {
   @Expose
   @SerializedName("is_visible")
   var isVisible: Boolean = true
+    set(value) {
+      field = value
+      modified()
+    }
 
   @Transient
   @Expose
   @SerializedName("text")
-  private var _text: String = ""
+  @JsonAdapter(TextContent.Adapter::class)
+  private var _text: TextContent? = null
 
-  fun getText(): String = _text
+  fun getText(): String = _text?.get() ?: ""
   fun setText(text: String?) {
-    _text = text ?: ""
+    _text = TextContent.create(text ?: "")
+    modified()
   }
+
+  /**
+   * Called on every change of the file
+   */
+  protected open fun modified() {}
 }
@@ -50,6 +50,7 @@ public abstract class StudyItem {
 
   public void setCustomPresentableName(@Nullable String customPresentableName) {
     myCustomPresentableName = customPresentableName;
+    modified();
   }
 
   public String getPresentableName() {
@@ -62,6 +63,7 @@ public abstract class StudyItem {
 
   public void setIndex(int index) {
     myIndex = index;
+    modified();
   }
 
   @NotNull
@@ -70,7 +72,9 @@ public abstract class StudyItem {
   }
 
   public void setStepikChangeStatus(@NotNull StepikChangeStatus stepikChangeStatus) {
+    if (myStepikChangeStatus == stepikChangeStatus) return;
     this.myStepikChangeStatus = stepikChangeStatus;
+    modified();
   }
 
   /**
@@ -85,4 +89,36 @@ public abstract class StudyItem {
 
   @NotNull
   public abstract StudyItem getParent();
+
+  /**
+   * @return course of the item or null if the item isn't added to a course yet
+   */
+  @Nullable
+  protected Course findCourse() {
+    return getCourse();
+  }
+
+  /**
+   * Should be called when items, task files or placeholder dependencies are added, removed or renamed
+   * or ids of items are changed, see {@link CourseIndex}.
+   * Changes of items which aren't added to a course yet are counted when they're added to it.
+   */
+  protected void structureChanged() {
+    structureChanged(this);
+  }
+
+  static void structureChanged(@Nullable StudyItem item) {
+    if (item == null) return;
+    item.modified();
+    Course course = item.findCourse();
+    if (course != null) {
+      course.itemStructureChanged(item);
+    }
+  }
+
+  /**
+   * Called on every change of the item itself
+   */
+  protected void modified() {
+  }
 }
@@ -0,0 +1,186 @@
+package com.jetbrains.edu.learning.courseFormat;
+
+import com.google.gson.annotations.Expose;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.xmlb.annotations.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Makes deep copies of course format objects (courses, sections, lessons, tasks, task files, placeholders)
+ * field by field, without serialization to xml and back.
+ *
+ * Fields marked with {@link Transient} and not exposed to json and java transient fields aren't copied,
+ * so references to parent items and caches should be restored by {@code init} method of the copy, as after deserialization.
+ * Immutable values (strings, enums, {@link TextContent}) are shared between original and its copy,
+ * texts of {@link TaskContentMap} are shared as they are stored, without reading them.
+ */
+public final class StudyItemCopier {
+  private static final Logger LOG = Logger.getInstance(StudyItemCopier.class);
+  private static final String MODEL_PACKAGE_PREFIX = "com.jetbrains.edu.";
+  private static final ConcurrentMap<Class<?>, List<Field>> FIELDS = ContainerUtil.newConcurrentMap();
+
+  private final Map<Object, Object> myCopies = new IdentityHashMap<>();
+
+  private StudyItemCopier() {
+  }
+
+  @NotNull
+  public static <T> T copy(@NotNull T item) {
+    //noinspection unchecked
+    return (T)new StudyItemCopier().copyValue(item);
+  }
+
+  @Nullable
+  private Object copyValue(@Nullable Object value) {
+    if (value == null || isImmutable(value)) {
+      return value;
+    }
+    Object copy = myCopies.get(value);
+    if (copy != null) {
+      return copy;
+    }
+    if (value instanceof Date) {
+      copy = ((Date)value).clone();
+      myCopies.put(value, copy);
+    }
+    else if (value instanceof Collection) {
+      copy = copyCollection((Collection<?>)value);
+    }
+    else if (value instanceof TaskContentMap) {
+      copy = ((TaskContentMap<?>)value).copy(this::copyValue);
+      myCopies.put(value, copy);
+    }
+    else if (value instanceof Map) {
+      copy = copyMap((Map<?, ?>)value);
+    }
+    else if (value.getClass().isArray()) {
+      copy = copyArray(value);
+    }
+    else if (value.getClass().getName().startsWith(MODEL_PACKAGE_PREFIX)) {
+      copy = copyObject(value);
+    }
+    else {
+      // it's not a part of course format, so it isn't modified as a part of course
+      copy = value;
+    }
+    return copy;
+  }
+
+  @NotNull
+  private Collection<Object> copyCollection(@NotNull Collection<?> collection) {
+    Collection<Object> copy = newInstance(collection.getClass());
+    if (copy == null) {
+      copy = collection instanceof Set ? new LinkedHashSet<>() : new ArrayList<>(collection.size());
+    }
+    myCopies.put(collection, copy);
+    for (Object element : collection) {
+      copy.add(copyValue(element));
+    }
+    return copy;
+  }
+
+  @NotNull
+  private Map<Object, Object> copyMap(@NotNull Map<?, ?> map) {
+    Map<Object, Object> copy = newInstance(map.getClass());
+    if (copy == null) {
+      copy = new LinkedHashMap<>();
+    }
+    myCopies.put(map, copy);
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+    }
+    return copy;
+  }
+
+  @NotNull
+  private Object copyArray(@NotNull Object array) {
+    int length = Array.getLength(array);
+    Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+    myCopies.put(array, copy);
+    for (int i = 0; i < length; i++) {
+      Array.set(copy, i, copyValue(Array.get(array, i)));
+    }
+    return copy;
+  }
+
+  @NotNull
+  private Object copyObject(@NotNull Object value) {
+    Object copy = newInstance(value.getClass());
+    if (copy == null) {
+      LOG.debug("Failed to copy " + value.getClass().getName() + ", the same instance is used in the copy");
+      return value;
+    }
+    myCopies.put(value, copy);
+    try {
+      for (Field field : getFields(value.getClass())) {
+        field.set(copy, copyValue(field.get(value)));
+      }
+    }
+    catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+    return copy;
+  }
+
+  /**
+   * Creates instances of course format classes and standard collections, returns null for other classes
+   * (e.g. unmodifiable collections) and classes without default constructor
+   */
+  @Nullable
+  private static <T> T newInstance(@NotNull Class<?> aClass) {
+    String className = aClass.getName();
+    if (!className.startsWith(MODEL_PACKAGE_PREFIX) && !className.startsWith("java.util.")) {
+      return null;
+    }
+    try {
+      Constructor<?> constructor = aClass.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      //noinspection unchecked
+      return (T)constructor.newInstance();
+    }
+    catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  @NotNull
+  private static List<Field> getFields(@NotNull Class<?> aClass) {
+    return FIELDS.computeIfAbsent(aClass, StudyItemCopier::collectFields);
+  }
+
+  @NotNull
+  private static List<Field> collectFields(@NotNull Class<?> aClass) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> current = aClass; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || field.isSynthetic() || isTransient(field)) continue;
+        field.setAccessible(true);
+        fields.add(field);
+      }
+    }
+    return fields;
+  }
+
+  private static boolean isTransient(@NotNull Field field) {
+    if (Modifier.isTransient(field.getModifiers())) {
+      return true;
+    }
+    // some fields are serialized to xml via accessors, but they are still a part of course format
+    return field.isAnnotationPresent(Transient.class) && !field.isAnnotationPresent(Expose.class);
+  }
+
+  private static boolean isImmutable(@NotNull Object value) {
+    return value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character ||
+           value instanceof Enum || value instanceof Class || value instanceof TextContent;
+  }
+}
@@ -0,0 +1,209 @@
+package com.jetbrains.edu.learning.courseFormat;
+
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Map of test texts or additional files of a task.
+ *
+ * Every change of the map increments modification stamp of its task (see {@link Task#getModificationStamp()}),
+ * so the map can be modified directly without losing changes on the next save.
+ *
+ * String values (test texts) are kept as {@link TextContent} like texts of task files, so big tests aren't held on heap.
+ */
+public class TaskContentMap<V> extends AbstractMap<String, V> {
+  // values are stored as returned by pack()
+  private final Map<String, Object> myMap = new HashMap<>();
+  private final Set<Entry<String, V>> myEntrySet = new EntrySet();
+  @Nullable private volatile Task myTask;
+
+  public TaskContentMap() {
+  }
+
+  public TaskContentMap(@NotNull Map<String, ? extends V> map) {
+    if (map instanceof TaskContentMap) {
+      // texts are shared without reading them
+      myMap.putAll(((TaskContentMap<?>)map).myMap);
+      return;
+    }
+    for (Entry<String, ? extends V> entry : map.entrySet()) {
+      myMap.put(entry.getKey(), pack(entry.getValue()));
+    }
+  }
+
+  /**
+   * Creates a map which isn't attached to any task, with the same texts and values copied by {@code copyValue}
+   */
+  @NotNull
+  TaskContentMap<V> copy(@NotNull Function<Object, Object> copyValue) {
+    TaskContentMap<V> copy = new TaskContentMap<>();
+    for (Entry<String, Object> entry : myMap.entrySet()) {
+      copy.myMap.put(entry.getKey(), copyValue.apply(entry.getValue()));
+    }
+    return copy;
+  }
+
+  @Nullable
+  public Task getTask() {
+    return myTask;
+  }
+
+  public void setTask(@Nullable Task task) {
+    myTask = task;
+    for (Object value : myMap.values()) {
+      attach(value);
+    }
+  }
+
+  @Override
+  public int size() {
+    return myMap.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return myMap.containsKey(key);
+  }
+
+  @Override
+  public V get(Object key) {
+    return unpack(myMap.get(key));
+  }
+
+  @Override
+  public V put(String key, V value) {
+    Object oldValue = myMap.put(key, pack(value));
+    attach(value);
+    changed();
+    return unpack(oldValue);
+  }
+
+  @Override
+  public V remove(Object key) {
+    if (!myMap.containsKey(key)) {
+      return null;
+    }
+    Object oldValue = myMap.remove(key);
+    changed();
+    return unpack(oldValue);
+  }
+
+  @Override
+  public void clear() {
+    if (!myMap.isEmpty()) {
+      myMap.clear();
+      changed();
+    }
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<String, V>> entrySet() {
+    return myEntrySet;
+  }
+
+  @Nullable
+  private static Object pack(@Nullable Object value) {
+    return value instanceof String ? TextContent.create((String)value) : value;
+  }
+
+  @Nullable
+  private static <V> V unpack(@Nullable Object value) {
+    //noinspection unchecked
+    return value instanceof TextContent ? (V)((TextContent)value).get() : (V)value;
+  }
+
+  private void attach(@Nullable Object value) {
+    Task task = myTask;
+    if (task != null && value instanceof AdditionalFile) {
+      ((AdditionalFile)value).setTask(task);
+    }
+  }
+
+  private void changed() {
+    Task task = myTask;
+    if (task != null) {
+      task.incModificationStamp();
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Entry<String, V>> {
+    @Override
+    public int size() {
+      return myMap.size();
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Entry<String, V>> iterator() {
+      Iterator<Entry<String, Object>> iterator = myMap.entrySet().iterator();
+      return new Iterator<Entry<String, V>>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, V> next() {
+          return new ContentEntry(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+          iterator.remove();
+          changed();
+        }
+      };
+    }
+  }
+
+  /**
+   * Value is unpacked only when it's requested, so iteration over keys doesn't read stored texts
+   */
+  private class ContentEntry implements Entry<String, V> {
+    private final Entry<String, Object> myEntry;
+
+    ContentEntry(@NotNull Entry<String, Object> entry) {
+      myEntry = entry;
+    }
+
+    @Override
+    public String getKey() {
+      return myEntry.getKey();
+    }
+
+    @Override
+    public V getValue() {
+      return unpack(myEntry.getValue());
+    }
+
+    @Override
+    public V setValue(V value) {
+      Object oldValue = myEntry.setValue(pack(value));
+      attach(value);
+      changed();
+      return unpack(oldValue);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) return false;
+      Entry<?, ?> entry = (Entry<?, ?>)o;
+      return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.jetbrains.edu.learning.courseFormat;
+
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import com.jetbrains.edu.learning.courseFormat.tasks.TheoryTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Numbers of all and solved tasks in a lesson, section or course.
+ *
+ * Counters are updated on every task status change (see {@link Task#setStatus(CheckStatus)}),
+ * so progress can be shown without scanning all course tasks.
+ * Theory tasks aren't taken into account in course progress.
+ */
+public class TaskCounters {
+  private volatile int myTasks;
+  private volatile int mySolvedTasks;
+  private volatile int myTasksForProgress;
+  private volatile int mySolvedTasksForProgress;
+
+  TaskCounters() {
+  }
+
+  TaskCounters(@NotNull Iterable<Task> tasks) {
+    for (Task task : tasks) {
+      addTask(task);
+    }
+  }
+
+  void addTask(@NotNull Task task) {
+    myTasks++;
+    if (isForProgress(task)) {
+      myTasksForProgress++;
+    }
+    if (task.getStatus() == CheckStatus.Solved) {
+      addSolved(task, 1);
+    }
+  }
+
+  void statusChanged(@NotNull Task task, @Nullable CheckStatus oldStatus, @Nullable CheckStatus newStatus) {
+    boolean wasSolved = oldStatus == CheckStatus.Solved;
+    boolean isSolved = newStatus == CheckStatus.Solved;
+    if (wasSolved != isSolved) {
+      addSolved(task, isSolved ? 1 : -1);
+    }
+  }
+
+  private void addSolved(@NotNull Task task, int delta) {
+    mySolvedTasks += delta;
+    if (isForProgress(task)) {
+      mySolvedTasksForProgress += delta;
+    }
+  }
+
+  public int getTasks() {
+    return myTasks;
+  }
+
+  public int getSolvedTasks() {
+    return mySolvedTasks;
+  }
+
+  public int getTasksForProgress() {
+    return myTasksForProgress;
+  }
+
+  public int getSolvedTasksForProgress() {
+    return mySolvedTasksForProgress;
+  }
+
+  /**
+   * @return true if all tasks are solved, including theory ones
+   */
+  public boolean isSolved() {
+    return mySolvedTasks == myTasks;
+  }
+
+  public static boolean isForProgress(@NotNull Task task) {
+    return !(task instanceof TheoryTask);
+  }
+}
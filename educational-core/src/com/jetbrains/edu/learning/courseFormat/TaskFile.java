@@ -28,6 +28,8 @@ public class TaskFile extends StudyFile {
   @Expose @SerializedName("placeholders") private List<AnswerPlaceholder> myAnswerPlaceholders = new ArrayList<>();
 
   @Transient private Task myTask;
+  // incremented when placeholders are added, removed or reordered
+  @Transient private transient long myPlaceholdersModificationCount;
 
   public TaskFile() {
   }
@@ -47,6 +49,7 @@ public class TaskFile extends StudyFile {
     for (int i = 0; i < answerPlaceholders.size(); i++) {
       answerPlaceholders.get(i).setIndex(i);
     }
+    myPlaceholdersModificationCount++;
   }
 
   public List<AnswerPlaceholder> getAnswerPlaceholders() {
@@ -55,10 +58,31 @@ public class TaskFile extends StudyFile {
 
   public void setAnswerPlaceholders(List<AnswerPlaceholder> answerPlaceholders) {
     this.myAnswerPlaceholders = answerPlaceholders;
+    placeholdersChanged();
   }
 
   public void addAnswerPlaceholder(AnswerPlaceholder answerPlaceholder) {
     myAnswerPlaceholders.add(answerPlaceholder);
+    placeholdersChanged();
+  }
+
+  public void removeAnswerPlaceholder(AnswerPlaceholder answerPlaceholder) {
+    if (myAnswerPlaceholders.remove(answerPlaceholder)) {
+      placeholdersChanged();
+    }
+  }
+
+  private void placeholdersChanged() {
+    myPlaceholdersModificationCount++;
+    StudyItem.structureChanged(myTask);
+  }
+
+  /**
+   * Placeholders should be added and removed with methods of task file to change this count, see {@link com.jetbrains.edu.learning.EduDocumentListener}
+   */
+  @Transient
+  public long getPlaceholdersModificationCount() {
+    return myPlaceholdersModificationCount;
   }
 
   @Transient
@@ -71,6 +95,13 @@ public class TaskFile extends StudyFile {
     myTask = task;
   }
 
+  @Override
+  protected void modified() {
+    if (myTask != null) {
+      myTask.incModificationStamp();
+    }
+  }
+
   /**
    * @param offset position in editor
    * @return answer placeholder located in specified position or null if there is no task window in this position
@@ -86,6 +117,7 @@ public class TaskFile extends StudyFile {
 
   public void setTrackLengths(boolean trackLengths) {
     myTrackLengths = trackLengths;
+    modified();
   }
 
   public static void copy(@NotNull final TaskFile source, @NotNull final TaskFile target) {
@@ -111,6 +143,7 @@ public class TaskFile extends StudyFile {
 
   public void setUserCreated(boolean userCreated) {
     myUserCreated = userCreated;
+    modified();
   }
 
   public boolean isUserCreated() {
@@ -123,6 +156,7 @@ public class TaskFile extends StudyFile {
 
   public void setTrackChanges(boolean trackChanges) {
     myTrackChanges = trackChanges;
+    modified();
   }
 
   public boolean isHighlightErrors() {
@@ -130,7 +164,9 @@ public class TaskFile extends StudyFile {
   }
 
   public void setHighlightErrors(boolean highlightErrors) {
+    if (myHighlightErrors == highlightErrors) return;
     myHighlightErrors = highlightErrors;
+    modified();
   }
 
   public String getName() {
@@ -139,6 +175,7 @@ public class TaskFile extends StudyFile {
 
   public void setName(String name) {
     myName = name;
+    modified();
   }
 
   public void sortAnswerPlaceholders() {
@@ -146,6 +183,7 @@ public class TaskFile extends StudyFile {
     for (int i = 0; i < myAnswerPlaceholders.size(); i++) {
       myAnswerPlaceholders.get(i).setIndex(i);
     }
+    myPlaceholdersModificationCount++;
   }
 
   public boolean hasFailedPlaceholders() {
@@ -158,10 +196,17 @@ public class TaskFile extends StudyFile {
   }
 
   public boolean isValid(@NotNull String text) {
-    int length = text.length();
+    return isValid(text.length());
+  }
+
+  /**
+   * Use this method instead of {@link #isValid(String)} if there is a document,
+   * to avoid building its whole text
+   */
+  public boolean isValid(int textLength) {
     List<AnswerPlaceholder> placeholders = getAnswerPlaceholders();
     for (AnswerPlaceholder placeholder : placeholders) {
-      if (!placeholder.isValid(length)) return false;
+      if (!placeholder.isValid(textLength)) return false;
     }
     return true;
   }
@@ -0,0 +1,244 @@
+package com.jetbrains.edu.learning.courseFormat;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.ShutDownTracker;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.reference.SoftReference;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Text of task content: task files, additional files and task descriptions.
+ *
+ * Big texts (e.g. images of additional files encoded with base64) aren't kept on heap for the whole session.
+ * Such text is written to a file in IDE system directory in background and after that it's referenced only softly,
+ * so it can be collected under memory pressure and read from disk on the next access.
+ * Compressed copy of the text is kept on heap, so the text is restored from it if the file is deleted or modified by someone else.
+ * File is deleted as soon as its content becomes unreachable, store directory is deleted on exit.
+ *
+ * Content is immutable, equality is based on the text but doesn't read it from disk unless hashes are equal.
+ *
+ * Use {@link Adapter} to serialize fields of this type to json as plain strings.
+ */
+public final class TextContent {
+  private static final Logger LOG = Logger.getInstance(TextContent.class);
+
+  private static final int MIN_STORED_LENGTH = Integer.getInteger("edu.text.content.min.stored.length", 16 * 1024);
+  private static final ExecutorService STORE_EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("TextContent store", 1);
+  private static final TextContent EMPTY = new TextContent("");
+  private static final ReferenceQueue<TextContent> ourCollectedContents = new ReferenceQueue<>();
+  // keeps references to stored contents reachable until their files are deleted
+  private static final Set<StoreFileReference> ourStoreFiles = ContainerUtil.newConcurrentSet();
+  private static final String STORES_DIR = "edu-text-content";
+  private static File ourStoreDir;
+
+  private final int myLength;
+  private final int myHash;
+  // text is held strongly until it's written to disk
+  private volatile String myText;
+  private volatile SoftReference<String> mySoftText;
+  private volatile File myFile;
+  // deflated UTF-8 bytes of the text, set when strong reference to the text is dropped
+  private volatile byte[] myCompressedText;
+
+  private TextContent(@NotNull String text) {
+    myText = text;
+    myLength = text.length();
+    myHash = text.hashCode();
+  }
+
+  @NotNull
+  public static TextContent create(@NotNull String text) {
+    if (text.isEmpty()) {
+      return EMPTY;
+    }
+    TextContent content = new TextContent(text);
+    if (text.length() >= MIN_STORED_LENGTH) {
+      STORE_EXECUTOR.execute(content::store);
+    }
+    return content;
+  }
+
+  @Nullable
+  public static TextContent createNullable(@Nullable String text) {
+    return text == null ? null : create(text);
+  }
+
+  @NotNull
+  public String get() {
+    String text = myText;
+    if (text != null) {
+      return text;
+    }
+    text = SoftReference.dereference(mySoftText);
+    if (text != null) {
+      return text;
+    }
+    text = load();
+    mySoftText = new SoftReference<>(text);
+    return text;
+  }
+
+  private void store() {
+    deleteCollectedFiles();
+    String text = myText;
+    if (text == null) return;
+    byte[] bytes = text.getBytes(CharsetToolkit.UTF8_CHARSET);
+    File file = null;
+    try {
+      file = FileUtil.createTempFile(getStoreDir(), "content", null, true, false);
+      FileUtil.writeToFile(file, bytes);
+      if (file.length() != bytes.length) {
+        throw new IOException("Only " + file.length() + " of " + bytes.length + " bytes are written to " + file);
+      }
+      ourStoreFiles.add(new StoreFileReference(this, file));
+      myFile = file;
+    }
+    catch (IOException e) {
+      // text is restored from the compressed copy
+      LOG.warn("Failed to store text content", e);
+      if (file != null) {
+        FileUtil.delete(file);
+      }
+    }
+    myCompressedText = compress(bytes);
+    mySoftText = new SoftReference<>(text);
+    // strong reference is dropped only when text can be restored
+    myText = null;
+  }
+
+  @NotNull
+  private String load() {
+    File file = myFile;
+    if (file != null) {
+      try {
+        String text = FileUtil.loadFile(file, CharsetToolkit.UTF8_CHARSET);
+        if (text.length() != myLength || text.hashCode() != myHash) {
+          throw new IOException("Content of " + file + " is modified");
+        }
+        return text;
+      }
+      catch (IOException e) {
+        LOG.warn("Failed to load text content from " + file + ", it's restored from memory", e);
+      }
+    }
+    return new String(decompress(myCompressedText), CharsetToolkit.UTF8_CHARSET);
+  }
+
+  @NotNull
+  private static byte[] compress(@NotNull byte[] bytes) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4);
+    try (DeflaterOutputStream deflater = new DeflaterOutputStream(output)) {
+      deflater.write(bytes);
+    }
+    catch (IOException e) {
+      // byte array stream doesn't throw
+      throw new IllegalStateException(e);
+    }
+    return output.toByteArray();
+  }
+
+  @NotNull
+  private static byte[] decompress(@NotNull byte[] bytes) {
+    try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+      return FileUtil.loadBytes(inflater);
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void deleteCollectedFiles() {
+    Reference<? extends TextContent> reference;
+    while ((reference = ourCollectedContents.poll()) != null) {
+      StoreFileReference storeFileReference = (StoreFileReference)reference;
+      ourStoreFiles.remove(storeFileReference);
+      FileUtil.delete(storeFileReference.myFile);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    TextContent content = (TextContent)o;
+    return myLength == content.myLength && myHash == content.myHash && get().equals(content.get());
+  }
+
+  @Override
+  public int hashCode() {
+    return myHash;
+  }
+
+  @Override
+  public String toString() {
+    return get();
+  }
+
+  /**
+   * Store is kept in IDE system directory, not in the temporary one, because temporary files can be cleaned up by OS
+   * while IDE is running
+   */
+  @NotNull
+  private static synchronized File getStoreDir() throws IOException {
+    if (ourStoreDir == null) {
+      File storesDir = new File(PathManager.getSystemPath(), STORES_DIR);
+      // stores of previous sessions which weren't deleted on exit, e.g. because of a crash
+      FileUtil.delete(storesDir);
+      File storeDir = FileUtil.createTempDirectory(storesDir, "store", null, false);
+      ShutDownTracker.getInstance().registerShutdownTask(() -> FileUtil.delete(storeDir));
+      ourStoreDir = storeDir;
+    }
+    return ourStoreDir;
+  }
+
+  private static class StoreFileReference extends PhantomReference<TextContent> {
+    private final File myFile;
+
+    StoreFileReference(@NotNull TextContent content, @NotNull File file) {
+      super(content, ourCollectedContents);
+      myFile = file;
+    }
+  }
+
+  public static class Adapter extends TypeAdapter<TextContent> {
+    @Override
+    public void write(JsonWriter out, TextContent value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+      }
+      else {
+        out.value(value.get());
+      }
+    }
+
+    @Override
+    public TextContent read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return create(in.nextString());
+    }
+  }
+}
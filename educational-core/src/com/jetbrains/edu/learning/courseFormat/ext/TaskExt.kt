@@ -51,13 +51,8 @@ fun Task.getUnsolvedTaskDependencies(): List<Task> {
 
 fun Task.getDependentTasks(): Set<Task> {
   val course = course
-  return course.items.flatMap { item ->
-    when (item) {
-      is Lesson -> item.getTaskList()
-      is Section -> item.lessons.flatMap { it.taskList }
-      else -> emptyList()
-    }
-  }.filterTo(HashSet()) { task ->
+  return course.placeholderDependencyGraph.getDependentTasks(this).filterTo(HashSet()) { task ->
+    // placeholders or task files can be removed without rebuilding the graph
     task.placeholderDependencies.any { it.resolve(course)?.taskFile?.task == this }
   }
 }
@@ -22,6 +22,7 @@ public class ChoiceTask extends Task {
 
   public void setSelectedVariants(List<Integer> selectedVariants) {
     mySelectedVariants = selectedVariants;
+    incModificationStamp();
   }
 
   public boolean isMultipleChoice() {
@@ -30,6 +31,7 @@ public class ChoiceTask extends Task {
 
   public void setMultipleChoice(boolean multipleChoice) {
     myIsMultipleChoice = multipleChoice;
+    incModificationStamp();
   }
 
   public List<String> getChoiceVariants() {
@@ -38,6 +40,7 @@ public class ChoiceTask extends Task {
 
   public void setChoiceVariants(List<String> choiceVariants) {
     myChoiceVariants = choiceVariants;
+    incModificationStamp();
   }
 
   public ChoiceTask(@NotNull final String name) {
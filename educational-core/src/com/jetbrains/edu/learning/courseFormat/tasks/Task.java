@@ -1,11 +1,11 @@
 package com.jetbrains.edu.learning.courseFormat.tasks;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.xmlb.XmlSerializer;
 import com.intellij.util.xmlb.annotations.Transient;
 import com.jetbrains.edu.coursecreator.stepik.StepikChangeRetriever;
 import com.jetbrains.edu.learning.EduUtils;
@@ -15,13 +15,13 @@ import com.jetbrains.edu.learning.courseFormat.ext.TaskExt;
 import com.jetbrains.edu.learning.serialization.SerializationUtils;
 import com.jetbrains.edu.learning.stepik.StepikTaskBuilder;
 import icons.EducationalCoreIcons;
-import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementation of task which contains task files, tests, input file for tests
@@ -46,19 +46,23 @@ public abstract class Task extends StudyItem {
   @SerializedName("task_files")
   @Expose private Map<String, TaskFile> myTaskFiles = new LinkedHashMap<>();
 
+  // texts are kept as TextContent by TaskContentMap
   @SerializedName("test_files")
-  @Expose protected Map<String, String> testsText = new HashMap<>();
+  @Expose protected Map<String, String> testsText = createContentMap(null);
 
   @SerializedName("description_text")
-  @Expose private String descriptionText;
+  @JsonAdapter(TextContent.Adapter.class)
+  @Expose private TextContent descriptionText;
 
   @SerializedName("description_format")
   @Expose private DescriptionFormat descriptionFormat = EduUtils.getDefaultTaskDescriptionFormat();
 
   @SerializedName("additional_files")
-  @Expose protected Map<String, AdditionalFile> additionalFiles = new HashMap<>();
+  @Expose protected Map<String, AdditionalFile> additionalFiles = createContentMap(null);
 
   @Transient private Lesson myLesson;
+  // increased on every change of the task, used to serialize only changed tasks
+  @Transient private final transient AtomicLong myModificationStamp = new AtomicLong();
   @Expose @SerializedName("update_date") private Date myUpdateDate = new Date(0);
 
   @Expose
@@ -77,6 +81,9 @@ public abstract class Task extends StudyItem {
     for (TaskFile taskFile : getTaskFileValues()) {
       taskFile.initTaskFile(this, isRestarted);
     }
+    // maps can be replaced by json deserialization or copying
+    testsText = adoptContentMap(testsText);
+    additionalFiles = adoptContentMap(additionalFiles);
   }
 
   public Map<String, TaskFile> getTaskFiles() {
@@ -86,6 +93,7 @@ public abstract class Task extends StudyItem {
   // Use carefully. taskFiles is supposed to be ordered so use LinkedHashMap
   public void setTaskFiles(Map<String, TaskFile> taskFiles) {
     this.myTaskFiles = taskFiles;
+    structureChanged();
   }
 
   @Override
@@ -96,14 +104,16 @@ public abstract class Task extends StudyItem {
   @Override
   public void setName(String name) {
     this.name = name;
+    structureChanged();
   }
 
   public String getDescriptionText() {
-    return descriptionText;
+    return descriptionText == null ? null : descriptionText.get();
   }
 
   public void setDescriptionText(String descriptionText) {
-    this.descriptionText = descriptionText;
+    this.descriptionText = TextContent.createNullable(descriptionText);
+    incModificationStamp();
   }
 
   public DescriptionFormat getDescriptionFormat() {
@@ -112,6 +122,7 @@ public abstract class Task extends StudyItem {
 
   public void setDescriptionFormat(DescriptionFormat descriptionFormat) {
     this.descriptionFormat = descriptionFormat;
+    incModificationStamp();
   }
 
   public Map<String, String> getTestsText() {
@@ -121,7 +132,8 @@ public abstract class Task extends StudyItem {
   @SuppressWarnings("unused")
   //used for deserialization
   public void setTestsText(Map<String, String> testsText) {
-    this.testsText = testsText;
+    this.testsText = createContentMap(testsText);
+    incModificationStamp();
   }
 
   @NotNull
@@ -132,7 +144,8 @@ public abstract class Task extends StudyItem {
   @SuppressWarnings("unused")
   //used for deserialization
   public void setAdditionalFiles(@NotNull Map<String, AdditionalFile> additionalFiles) {
-    this.additionalFiles = additionalFiles;
+    this.additionalFiles = createContentMap(additionalFiles);
+    incModificationStamp();
   }
 
   public void addTestsTexts(String name, String text) {
@@ -147,6 +160,29 @@ public abstract class Task extends StudyItem {
     additionalFiles.put(name, file);
   }
 
+  @NotNull
+  private <V> TaskContentMap<V> createContentMap(@Nullable Map<String, V> map) {
+    TaskContentMap<V> contentMap = map == null ? new TaskContentMap<>() : new TaskContentMap<>(map);
+    contentMap.setTask(this);
+    return contentMap;
+  }
+
+  @NotNull
+  private <V> Map<String, V> adoptContentMap(@Nullable Map<String, V> map) {
+    if (map instanceof TaskContentMap) {
+      TaskContentMap<V> contentMap = (TaskContentMap<V>)map;
+      if (contentMap.getTask() == this) {
+        return contentMap;
+      }
+      // map of a copy isn't attached to any task yet
+      if (contentMap.getTask() == null) {
+        contentMap.setTask(this);
+        return contentMap;
+      }
+    }
+    return createContentMap(map);
+  }
+
   @Nullable
   public TaskFile getTaskFile(final String name) {
     return name != null ? myTaskFiles.get(name) : null;
@@ -157,12 +193,23 @@ public abstract class Task extends StudyItem {
     taskFile.setTask(this);
     taskFile.setName(name);
     myTaskFiles.put(name, taskFile);
+    structureChanged();
     return taskFile;
   }
 
   public void addTaskFile(@NotNull final TaskFile taskFile) {
     taskFile.setTask(this);
     myTaskFiles.put(taskFile.getName(), taskFile);
+    structureChanged();
+  }
+
+  @Nullable
+  public TaskFile removeTaskFile(@NotNull final String name) {
+    TaskFile taskFile = myTaskFiles.remove(name);
+    if (taskFile != null) {
+      structureChanged();
+    }
+    return taskFile;
   }
 
   @Nullable
@@ -191,7 +238,7 @@ public abstract class Task extends StudyItem {
    * @param wrap if true, text will be wrapped with ancillary information (e.g. to display latex)
    */
   public String getTaskDescription(boolean wrap, @Nullable VirtualFile taskDir) {
-    String taskText = descriptionText;
+    String taskText = getDescriptionText();
     if (!wrap) {
       return taskText;
     }
@@ -225,7 +272,7 @@ public abstract class Task extends StudyItem {
     if (getIndex() != task.getIndex()) return false;
     if (name != null ? !name.equals(task.name) : task.name != null) return false;
     if (myTaskFiles != null ? !myTaskFiles.equals(task.myTaskFiles) : task.myTaskFiles != null) return false;
-    if (descriptionText != null ? !descriptionText.equals(task.descriptionText) : task.descriptionText != null) return false;
+    if (!Objects.equals(descriptionText, task.descriptionText)) return false;
     if (descriptionFormat != null ? !descriptionFormat.equals(task.descriptionFormat) : task.descriptionFormat != null) return false;
     if (testsText != null ? !testsText.equals(task.testsText) : task.testsText != null) return false;
 
@@ -237,7 +284,7 @@ public abstract class Task extends StudyItem {
     int result = name != null ? name.hashCode() : 0;
     result = 31 * result + getIndex();
     result = 31 * result + (myTaskFiles != null ? myTaskFiles.hashCode() : 0);
-    result = 31 * result + (descriptionText != null ? descriptionText.hashCode() : 0);
+    result = 31 * result + Objects.hashCode(descriptionText);
     result = 31 * result + (descriptionFormat != null ? descriptionFormat.hashCode() : 0);
     result = 31 * result + (testsText != null ? testsText.hashCode() : 0);
     return result;
@@ -245,6 +292,7 @@ public abstract class Task extends StudyItem {
 
   public void setStepId(int stepId) {
     myStepId = stepId;
+    structureChanged();
   }
 
   public int getStepId() {
@@ -261,18 +309,43 @@ public abstract class Task extends StudyItem {
         placeholder.setStatus(status);
       }
     }
-    myStatus = status;
+    Runnable statusChange = () -> myStatus = status;
+    if (myLesson != null) {
+      myLesson.changeTaskStatus(this, statusChange);
+    }
+    else {
+      statusChange.run();
+    }
+    incModificationStamp();
+  }
+
+  @Transient
+  public long getModificationStamp() {
+    return myModificationStamp.get();
+  }
+
+  /**
+   * Should be called after modification of task state bypassing setters.
+   * Task files, placeholders, test texts and additional files of the task call it themselves.
+   */
+  public void incModificationStamp() {
+    myModificationStamp.incrementAndGet();
+  }
+
+  @Override
+  protected void modified() {
+    incModificationStamp();
   }
 
   public Task copy() {
-    Element element = XmlSerializer.serialize(this);
-    Task copy = XmlSerializer.deserialize(element, getClass());
+    Task copy = StudyItemCopier.copy(this);
     copy.init(null, null, true);
     return copy;
   }
 
   public void setUpdateDate(Date date) {
     myUpdateDate = date;
+    incModificationStamp();
   }
 
   public Date getUpdateDate() {
@@ -327,6 +400,7 @@ public abstract class Task extends StudyItem {
 
   public void setFeedbackLink(@NotNull FeedbackLink feedbackLink) {
     myFeedbackLink = feedbackLink;
+    incModificationStamp();
   }
 
   @Override
@@ -341,6 +415,12 @@ public abstract class Task extends StudyItem {
     return myLesson.getCourse();
   }
 
+  @Nullable
+  @Override
+  protected Course findCourse() {
+    return myLesson == null ? null : myLesson.getCourse();
+  }
+
   @NotNull
   private Collection<TaskFile> getTaskFileValues() {
     return getTaskFiles().values();
@@ -250,7 +250,7 @@ object GeneratorUtils {
       return
     }
 
-    task.taskFiles.remove(taskFile.name)
+    task.removeTaskFile(taskFile.name)
     val pathPrefix = taskFile.name.substringBeforeLast(VfsUtilCore.VFS_SEPARATOR_CHAR, "")
     val className = publicClassName(project, taskFile, fileType) + "." + fileType.defaultExtension
     taskFile.name = joinPaths(pathPrefix, className)
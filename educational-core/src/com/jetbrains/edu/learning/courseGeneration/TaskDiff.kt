@@ -6,6 +6,7 @@ import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.vfs.VirtualFile
+import com.jetbrains.edu.learning.courseFormat.AdditionalFile
 import com.jetbrains.edu.learning.courseFormat.TaskFile
 import com.jetbrains.edu.learning.courseFormat.ext.getDocument
 import java.io.IOException
@@ -13,6 +14,8 @@ import java.io.IOException
 /**
  * Represent difference between two neighbor tasks in framework lesson.
  *
+ * Diffs don't copy file texts, they are taken from course items when diff is applied or reverted.
+ *
  * Note, initial state and state after sequential invocation of `apply` and `revert` can differ
  */
 interface TaskDiff {
@@ -20,9 +23,14 @@ interface TaskDiff {
   fun revert(project: Project, baseDir: VirtualFile)
 }
 
-fun addFile(path: String, text: String): TaskDiff = FileAdded(path, text)
-fun removeFile(path: String, text: String): TaskDiff = FileRemoved(path, text)
-fun changeFile(path: String, prevText: String, nextText: String): TaskDiff = FileChanged(path, prevText, nextText)
+fun addFile(path: String, text: String): TaskDiff = FileAdded(path) { text }
+fun removeFile(path: String, text: String): TaskDiff = FileRemoved(path) { text }
+fun changeFile(path: String, prevText: String, nextText: String): TaskDiff = FileChanged(path, { prevText }, { nextText })
+
+fun addAdditionalFile(path: String, file: AdditionalFile): TaskDiff = FileAdded(path, file::getText)
+fun removeAdditionalFile(path: String, file: AdditionalFile): TaskDiff = FileRemoved(path, file::getText)
+fun changeAdditionalFile(path: String, prevFile: AdditionalFile, nextFile: AdditionalFile): TaskDiff =
+  FileChanged(path, prevFile::getText, nextFile::getText)
 
 fun addTaskFile(path: String, taskFile: TaskFile): TaskDiff = TaskFileAdded(path, taskFile)
 fun removeTaskFile(path: String, taskFile: TaskFile): TaskDiff = TaskFileRemoved(path, taskFile)
@@ -64,11 +72,11 @@ private abstract class TaskFileDiff(
 
 private class FileAdded(
   private val path: String,
-  private val text: String
+  private val text: () -> String
 ) : TaskDiff {
   override fun apply(project: Project, baseDir: VirtualFile) {
     try {
-      GeneratorUtils.createChildFile(baseDir, path, text)
+      GeneratorUtils.createChildFile(baseDir, path, text())
     } catch (e: IOException) {
       LOG.error("Failed to create file `${baseDir.path}/$path`", e)
     }
@@ -89,7 +97,7 @@ private class FileAdded(
   }
 }
 
-private class FileRemoved(path: String, text: String) : TaskDiff {
+private class FileRemoved(path: String, text: () -> String) : TaskDiff {
 
   private val add: FileAdded = FileAdded(path, text)
 
@@ -99,15 +107,15 @@ private class FileRemoved(path: String, text: String) : TaskDiff {
 
 private class FileChanged(
   private val path: String,
-  private val prevText: String,
-  private val nextText: String
+  private val prevText: () -> String,
+  private val nextText: () -> String
 ) : TaskDiff {
   override fun apply(project: Project, baseDir: VirtualFile) {
-    setText(baseDir, path, nextText)
+    setText(baseDir, path, nextText())
   }
 
   override fun revert(project: Project, baseDir: VirtualFile) {
-    setText(baseDir, path, prevText)
+    setText(baseDir, path, prevText())
   }
 
   companion object {
@@ -131,10 +139,10 @@ private class FileChanged(
 }
 
 private class TaskFileAdded(path: String, nextTaskFile: TaskFile) :
-  TaskFileDiff(FileAdded(path, nextTaskFile.getText()), null, nextTaskFile)
+  TaskFileDiff(FileAdded(path, nextTaskFile::getText), null, nextTaskFile)
 
 private class TaskFileRemoved(path: String, prevTaskFile: TaskFile) :
-  TaskFileDiff(FileRemoved(path, prevTaskFile.getText()), prevTaskFile, null)
+  TaskFileDiff(FileRemoved(path, prevTaskFile::getText), prevTaskFile, null)
 
 private class TaskFileChanged(path: String, prevTaskFile: TaskFile, nextTaskFile: TaskFile) :
-  TaskFileDiff(FileChanged(path, prevTaskFile.getText(), nextTaskFile.getText()), prevTaskFile, nextTaskFile)
+  TaskFileDiff(FileChanged(path, prevTaskFile::getText, nextTaskFile::getText), prevTaskFile, nextTaskFile)
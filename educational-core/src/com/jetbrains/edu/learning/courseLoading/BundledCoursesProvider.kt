@@ -1,21 +1,29 @@
 package com.jetbrains.edu.learning.courseLoading
 
+import com.intellij.ide.plugins.PluginManager
 import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.extensions.PluginId
 import com.intellij.openapi.util.io.FileUtil
 import com.intellij.util.PathUtil
-import com.intellij.util.io.ZipUtil
+import com.intellij.util.containers.ContainerUtil
 import com.jetbrains.edu.learning.CoursesProvider
-import com.jetbrains.edu.learning.EduUtils.getLocalCourse
+import com.jetbrains.edu.learning.EduNames
+import com.jetbrains.edu.learning.EduUtils.getLocalCourseInfo
 import com.jetbrains.edu.learning.courseFormat.Course
 import org.jetbrains.annotations.NonNls
 import java.io.File
 import java.io.IOException
+import java.io.OutputStream
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.*
+import java.util.zip.ZipFile
 
 abstract class BundledCoursesProvider : CoursesProvider {
   override fun loadCourses(): List<Course> {
     val courses = mutableListOf<Course>()
     for (path in getBundledCoursesPaths()) {
-      val localCourse = getLocalCourse(path)
+      val localCourse = getLocalCourseInfo(path)
       if (localCourse == null) {
         LOG.error("Failed to import local course form $path")
         continue
@@ -42,20 +50,91 @@ abstract class BundledCoursesProvider : CoursesProvider {
           return coursesDir
         }
       }
+      if (courseName !in checkedCourses) {
+        // other providers can extract their courses and update stamps concurrently
+        synchronized(EXTRACTION_LOCK) {
+          if (courseName !in checkedCourses) {
+            try {
+              extractIfNeeded(jarFile, coursesDir, courseName)
+              checkedCourses.add(courseName)
+            }
+            catch (e: IOException) {
+              LOG.info("Failed to extract default course", e)
+            }
+          }
+        }
+      }
+      return coursesDir
+    }
+    return File(jarPath, "courses")
+  }
+
+  /**
+   * Course archive is extracted from plugin jar only if it wasn't extracted before by the same plugin version
+   * or if its content was changed.
+   * Archive and stamps are written to temporary files first, so readers never see partially written files.
+   */
+  @Throws(IOException::class)
+  private fun extractIfNeeded(jarFile: File, coursesDir: File, courseName: String) {
+    ZipFile(jarFile).use { zipFile ->
+      val entry = zipFile.getEntry("courses/$courseName")
+                  ?: zipFile.entries().asSequence().find { !it.isDirectory && it.name.endsWith("/$courseName") }
+      if (entry == null) {
+        LOG.info("Failed to find $courseName in $jarFile")
+        return
+      }
+      val courseFile = File(coursesDir, courseName)
+      val stamp = "$pluginVersion:${entry.crc}"
+      val stampsFile = File(coursesDir, EXTRACTED_COURSES_FILE)
+      val stamps = loadStamps(stampsFile)
+      if (courseFile.isFile && courseFile.length() == entry.size && stamps.getProperty(courseName) == stamp) {
+        return
+      }
+      writeAtomically(courseFile) { output ->
+        zipFile.getInputStream(entry).use { input -> FileUtil.copy(input, output) }
+      }
+      stamps.setProperty(courseName, stamp)
+      writeAtomically(stampsFile) { stamps.store(it, null) }
+    }
+  }
+
+  @Throws(IOException::class)
+  private fun writeAtomically(file: File, write: (OutputStream) -> Unit) {
+    val tempFile = FileUtil.createTempFile(file.parentFile, file.name, ".tmp", true, false)
+    try {
+      tempFile.outputStream().use(write)
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    }
+    finally {
+      FileUtil.delete(tempFile)
+    }
+  }
+
+  private fun loadStamps(stampsFile: File): Properties {
+    val stamps = Properties()
+    if (stampsFile.isFile) {
       try {
-        ZipUtil.extract(jarFile, pluginBaseDir) { _, name -> name == courseName }
+        stampsFile.inputStream().use { stamps.load(it) }
       }
       catch (e: IOException) {
-        LOG.info("Failed to extract default course", e)
+        LOG.info("Failed to read $stampsFile", e)
       }
-      return coursesDir
     }
-    return File(jarPath, "courses")
+    return stamps
   }
 
   protected abstract fun getBundledCoursesNames(): List<String>
 
   companion object {
     private val LOG = Logger.getInstance(BundledCoursesProvider::class.java)
+
+    private const val EXTRACTED_COURSES_FILE = "extracted.properties"
+
+    // courses successfully checked in the current session
+    private val checkedCourses: MutableSet<String> = ContainerUtil.newConcurrentSet()
+    private val EXTRACTION_LOCK = Any()
+
+    private val pluginVersion: String
+      get() = PluginManager.getPlugin(PluginId.getId(EduNames.PLUGIN_ID))?.version ?: "unknown"
   }
 }
@@ -49,7 +49,7 @@ class EduSingleFileEditor(
   }
 
   override fun validateTaskFile() {
-    if (!taskFile.isValid(editor.document.text)) {
+    if (!taskFile.isValid(editor.document.textLength)) {
       val panel = JPanel(FlowLayout(FlowLayout.LEFT, 0, 0))
       panel.add(JLabel(BROKEN_SOLUTION_ERROR_TEXT_START))
       val actionLink = ActionLink(ACTION_TEXT, RevertTaskAction())
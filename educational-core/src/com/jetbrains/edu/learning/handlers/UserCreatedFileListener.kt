@@ -11,7 +11,7 @@ class UserCreatedFileListener(project: Project) : EduVirtualFileListener(project
   override fun fileDeleted(event: VirtualFileEvent) {
     val (task, pathInTask, kind) = event.file.fileInfo(project) as? FileInfo.FileInTask ?: return
     when (kind) {
-      TASK_FILE -> task.taskFiles.remove(pathInTask)
+      TASK_FILE -> task.removeTaskFile(pathInTask)
       ADDITIONAL_FILE -> task.additionalFiles.remove(pathInTask)
       TEST_FILE -> task.testsText.remove(pathInTask)
     }
@@ -90,6 +90,17 @@ public abstract class CourseProjectGenerator<S> {
     return true;
   }
 
+  /**
+   * Courses from archives are shown in courses list without their content, so it's loaded only when course project is created
+   */
+  private boolean loadCourseItems() {
+    if (myCourse.getArchivePath() == null) return true;
+    return ProgressManager.getInstance().runProcessWithProgressSynchronously(() -> {
+      ProgressManager.getInstance().getProgressIndicator().setIndeterminate(true);
+      return EduUtils.loadLocalCourseItems(myCourse);
+    }, "Loading Course", false, null);
+  }
+
   protected void afterProjectGenerated(@NotNull Project project, @NotNull S projectSettings) {
     EduUtils.openFirstTask(myCourse, project);
     if (CCUtils.isCourseCreator(project)) {
@@ -114,6 +125,9 @@ public abstract class CourseProjectGenerator<S> {
   @SuppressWarnings("unchecked")
   @Nullable
   public final Project doCreateCourseProject(@NotNull String location, @NotNull Object projectSettings) {
+    if (!loadCourseItems()) {
+      return null;
+    }
     if (!beforeProjectGenerated()) {
       return null;
     }
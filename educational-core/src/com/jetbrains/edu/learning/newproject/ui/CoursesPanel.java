@@ -435,7 +435,7 @@ public class CoursesPanel extends JPanel {
       FileChooser.chooseFile(LocalCourseFileChooser.INSTANCE, null, ImportLocalCourseAction.importLocation(),
                              file -> {
                                String fileName = file.getPath();
-                               Course course = EduUtils.getLocalCourse(fileName);
+                               Course course = EduUtils.getLocalCourseInfo(fileName);
                                if (course == null) {
                                  ImportLocalCourseAction.showInvalidCourseDialog();
                                }
@@ -55,6 +55,23 @@ object PlaceholderDependencyManager {
     }
   }
 
+  /**
+   * Fills placeholders of tasks depending on the solved task directly or through chains of dependencies.
+   * Tasks are updated in topological order, so every task is updated after the tasks it depends on.
+   */
+  @JvmStatic
+  fun propagateAnswers(project: Project, solvedTask: Task) {
+    if (CCUtils.isCourseCreator(project)) {
+      return
+    }
+    val dependentTasks = solvedTask.course.placeholderDependencyGraph.getTransitivelyDependentTasks(solvedTask)
+    for (task in dependentTasks) {
+      // files of tasks which aren't on disk (e.g. in framework lessons) are updated when they are opened
+      if (task.getTaskDir(project) == null) continue
+      updateDependentPlaceholders(project, task)
+    }
+  }
+
   private fun replaceWithListener(project: Project, placeholderToReplace: AnswerPlaceholder, replacementText: String) {
     val file = placeholderToReplace.taskFile.getVirtualFile(project) ?: return
     val document = FileDocumentManager.getInstance().getDocument(file) ?: return
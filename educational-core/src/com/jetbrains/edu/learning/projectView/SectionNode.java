@@ -40,7 +40,7 @@ public class SectionNode extends EduNode {
   private boolean isSolved() {
     final Course course = StudyTaskManager.getInstance(myProject).getCourse();
     if (course != null) {
-      return mySection.getLessons().stream().noneMatch(it -> it.getStatus() != CheckStatus.Solved);
+      return mySection.getTaskCounters().isSolved();
     }
     return true;
   }
@@ -0,0 +1,400 @@
+package com.jetbrains.edu.learning.serialization;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.jetbrains.edu.learning.EduNames;
+import com.jetbrains.edu.learning.EduVersions;
+import com.jetbrains.edu.learning.courseFormat.*;
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import com.jetbrains.edu.learning.serialization.converter.json.JsonLocalCourseConverter;
+import com.jetbrains.edu.learning.serialization.converter.json.local.To8VersionLocalCourseConverter;
+import com.jetbrains.edu.learning.serialization.converter.json.local.ToSeventhVersionLocalCourseConverter;
+import com.jetbrains.edu.learning.stepik.StepikNames;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+
+import static com.jetbrains.edu.learning.serialization.SerializationUtils.ID;
+import static com.jetbrains.edu.learning.serialization.SerializationUtils.LESSONS;
+import static com.jetbrains.edu.learning.serialization.SerializationUtils.Json.*;
+
+/**
+ * Reads and writes local course json (course.json of course archive).
+ *
+ * Gson instances are created once and item types are resolved by reusable {@link TypeAdapter}s,
+ * so course is written directly to {@link JsonWriter} and read from {@link JsonReader} without building tree of the whole course.
+ * Only a single lesson or task is kept as {@link JsonElement} while reading to find out its type.
+ *
+ * Version of json format is written first. It allows to read courses of the current format version in a streaming way,
+ * courses of older versions are read as a tree and migrated with {@link JsonLocalCourseConverter}s.
+ */
+public final class CourseJsonCodec {
+
+  /**
+   * Serializes lessons, sections and tasks, all serialized fields should be marked with {@link com.google.gson.annotations.Expose}
+   */
+  static final Gson ITEM_GSON = new GsonBuilder()
+    .excludeFieldsWithoutExposeAnnotation()
+    .registerTypeAdapterFactory(new ItemAdapterFactory())
+    .create();
+
+  static final Gson COURSE_GSON = new GsonBuilder()
+    .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+    .registerTypeAdapter(StudyItem.class, ITEM_GSON.getAdapter(StudyItem.class))
+    .registerTypeAdapter(Task.class, ITEM_GSON.getAdapter(Task.class))
+    .create();
+
+  private CourseJsonCodec() {
+  }
+
+  @NotNull
+  public static String serialize(@NotNull Course course) {
+    StringWriter writer = new StringWriter();
+    try {
+      write(course, writer);
+    }
+    catch (IOException e) {
+      // StringWriter doesn't throw IOException
+      throw new IllegalStateException(e);
+    }
+    return writer.toString();
+  }
+
+  public static void write(@NotNull Course course, @NotNull Writer writer) throws IOException {
+    JsonWriter jsonWriter = new JsonWriter(writer);
+    jsonWriter.setIndent("  ");
+    // the same settings as Gson uses by default
+    jsonWriter.setLenient(true);
+    jsonWriter.setHtmlSafe(true);
+    jsonWriter.setSerializeNulls(false);
+    JsonWriter versionFirstWriter = new PropertyFirstJsonWriter(jsonWriter, VERSION, EduVersions.JSON_FORMAT_VERSION);
+    //noinspection unchecked
+    TypeAdapter<Course> adapter = (TypeAdapter<Course>)ITEM_GSON.getAdapter(course.getClass());
+    adapter.write(versionFirstWriter, course);
+    jsonWriter.flush();
+  }
+
+  /**
+   * @throws JsonParseException if text isn't a valid course json
+   */
+  @NotNull
+  public static Course deserialize(@NotNull String courseJsonText) {
+    CourseHeader header = readHeader(courseJsonText);
+    Class<? extends Course> courseClass = header.myIsRemote ? RemoteCourse.class : Course.class;
+    if (header.myVersion < EduVersions.JSON_FORMAT_VERSION) {
+      JsonObject courseObject = new JsonParser().parse(courseJsonText).getAsJsonObject();
+      return COURSE_GSON.fromJson(migrate(courseObject, header.myVersion), courseClass);
+    }
+    Course course = COURSE_GSON.fromJson(new JsonReader(new StringReader(courseJsonText)), courseClass);
+    if (course == null) {
+      throw new JsonParseException("Course json is empty");
+    }
+    return course;
+  }
+
+  /**
+   * Reads course properties skipping its lessons and sections, so content of tasks isn't parsed at all.
+   * Resulting course has no items.
+   *
+   * @throws JsonParseException if json isn't a valid course json
+   */
+  @NotNull
+  public static Course deserializeInfo(@NotNull Reader reader) {
+    JsonObject courseObject = new JsonObject();
+    try {
+      JsonReader jsonReader = new JsonReader(reader);
+      TypeAdapter<JsonElement> elementAdapter = COURSE_GSON.getAdapter(JsonElement.class);
+      jsonReader.beginObject();
+      while (jsonReader.hasNext()) {
+        String name = jsonReader.nextName();
+        if (ITEMS.equals(name) || LESSONS.equals(name)) {
+          jsonReader.skipValue();
+        }
+        else {
+          courseObject.add(name, elementAdapter.read(jsonReader));
+        }
+      }
+      jsonReader.endObject();
+    }
+    catch (IOException | IllegalStateException e) {
+      throw new JsonParseException("Failed to read course json", e);
+    }
+    JsonPrimitive jsonVersion = courseObject.getAsJsonPrimitive(VERSION);
+    JsonPrimitive jsonId = courseObject.getAsJsonPrimitive(ID);
+    int version = jsonVersion == null ? 1 : jsonVersion.getAsInt();
+    Class<? extends Course> courseClass = jsonId != null && jsonId.getAsInt() != 0 ? RemoteCourse.class : Course.class;
+    return COURSE_GSON.fromJson(migrate(courseObject, version), courseClass);
+  }
+
+  @NotNull
+  static JsonObject migrate(@NotNull JsonObject courseObject, int version) {
+    while (version < EduVersions.JSON_FORMAT_VERSION) {
+      JsonLocalCourseConverter converter = null;
+      switch (version) {
+        case 6: converter = new ToSeventhVersionLocalCourseConverter(); break;
+        case 7: converter = new To8VersionLocalCourseConverter(); break;
+      }
+      if (converter != null) {
+        courseObject = converter.convert(courseObject);
+      }
+      version++;
+    }
+    return courseObject;
+  }
+
+  /**
+   * Looks for format version and course id skipping other values, usually they are in the beginning of json.
+   * Course id is written before items, so there is no need to look for it after them.
+   */
+  @NotNull
+  private static CourseHeader readHeader(@NotNull String courseJsonText) {
+    CourseHeader header = new CourseHeader();
+    boolean versionFound = false;
+    try (JsonReader reader = new JsonReader(new StringReader(courseJsonText))) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (VERSION.equals(name) && reader.peek() == JsonToken.NUMBER) {
+          header.myVersion = reader.nextInt();
+          versionFound = true;
+        }
+        else if (ID.equals(name) && reader.peek() == JsonToken.NUMBER) {
+          header.myIsRemote = reader.nextInt() != 0;
+        }
+        else if (ITEMS.equals(name) && versionFound) {
+          break;
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+    }
+    catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new JsonParseException("Failed to read course json", e);
+    }
+    return header;
+  }
+
+  private static class CourseHeader {
+    private int myVersion = 1;
+    private boolean myIsRemote;
+  }
+
+  /**
+   * Resolves actual types of {@link StudyItem} and {@link Task} values by type property written before other properties
+   */
+  private static class ItemAdapterFactory implements TypeAdapterFactory {
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if (type.getRawType() == StudyItem.class) {
+        return (TypeAdapter<T>)new StudyItemTypeAdapter(gson);
+      }
+      if (type.getRawType() == Task.class) {
+        return (TypeAdapter<T>)new TaskTypeAdapter(gson);
+      }
+      return null;
+    }
+  }
+
+  private static class StudyItemTypeAdapter extends TypeAdapter<StudyItem> {
+    private final Gson myGson;
+
+    StudyItemTypeAdapter(@NotNull Gson gson) {
+      myGson = gson;
+    }
+
+    @Override
+    public void write(JsonWriter out, StudyItem item) throws IOException {
+      if (item == null) {
+        out.nullValue();
+        return;
+      }
+      String itemType = EduNames.LESSON;
+      if (item instanceof FrameworkLesson) {
+        itemType = FRAMEWORK_TYPE;
+      }
+      else if (item instanceof Section) {
+        itemType = EduNames.SECTION;
+      }
+      writeWithType(myGson, out, item, ITEM_TYPE, itemType);
+    }
+
+    @Override
+    public StudyItem read(JsonReader in) throws IOException {
+      JsonElement element = myGson.getAdapter(JsonElement.class).read(in);
+      if (element == null || element.isJsonNull()) return null;
+      StudyItem item = LessonSectionAdapter.deserializeItem(element, myGson);
+      if (StepikNames.PYCHARM_ADDITIONAL.equals(item.getName())) {
+        item.setName(EduNames.ADDITIONAL_MATERIALS);
+      }
+      return item;
+    }
+  }
+
+  private static class TaskTypeAdapter extends TypeAdapter<Task> {
+    private final Gson myGson;
+
+    TaskTypeAdapter(@NotNull Gson gson) {
+      myGson = gson;
+    }
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+      if (task == null) {
+        out.nullValue();
+        return;
+      }
+      writeWithType(myGson, out, task, TASK_TYPE, task.getTaskType());
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+      JsonElement element = myGson.getAdapter(JsonElement.class).read(in);
+      if (element == null || element.isJsonNull()) return null;
+      return doDeserialize(element, myGson);
+    }
+  }
+
+  private static void writeWithType(@NotNull Gson gson, @NotNull JsonWriter out, @NotNull Object value,
+                                    @NotNull String typeProperty, @NotNull String type) throws IOException {
+    //noinspection unchecked
+    TypeAdapter<Object> adapter = (TypeAdapter<Object>)gson.getAdapter(value.getClass());
+    adapter.write(new PropertyFirstJsonWriter(out, typeProperty, type), value);
+  }
+
+  /**
+   * Writes given property into the beginning of the first written object, all other calls are delegated to original writer.
+   */
+  private static class PropertyFirstJsonWriter extends JsonWriter {
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+      @Override
+      public void write(@NotNull char[] buffer, int offset, int counter) {
+        throw new AssertionError();
+      }
+
+      @Override
+      public void flush() {
+        throw new AssertionError();
+      }
+
+      @Override
+      public void close() {
+        throw new AssertionError();
+      }
+    };
+
+    private final JsonWriter myOut;
+    private final String myName;
+    private final Object myValue;
+    private boolean myIsPropertyWritten;
+
+    PropertyFirstJsonWriter(@NotNull JsonWriter out, @NotNull String name, @NotNull Object value) {
+      super(UNWRITABLE_WRITER);
+      myOut = out;
+      myName = name;
+      myValue = value;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+      myOut.beginObject();
+      if (!myIsPropertyWritten) {
+        myIsPropertyWritten = true;
+        myOut.name(myName);
+        if (myValue instanceof Number) {
+          myOut.value((Number)myValue);
+        }
+        else {
+          myOut.value(myValue.toString());
+        }
+      }
+      return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+      myOut.endObject();
+      return this;
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+      myOut.beginArray();
+      return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+      myOut.endArray();
+      return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+      myOut.name(name);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+      myOut.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+      myOut.jsonValue(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+      myOut.nullValue();
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+      myOut.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+      myOut.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+      myOut.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+      myOut.value(value);
+      return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+      myOut.value(value);
+      return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      myOut.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      myOut.close();
+    }
+  }
+}
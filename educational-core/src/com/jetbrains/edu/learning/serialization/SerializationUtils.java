@@ -13,9 +13,6 @@ import com.jetbrains.edu.learning.authUtils.TokenInfo;
 import com.jetbrains.edu.learning.checkio.courseFormat.CheckiOCourse;
 import com.jetbrains.edu.learning.courseFormat.*;
 import com.jetbrains.edu.learning.courseFormat.tasks.*;
-import com.jetbrains.edu.learning.serialization.converter.json.JsonLocalCourseConverter;
-import com.jetbrains.edu.learning.serialization.converter.json.local.To8VersionLocalCourseConverter;
-import com.jetbrains.edu.learning.serialization.converter.json.local.ToSeventhVersionLocalCourseConverter;
 import com.jetbrains.edu.learning.serialization.converter.xml.*;
 import com.jetbrains.edu.learning.stepik.StepikNames;
 import com.jetbrains.edu.learning.stepik.hyperskill.courseFormat.HyperskillCourse;
@@ -445,34 +442,15 @@ public class SerializationUtils {
 
       @Override
       public JsonElement serialize(StudyItem item, Type type, JsonSerializationContext context) {
-        Gson gson = new GsonBuilder().setPrettyPrinting().registerTypeAdapter(Task.class, new TaskAdapter())
-          .excludeFieldsWithoutExposeAnnotation().create();
-        JsonElement tree = gson.toJsonTree(item);
-        final JsonObject jsonItem = tree.getAsJsonObject();
-        String itemType = EduNames.LESSON;
-        if (item instanceof FrameworkLesson) {
-          itemType = FRAMEWORK_TYPE;
-        }
-        else if (item instanceof Section) {
-          itemType = EduNames.SECTION;
-        }
-        jsonItem.add(ITEM_TYPE, new JsonPrimitive(itemType));
-        return jsonItem;
+        return CourseJsonCodec.ITEM_GSON.toJsonTree(item, StudyItem.class);
       }
 
       @Override
       public StudyItem deserialize(JsonElement json, Type type, JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
-        Gson gson = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation()
-            .registerTypeAdapter(Task.class, new TaskAdapter()).registerTypeAdapter(StudyItem.class, new LessonSectionAdapter()).create();
-        final StudyItem item = deserializeItem(json, gson);
-        final String name = item.getName();
-        if (StepikNames.PYCHARM_ADDITIONAL.equals(name)) {
-          item.setName(EduNames.ADDITIONAL_MATERIALS);
-        }
-        return item;
+        return CourseJsonCodec.ITEM_GSON.fromJson(json, StudyItem.class);
       }
 
-      private static StudyItem deserializeItem(@NotNull JsonElement json, @NotNull Gson gson) {
+      static StudyItem deserializeItem(@NotNull JsonElement json, @NotNull Gson gson) {
         JsonObject object = json.getAsJsonObject();
         if (!object.has(ITEM_TYPE)) {
           return gson.fromJson(object, Lesson.class);
@@ -488,17 +466,14 @@ public class SerializationUtils {
       }
     }
 
+    /**
+     * Consider using {@link CourseJsonCodec} to read and write course json directly
+     */
     public static class CourseAdapter implements JsonSerializer<Course>, JsonDeserializer<Course> {
 
       @Override
       public JsonElement serialize(Course src, Type typeOfSrc, JsonSerializationContext context) {
-        final Gson gson = new GsonBuilder()
-          .setPrettyPrinting()
-          .excludeFieldsWithoutExposeAnnotation()
-          .registerTypeAdapter(StudyItem.class, new SerializationUtils.Json.LessonSectionAdapter())
-          .registerTypeAdapter(Task.class, new SerializationUtils.Json.TaskAdapter())
-          .create();
-        JsonElement element = gson.toJsonTree(src, typeOfSrc);
+        JsonElement element = CourseJsonCodec.ITEM_GSON.toJsonTree(src, typeOfSrc);
         if (element.isJsonObject()) {
           element.getAsJsonObject().addProperty(VERSION, EduVersions.JSON_FORMAT_VERSION);
         }
@@ -509,30 +484,8 @@ public class SerializationUtils {
       public Course deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
         JsonObject jsonObject = json.getAsJsonObject();
         JsonPrimitive jsonVersion = jsonObject.getAsJsonPrimitive(VERSION);
-        int version;
-        if (jsonVersion == null) {
-          version = 1;
-        } else {
-          version = jsonVersion.getAsInt();
-        }
-
-        while (version < EduVersions.JSON_FORMAT_VERSION) {
-          JsonLocalCourseConverter converter = null;
-          switch (version) {
-            case 6: converter = new ToSeventhVersionLocalCourseConverter(); break;
-            case 7: converter = new To8VersionLocalCourseConverter(); break;
-          }
-          if (converter != null) {
-            jsonObject = converter.convert(jsonObject);
-          }
-          version++;
-        }
-        Gson gson = new GsonBuilder()
-          .registerTypeAdapter(Task.class, new SerializationUtils.Json.TaskAdapter())
-          .registerTypeAdapter(StudyItem.class, new SerializationUtils.Json.LessonSectionAdapter())
-          .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-          .create();
-        return gson.fromJson(jsonObject, typeOfT);
+        int version = jsonVersion == null ? 1 : jsonVersion.getAsInt();
+        return CourseJsonCodec.COURSE_GSON.fromJson(CourseJsonCodec.migrate(jsonObject, version), typeOfT);
       }
     }
 
@@ -540,14 +493,12 @@ public class SerializationUtils {
 
       @Override
       public JsonElement serialize(Task src, Type typeOfSrc, JsonSerializationContext context) {
-        Gson gson = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation().create();
-        return serializeWithTaskType(src, gson);
+        return CourseJsonCodec.ITEM_GSON.toJsonTree(src, Task.class);
       }
 
       @Override
       public Task deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        Gson gson = new GsonBuilder().setPrettyPrinting().excludeFieldsWithoutExposeAnnotation().create();
-        return doDeserialize(json, gson);
+        return CourseJsonCodec.ITEM_GSON.fromJson(json, Task.class);
       }
     }
 
@@ -0,0 +1,330 @@
+package com.jetbrains.edu.learning.serialization;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.JDOMUtil;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.util.xmlb.SerializationFilter;
+import com.intellij.util.xmlb.XmlSerializer;
+import com.jetbrains.edu.learning.EduNames;
+import com.jetbrains.edu.learning.courseFormat.*;
+import com.jetbrains.edu.learning.courseFormat.tasks.Task;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static com.jetbrains.edu.learning.serialization.SerializationUtils.ITEMS;
+import static com.jetbrains.edu.learning.serialization.SerializationUtils.Xml.*;
+
+/**
+ * Serializes course of a project in shards: course structure is kept in the state of {@code StudyTaskManager}
+ * and every task is stored in its own file in {@code .idea/edu/tasks}, task lists of lessons contain only keys of these files.
+ *
+ * Task is serialized again only if its modification stamp was changed since the previous save (see {@link Task#getModificationStamp()}),
+ * and its file is rewritten only if its content was changed, so saving of a big course costs serialization of its structure
+ * and modified tasks. Only keys, stamps and content digests of tasks are kept between saves.
+ * Course creator modifies tasks bypassing setters, so tasks of such courses are serialized on every save.
+ * Task file contains the whole task including its texts, all task files are read on load.
+ *
+ * Task file is deleted only when neither the current state nor the state written to {@link EduNames#STUDY_PROJECT_XML_PATH}
+ * references it, so the state on disk never refers to deleted files.
+ *
+ * If there is no project directory, tasks are serialized inline.
+ */
+public class ShardedCourseSerializer {
+  private static final Logger LOG = Logger.getInstance(ShardedCourseSerializer.class);
+
+  private static final String TASK_SHARD = "TaskShard";
+  private static final String KEY = "key";
+  private static final String TASKS_DIR = "/.idea/edu/tasks";
+  private static final String SHARD_EXTENSION = ".xml";
+  private static final SerializationFilter SKIP_TASKS = (accessor, bean) -> !(bean instanceof Lesson && TASK_LIST.equals(accessor.getName()));
+
+  @Nullable private final File myTasksDir;
+  @Nullable private final File myStateFile;
+  private Map<Task, Shard> myShards = new IdentityHashMap<>();
+  // keys referenced by the previously serialized or loaded state
+  private Set<String> myPreviousKeys = new HashSet<>();
+  // there can be files which aren't referenced by the current state: left by previous sessions
+  // or referenced only by the state on disk which isn't rewritten yet
+  private boolean myCleanupNeeded = true;
+
+  public ShardedCourseSerializer(@Nullable String projectBasePath) {
+    myTasksDir = projectBasePath == null ? null : new File(projectBasePath + TASKS_DIR);
+    myStateFile = projectBasePath == null ? null : new File(projectBasePath + EduNames.STUDY_PROJECT_XML_PATH);
+  }
+
+  @NotNull
+  public synchronized Element serialize(@NotNull Course course) {
+    Element courseElement = new Element(course.getClass().getSimpleName());
+    XmlSerializer.serializeInto(course, courseElement, SKIP_TASKS);
+    Map<Task, Shard> shards = new IdentityHashMap<>();
+    if (!addTasks(courseElement, course, course.isStudy(), shards)) {
+      // shouldn't happen, but it's better to save the whole course than to lose tasks
+      LOG.warn("Failed to serialize course in shards");
+      myShards = new IdentityHashMap<>();
+      courseElement = new Element(course.getClass().getSimpleName());
+      XmlSerializer.serializeInto(course, courseElement);
+      return courseElement;
+    }
+    myShards = shards;
+    deleteUnusedShards();
+    return courseElement;
+  }
+
+  /**
+   * Replaces references to task files in the state with their content.
+   * State isn't modified if any of the task files can't be read.
+   *
+   * @return keys of loaded task files in the order of tasks in the state
+   * @throws IOException if a task file referenced by the state is missing or can't be read,
+   * the state can't be loaded without losing tasks in this case
+   */
+  @NotNull
+  public List<String> resolveShards(@NotNull Element state) throws IOException {
+    List<Element> shardElements = new ArrayList<>();
+    collectShardElements(state, shardElements);
+    if (shardElements.isEmpty()) {
+      return Collections.emptyList();
+    }
+    if (myTasksDir == null) {
+      throw new IOException("Tasks of the course are stored in files, but project directory is unknown");
+    }
+    List<String> keys = new ArrayList<>();
+    List<Element> taskElements = new ArrayList<>();
+    for (Element shardElement : shardElements) {
+      String key = shardElement.getAttributeValue(KEY);
+      if (key == null) {
+        throw new IOException("Task file isn't specified");
+      }
+      keys.add(key);
+      taskElements.add(loadShard(key));
+    }
+    for (int i = 0; i < shardElements.size(); i++) {
+      Element shardElement = shardElements.get(i);
+      Element parent = shardElement.getParentElement();
+      parent.setContent(parent.indexOf(shardElement), taskElements.get(i));
+    }
+    synchronized (this) {
+      myPreviousKeys = new HashSet<>(keys);
+      myCleanupNeeded = true;
+    }
+    return keys;
+  }
+
+  /**
+   * Associates tasks of deserialized course with files they were loaded from, so unmodified tasks aren't written again.
+   * Should be called after deserialization and initialization of the state resolved by {@link #resolveShards(Element)}
+   * with keys returned by it, before any modification of the course.
+   */
+  public synchronized void courseLoaded(@NotNull Course course, @NotNull List<String> keys) {
+    List<Task> tasks = new ArrayList<>();
+    collectTasks(course, tasks);
+    myShards = new IdentityHashMap<>();
+    if (tasks.size() != keys.size()) return;
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      myShards.put(task, new Shard(keys.get(i), task.getModificationStamp(), null));
+    }
+  }
+
+  private static void collectShardElements(@NotNull Element element, @NotNull List<Element> shardElements) {
+    for (Element child : element.getChildren()) {
+      if (TASK_SHARD.equals(child.getName())) {
+        shardElements.add(child);
+      }
+      else {
+        collectShardElements(child, shardElements);
+      }
+    }
+  }
+
+  private static void collectTasks(@NotNull ItemContainer container, @NotNull List<Task> tasks) {
+    for (StudyItem item : container.getItems()) {
+      if (item instanceof ItemContainer) {
+        collectTasks((ItemContainer)item, tasks);
+      }
+      else if (item instanceof Lesson) {
+        tasks.addAll(((Lesson)item).getTaskList());
+      }
+    }
+  }
+
+  private boolean addTasks(@NotNull Element containerElement,
+                           @NotNull ItemContainer container,
+                           boolean reuseShards,
+                           @NotNull Map<Task, Shard> shards) {
+    List<Element> itemElements = getItemElements(containerElement);
+    List<StudyItem> items = container.getItems();
+    if (itemElements == null || itemElements.size() != items.size()) {
+      return false;
+    }
+    for (int i = 0; i < items.size(); i++) {
+      StudyItem item = items.get(i);
+      Element itemElement = itemElements.get(i);
+      if (item instanceof ItemContainer) {
+        if (!addTasks(itemElement, (ItemContainer)item, reuseShards, shards)) {
+          return false;
+        }
+      }
+      else if (item instanceof Lesson) {
+        List<Element> taskElements = new ArrayList<>();
+        for (Task task : ((Lesson)item).getTaskList()) {
+          taskElements.add(getTaskElement(task, reuseShards, shards));
+        }
+        addChildList(itemElement, TASK_LIST, taskElements);
+      }
+    }
+    return true;
+  }
+
+  @Nullable
+  private static List<Element> getItemElements(@NotNull Element containerElement) {
+    try {
+      return getChildList(containerElement, ITEMS, true);
+    }
+    catch (StudyUnrecognizedFormatException e) {
+      return null;
+    }
+  }
+
+  @NotNull
+  private Element getTaskElement(@NotNull Task task, boolean reuseShards, @NotNull Map<Task, Shard> shards) {
+    if (myTasksDir == null) {
+      return XmlSerializer.serialize(task);
+    }
+    // stamp is read before serialization, so concurrent changes are saved next time
+    long modificationStamp = task.getModificationStamp();
+    Shard shard = myShards.get(task);
+    if (shard == null || !reuseShards || shard.myModificationStamp != modificationStamp) {
+      Element taskElement = XmlSerializer.serialize(task);
+      byte[] content = JDOMUtil.write(taskElement, "\n").getBytes(CharsetToolkit.UTF8_CHARSET);
+      byte[] digest = digest(content);
+      String key = shard == null ? UUID.randomUUID().toString() : shard.myKey;
+      if (shard == null || !Arrays.equals(shard.myDigest, digest)) {
+        try {
+          writeShard(key, content);
+        }
+        catch (IOException e) {
+          LOG.warn("Failed to save task " + task.getName() + ", it's saved inline", e);
+          return taskElement;
+        }
+      }
+      shard = new Shard(key, modificationStamp, digest);
+    }
+    shards.put(task, shard);
+    Element shardElement = new Element(TASK_SHARD);
+    shardElement.setAttribute(KEY, shard.myKey);
+    return shardElement;
+  }
+
+  private void writeShard(@NotNull String key, @NotNull byte[] content) throws IOException {
+    File file = getShardFile(key);
+    File tempFile = new File(file.getPath() + ".tmp");
+    FileUtil.writeToFile(tempFile, content);
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  @NotNull
+  private Element loadShard(@NotNull String key) throws IOException {
+    File file = getShardFile(key);
+    try {
+      return JDOMUtil.load(file);
+    }
+    catch (JDOMException e) {
+      throw new IOException("Failed to load task from " + file, e);
+    }
+  }
+
+  /**
+   * State returned by {@link #serialize(Course)} isn't necessarily written to disk (e.g. save can be skipped or interrupted),
+   * so files which the current state doesn't reference are deleted only if the state on disk doesn't reference them too.
+   */
+  private void deleteUnusedShards() {
+    if (myTasksDir == null || myStateFile == null) return;
+    Set<String> keys = new HashSet<>();
+    for (Shard shard : myShards.values()) {
+      keys.add(shard.myKey);
+    }
+    boolean keysRemoved = !keys.containsAll(myPreviousKeys);
+    myPreviousKeys = keys;
+    if (!keysRemoved && !myCleanupNeeded) return;
+
+    Set<String> savedKeys = loadSavedKeys();
+    if (savedKeys == null) {
+      myCleanupNeeded = true;
+      return;
+    }
+    File[] files = myTasksDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        String key = FileUtil.getNameWithoutExtension(file);
+        if (!keys.contains(key) && !savedKeys.contains(key)) {
+          FileUtil.delete(file);
+        }
+      }
+    }
+    // files referenced only by the state on disk are deleted when the current state is written
+    myCleanupNeeded = !keys.containsAll(savedKeys);
+  }
+
+  /**
+   * @return keys referenced by the state on disk or null if it can't be read
+   */
+  @Nullable
+  private Set<String> loadSavedKeys() {
+    if (myStateFile == null || !myStateFile.exists()) {
+      return Collections.emptySet();
+    }
+    try {
+      List<Element> shardElements = new ArrayList<>();
+      collectShardElements(JDOMUtil.load(myStateFile), shardElements);
+      Set<String> keys = new HashSet<>();
+      for (Element shardElement : shardElements) {
+        keys.add(shardElement.getAttributeValue(KEY));
+      }
+      return keys;
+    }
+    catch (IOException | JDOMException e) {
+      LOG.warn("Failed to read " + myStateFile + ", unused task files aren't deleted", e);
+      return null;
+    }
+  }
+
+  @NotNull
+  private File getShardFile(@NotNull String key) {
+    return new File(myTasksDir, key + SHARD_EXTENSION);
+  }
+
+  @NotNull
+  private static byte[] digest(@NotNull byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA-1").digest(content);
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Shard {
+    private final String myKey;
+    private final long myModificationStamp;
+    // null if content of the file is unknown
+    @Nullable private final byte[] myDigest;
+
+    Shard(@NotNull String key, long modificationStamp, @Nullable byte[] digest) {
+      myKey = key;
+      myModificationStamp = modificationStamp;
+      myDigest = digest;
+    }
+  }
+}
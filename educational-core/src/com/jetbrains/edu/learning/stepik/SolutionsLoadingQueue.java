@@ -0,0 +1,115 @@
+package com.jetbrains.edu.learning.stepik;
+
+import com.intellij.openapi.application.ApplicationManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Loads task solutions with a limited number of concurrent requests.
+ *
+ * Solutions are loaded in the order they were submitted, except for prioritized ones:
+ * the most recently prioritized task (e.g. the one user has just opened) is loaded first.
+ */
+class SolutionsLoadingQueue {
+  private static final int MAX_CONCURRENT_LOADINGS = Integer.getInteger("edu.stepik.solutions.max.parallel.requests", 4);
+
+  private final Object myLock = new Object();
+  private final PriorityQueue<LoadingTask> myQueue = new PriorityQueue<>();
+  private final Map<Integer, LoadingTask> myTasks = new HashMap<>();
+  private int myRunningWorkers;
+  private int myLastPriority;
+
+  /**
+   * Adds task to the queue. Call {@link #start()} to start loading.
+   */
+  void submit(int stepId, @NotNull Callable<Boolean> loader) {
+    synchronized (myLock) {
+      LoadingTask task = new LoadingTask(loader, myTasks.size());
+      myTasks.put(stepId, task);
+      myQueue.add(task);
+    }
+  }
+
+  void start() {
+    synchronized (myLock) {
+      while (myRunningWorkers < MAX_CONCURRENT_LOADINGS && myRunningWorkers < myQueue.size()) {
+        myRunningWorkers++;
+        ApplicationManager.getApplication().executeOnPooledThread(this::runWorker);
+      }
+    }
+  }
+
+  /**
+   * Moves task with given step id to the head of the queue if its loading isn't started yet
+   */
+  void prioritize(int stepId) {
+    synchronized (myLock) {
+      LoadingTask task = myTasks.get(stepId);
+      if (task != null && myQueue.remove(task)) {
+        task.myPriority = ++myLastPriority;
+        myQueue.add(task);
+      }
+    }
+  }
+
+  @Nullable
+  Future<Boolean> getFuture(int stepId) {
+    synchronized (myLock) {
+      return myTasks.get(stepId);
+    }
+  }
+
+  @NotNull
+  List<Future<Boolean>> getFutures() {
+    synchronized (myLock) {
+      return new ArrayList<>(myTasks.values());
+    }
+  }
+
+  void cancelAll() {
+    synchronized (myLock) {
+      myQueue.clear();
+      for (LoadingTask task : myTasks.values()) {
+        task.cancel(true);
+      }
+      myTasks.clear();
+    }
+  }
+
+  private void runWorker() {
+    while (true) {
+      LoadingTask task;
+      synchronized (myLock) {
+        task = myQueue.poll();
+        if (task == null) {
+          myRunningWorkers--;
+          return;
+        }
+      }
+      task.run();
+    }
+  }
+
+  private static class LoadingTask extends FutureTask<Boolean> implements Comparable<LoadingTask> {
+    private final int myOrder;
+    private int myPriority;
+
+    LoadingTask(@NotNull Callable<Boolean> loader, int order) {
+      super(loader);
+      myOrder = order;
+    }
+
+    @Override
+    public int compareTo(@NotNull LoadingTask other) {
+      if (myPriority != other.myPriority) {
+        return Integer.compare(other.myPriority, myPriority);
+      }
+      return Integer.compare(myOrder, other.myOrder);
+    }
+  }
+}
@@ -66,7 +66,9 @@ public class StepikAuthorizedClient {
                                     @NotNull final Class<T> container,
                                     @Nullable Map<Key, Object> params) throws IOException {
     final CloseableHttpClient client = getHttpClient();
-    return client == null ? null : StepikClient.getFromStepik(link, container, client, params);
+    final StepikUser user = EduSettings.getInstance().getUser();
+    if (client == null) return null;
+    return StepikClient.getFromStepik(link, container, client, params, user == null ? null : getCacheOwner(user));
   }
 
   /*
@@ -102,13 +104,18 @@ public class StepikAuthorizedClient {
    * This method should be used only in project generation while project is not available.
    */
   public static <T> T getFromStepik(String link, final Class<T> container, @NotNull final StepikUser stepikUser) throws IOException {
-    return StepikClient.getFromStepik(link, container, getHttpClient(stepikUser));
+    return getFromStepik(link, container, stepikUser, null);
   }
 
   public static <T> T getFromStepik(String link, final Class<T> container,
                                     @NotNull final StepikUser stepikUser,
                                     @Nullable Map<Key, Object> params) throws IOException {
-    return StepikClient.getFromStepik(link, container, getHttpClient(stepikUser), params);
+    return StepikClient.getFromStepik(link, container, getHttpClient(stepikUser), params, getCacheOwner(stepikUser));
+  }
+
+  @NotNull
+  private static String getCacheOwner(@NotNull StepikUser user) {
+    return String.valueOf(user.getId());
   }
 
   @NotNull
@@ -5,6 +5,7 @@ import com.intellij.lang.Language;
 import com.intellij.lang.LanguageCommenters;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.edu.learning.EduUtils;
@@ -34,7 +35,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class StepikCheckerConnector {
   public static final String EDU_TOOLS_COMMENT = " Posted from EduTools plugin\n";
@@ -88,7 +89,7 @@ public class StepikCheckerConnector {
     request.setConfig(requestConfig);
   }
 
-  public static CheckResult checkChoiceTask(@NotNull ChoiceTask task, @NotNull StepikUser user) {
+  public static CheckResult checkChoiceTask(@NotNull ChoiceTask task, @NotNull StepikUser user, @NotNull ProgressIndicator indicator) {
     if (task.getSelectedVariants().isEmpty()) return new CheckResult(CheckStatus.Failed, "No variants selected");
     final StepikWrappers.AttemptWrapper.Attempt attempt = getAttemptForStep(task.getStepId(), user.getId());
 
@@ -100,7 +101,7 @@ public class StepikCheckerConnector {
       if (!isActiveAttempt) return new CheckResult(CheckStatus.Failed, "Your solution is out of date. Please try again");
       final StepikWrappers.SubmissionToPostWrapper wrapper = new StepikWrappers.SubmissionToPostWrapper(String.valueOf(attemptId),
                                                                                                         createChoiceTaskAnswerArray(task));
-      final CheckResult result = doCheck(wrapper, attemptId, user.getId());
+      final CheckResult result = doCheck(wrapper, attemptId, user.getId(), indicator);
       if (result.getStatus() == CheckStatus.Failed) {
         try {
           createNewAttempt(task.getStepId());
@@ -134,7 +135,10 @@ public class StepikCheckerConnector {
     return answer;
   }
 
-  public static CheckResult checkCodeTask(@NotNull Project project, @NotNull Task task, @NotNull StepikUser user) {
+  public static CheckResult checkCodeTask(@NotNull Project project,
+                                          @NotNull Task task,
+                                          @NotNull StepikUser user,
+                                          @NotNull ProgressIndicator indicator) {
     int attemptId = -1;
     try {
       attemptId = getAttemptId(task);
@@ -153,7 +157,7 @@ public class StepikCheckerConnector {
         assert defaultLanguage != null : ("Default Stepik language not found for: " + courseLanguage.getDisplayName());
         final StepikWrappers.SubmissionToPostWrapper submissionToPost =
           new StepikWrappers.SubmissionToPostWrapper(String.valueOf(attemptId), defaultLanguage, answer);
-        return doCheck(submissionToPost, attemptId, user.getId());
+        return doCheck(submissionToPost, attemptId, user.getId(), indicator);
       }
     }
     else {
@@ -163,12 +167,21 @@ public class StepikCheckerConnector {
   }
 
   private static CheckResult doCheck(@NotNull StepikWrappers.SubmissionToPostWrapper submission,
-                                     int attemptId, int userId) {
+                                     int attemptId, int userId, @NotNull ProgressIndicator indicator) {
     final CloseableHttpClient client = StepikAuthorizedClient.getHttpClient();
     if (client != null) {
       StepikWrappers.ResultSubmissionWrapper wrapper = postResultsForCheck(client, submission);
       if (wrapper != null) {
-        wrapper = getCheckResults(client, wrapper, attemptId, userId);
+        try {
+          wrapper = StepikEvaluationTracker.waitForEvaluation(wrapper, () -> getSubmission(client, attemptId, userId), indicator);
+        }
+        catch (TimeoutException e) {
+          LOG.warn(e.getMessage());
+          return new CheckResult(CheckStatus.Unchecked, "Stepik didn't finish evaluation of the solution in time");
+        }
+        if (wrapper == null) {
+          return new CheckResult(CheckStatus.Unchecked, "Can't get check results for Stepik");
+        }
         if (wrapper.submissions.length > 0) {
           final String status = wrapper.submissions[0].status;
           final String hint = wrapper.submissions[0].hint;
@@ -216,32 +229,26 @@ public class StepikCheckerConnector {
     return null;
   }
 
-  @NotNull
-  private static StepikWrappers.ResultSubmissionWrapper getCheckResults(@NotNull CloseableHttpClient client,
-                                                                        @NotNull StepikWrappers.ResultSubmissionWrapper wrapper,
-                                                                        int attemptId,
-                                                                        int userId) {
+  @Nullable
+  private static StepikWrappers.ResultSubmissionWrapper getSubmission(@NotNull CloseableHttpClient client, int attemptId, int userId) {
     try {
-      while (wrapper.submissions.length == 1 && wrapper.submissions[0].status.equals("evaluation")) {
-        TimeUnit.MILLISECONDS.sleep(500);
-        final URI submissionURI = new URIBuilder(StepikNames.STEPIK_API_URL + StepikNames.SUBMISSIONS)
-          .addParameter("attempt", String.valueOf(attemptId))
-          .addParameter("order", "desc")
-          .addParameter("user", String.valueOf(userId))
-          .build();
-        final HttpGet httpGet = new HttpGet(submissionURI);
-        setTimeout(httpGet);
-        final CloseableHttpResponse httpResponse = client.execute(httpGet);
-        final HttpEntity entity = httpResponse.getEntity();
-        final String entityString = EntityUtils.toString(entity);
-        EntityUtils.consume(entity);
-        wrapper = new Gson().fromJson(entityString, StepikWrappers.ResultSubmissionWrapper.class);
-      }
+      final URI submissionURI = new URIBuilder(StepikNames.STEPIK_API_URL + StepikNames.SUBMISSIONS)
+        .addParameter("attempt", String.valueOf(attemptId))
+        .addParameter("order", "desc")
+        .addParameter("user", String.valueOf(userId))
+        .build();
+      final HttpGet httpGet = new HttpGet(submissionURI);
+      setTimeout(httpGet);
+      final CloseableHttpResponse httpResponse = client.execute(httpGet);
+      final HttpEntity entity = httpResponse.getEntity();
+      final String entityString = EntityUtils.toString(entity);
+      EntityUtils.consume(entity);
+      return new Gson().fromJson(entityString, StepikWrappers.ResultSubmissionWrapper.class);
     }
-    catch (InterruptedException | URISyntaxException | IOException e) {
+    catch (URISyntaxException | IOException e) {
       LOG.warn(e.getMessage());
     }
-    return wrapper;
+    return null;
   }
 
   private static int getAttemptId(@NotNull Task task) throws IOException {
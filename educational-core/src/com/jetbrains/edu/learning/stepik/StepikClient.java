@@ -3,6 +3,7 @@ package com.jetbrains.edu.learning.stepik;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.Key;
 import com.intellij.util.PlatformUtils;
@@ -22,6 +23,7 @@ import org.apache.http.StatusLine;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.DefaultConnectionReuseStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -33,12 +35,18 @@ import org.jetbrains.annotations.Nullable;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -46,6 +54,9 @@ public class StepikClient {
   private static final Logger LOG = Logger.getInstance(StepikClient.class.getName());
   private static CloseableHttpClient ourClient;
   private static final int TIMEOUT_SECONDS = 10;
+  static final String ANONYMOUS_CACHE_OWNER = "anonymous";
+  // null key is used for requests without course language
+  private static final Map<String, Gson> ourGsonByLanguage = Collections.synchronizedMap(new HashMap<>());
 
   private StepikClient() {
   }
@@ -63,7 +74,7 @@ public class StepikClient {
   }
 
   public static <T> T getFromStepik(String link, final Class<T> container, @Nullable Map<Key, Object> params) throws IOException {
-    return getFromStepik(link, container, getHttpClient(), params);
+    return getFromStepik(link, container, getHttpClient(), params, ANONYMOUS_CACHE_OWNER);
   }
 
   static <T> T getFromStepik(String link, final Class<T> container, @NotNull final CloseableHttpClient client) throws IOException {
@@ -74,19 +85,80 @@ public class StepikClient {
                              final Class<T> container,
                              @NotNull final CloseableHttpClient client,
                              @Nullable Map<Key, Object> params) throws IOException {
+    return getFromStepik(link, container, client, params, null);
+  }
+
+  /**
+   * @param cacheOwner user whose responses are cached in {@link StepikResponseCache},
+   *                   null if response shouldn't be cached.
+   *                   Responses of volatile endpoints aren't cached anyway (see {@link StepikResponseCache#isCacheable(String)})
+   */
+  static <T> T getFromStepik(String link,
+                             final Class<T> container,
+                             @NotNull final CloseableHttpClient client,
+                             @Nullable Map<Key, Object> params,
+                             @Nullable String cacheOwner) throws IOException {
     if (!link.startsWith("/")) link = "/" + link;
-    final HttpGet request = new HttpGet(StepikNames.STEPIK_API_URL + link);
+    final String url = StepikNames.STEPIK_API_URL + link;
+    final StepikResponseCache cache =
+      cacheOwner == null || !StepikResponseCache.isCacheable(url) ? null : StepikResponseCache.getInstance();
+    final StepikResponseCache.Entry cachedEntry = cache == null ? null : cache.get(url, cacheOwner);
+    if (cachedEntry != null && StepikResponseCache.isOfflineMode()) {
+      cache.recordHit(false);
+      return deserializeStepikResponse(container, cachedEntry.openBody(), cachedEntry.getCharset(), params);
+    }
+
+    final HttpGet request = new HttpGet(url);
     addTimeout(request);
+    if (cachedEntry != null && cachedEntry.canBeRevalidated()) {
+      cachedEntry.addConditionalHeaders(request);
+    }
 
     final CloseableHttpResponse response = client.execute(request);
     final StatusLine statusLine = response.getStatusLine();
     final HttpEntity responseEntity = response.getEntity();
-    final String responseString = responseEntity != null ? EntityUtils.toString(responseEntity) : "";
-    EntityUtils.consume(responseEntity);
-    if (statusLine.getStatusCode() != HttpStatus.SC_OK) {
-      throw new IOException("Stepik returned non 200 status code " + responseString);
+    try {
+      if (cachedEntry != null && statusLine.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+        cache.recordHit(true);
+        return deserializeStepikResponse(container, cachedEntry.openBody(), cachedEntry.getCharset(), params);
+      }
+      if (statusLine.getStatusCode() != HttpStatus.SC_OK) {
+        final String responseString = responseEntity != null ? EntityUtils.toString(responseEntity) : "";
+        throw new IOException("Stepik returned non 200 status code " + responseString);
+      }
+      if (responseEntity == null) {
+        return null;
+      }
+      final Charset contentCharset = ContentType.getOrDefault(responseEntity).getCharset();
+      final Charset charset = contentCharset != null ? contentCharset : StandardCharsets.UTF_8;
+      final InputStream body = responseEntity.getContent();
+      if (cache == null) {
+        return deserializeStepikResponse(container, body, charset, params);
+      }
+      cache.recordMiss();
+      final StepikResponseCache.CachingInputStream cachingBody = cache.cacheWhileReading(url, cacheOwner, response, body, charset);
+      if (cachingBody == null) {
+        return deserializeStepikResponse(container, body, charset, params);
+      }
+      // response is cached only if it was parsed successfully
+      boolean isParsed = false;
+      try {
+        final T result = deserializeStepikResponse(container, cachingBody, charset, params);
+        isParsed = true;
+        return result;
+      }
+      finally {
+        if (isParsed) {
+          cachingBody.commit();
+        }
+        else {
+          cachingBody.discard();
+        }
+      }
+    }
+    finally {
+      EntityUtils.consume(responseEntity);
     }
-    return deserializeStepikResponse(container, responseString, params);
   }
 
   private static void addTimeout(@NotNull HttpGet request) {
@@ -100,12 +172,37 @@ public class StepikClient {
   }
 
   static <T> T deserializeStepikResponse(Class<T> container, String responseString, @Nullable Map<Key, Object> params) {
-    Gson gson = createGson(params);
-    return gson.fromJson(responseString, container);
+    return getGson(params).fromJson(responseString, container);
   }
 
-  public static Gson createGson(@Nullable Map<Key, Object> params) {
+  /**
+   * Parses response right from the stream without reading the whole body into memory.
+   * Stream is closed after parsing.
+   */
+  static <T> T deserializeStepikResponse(Class<T> container,
+                                         @NotNull InputStream stream,
+                                         @NotNull Charset charset,
+                                         @Nullable Map<Key, Object> params) throws IOException {
+    try (JsonReader reader = new JsonReader(new InputStreamReader(stream, charset))) {
+      return getGson(params).fromJson(reader, container);
+    }
+  }
+
+  /**
+   * Gson instances are thread-safe, so we create only one instance per course language.
+   */
+  @NotNull
+  private static Gson getGson(@Nullable Map<Key, Object> params) {
     String language = StepikConnector.COURSE_LANGUAGE.get(params);
+    return ourGsonByLanguage.computeIfAbsent(language, StepikClient::createGson);
+  }
+
+  public static Gson createGson(@Nullable Map<Key, Object> params) {
+    return createGson(StepikConnector.COURSE_LANGUAGE.get(params));
+  }
+
+  @NotNull
+  private static Gson createGson(@Nullable String language) {
     return new GsonBuilder()
         .registerTypeAdapter(StepikWrappers.StepOptions.class, new StepikStepOptionsAdapter(language))
         .registerTypeAdapter(Lesson.class, new StepikLessonAdapter(language))
@@ -62,6 +62,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -154,6 +155,10 @@ public class StepikConnector {
     setAuthors(result);
 
     LOG.info("Loading courses finished...Took " + (System.currentTimeMillis() - startTime) + " ms");
+    final StepikResponseCache cache = StepikResponseCache.getInstance();
+    if (cache != null) {
+      LOG.info(cache.toString());
+    }
     return result;
   }
 
@@ -611,22 +616,23 @@ public class StepikConnector {
 
   @VisibleForTesting
   public static List<Lesson> getLessonsFromUnits(RemoteCourse remoteCourse, String[] unitIds, boolean updateIndicator) throws IOException {
-    final ProgressIndicator progressIndicator = ProgressManager.getInstance().getProgressIndicator();
+    final ProgressIndicator progressIndicator = updateIndicator ? ProgressManager.getInstance().getProgressIndicator() : null;
     final List<Lesson> lessons = new ArrayList<>();
     List<Lesson> lessonsFromUnits = getLessons(unitIds);
 
+    final String[] allStepIds = lessonsFromUnits.stream()
+      .flatMap(lesson -> lesson.steps.stream())
+      .map(stepId -> String.valueOf(stepId))
+      .toArray(String[]::new);
+    final Map<Integer, StepSource> idToStepSource = getStepSourcesByPages(allStepIds, remoteCourse.getLanguageID(), progressIndicator);
+
     final int lessonCount = lessonsFromUnits.size();
     for (int lessonIndex = 0; lessonIndex < lessonCount; lessonIndex++) {
       Lesson lesson = lessonsFromUnits.get(lessonIndex);
       lesson.unitId = Integer.parseInt(unitIds[lessonIndex]);
-      if (progressIndicator != null && updateIndicator) {
-        final int readableIndex = lessonIndex + 1;
-        progressIndicator.checkCanceled();
-        progressIndicator.setText("Loading lesson " + readableIndex + " from " + lessonCount);
-        progressIndicator.setFraction((double)readableIndex / lessonCount);
-      }
-      String[] stepIds = lesson.steps.stream().map(stepId -> String.valueOf(stepId)).toArray(String[]::new);
-      List<StepSource> allStepSources = getStepSources(stepIds, remoteCourse.getLanguageID());
+      List<Integer> loadedStepIds = lesson.steps.stream().filter(idToStepSource::containsKey).collect(Collectors.toList());
+      String[] stepIds = loadedStepIds.stream().map(stepId -> String.valueOf(stepId)).toArray(String[]::new);
+      List<StepSource> allStepSources = loadedStepIds.stream().map(idToStepSource::get).collect(Collectors.toList());
 
       if (!allStepSources.isEmpty()) {
         final StepOptions options = allStepSources.get(0).block.options;
@@ -636,19 +642,51 @@ public class StepikConnector {
         }
       }
       List<Task> tasks = getTasks(remoteCourse.getLanguageById(), lesson, stepIds, allStepSources);
-      lesson.taskList.addAll(tasks);
+      lesson.addTasks(tasks);
       lessons.add(lesson);
     }
 
     return lessons;
   }
 
-  public static List<StepSource> getStepSources(String[] stepIds, String language) throws IOException {
-    Map<Key, Object> params = Collections.singletonMap(COURSE_LANGUAGE, language);
+  /**
+   * Loads step sources of several lessons at once, so course loading doesn't make one round-trip per lesson.
+   *
+   * @return step sources mapped by step id
+   */
+  @NotNull
+  private static Map<Integer, StepSource> getStepSourcesByPages(@NotNull String[] stepIds,
+                                                                @Nullable String language,
+                                                                @Nullable ProgressIndicator progressIndicator) throws IOException {
+    final Map<Key, Object> params = Collections.singletonMap(COURSE_LANGUAGE, language);
+    final int pageCount = (stepIds.length + MAX_REQUEST_PARAMS - 1) / MAX_REQUEST_PARAMS;
+    List<StepContainer> stepContainers = multipleRequestToStepik(StepikNames.STEPS, stepIds, StepContainer.class, params, loadedPages -> {
+      if (progressIndicator != null) {
+        progressIndicator.checkCanceled();
+        progressIndicator.setText("Loading tasks: page " + loadedPages + " from " + pageCount);
+        progressIndicator.setFraction((double)loadedPages / pageCount);
+      }
+    });
+
+    final Map<Integer, StepSource> idToStepSource = new HashMap<>();
+    for (StepContainer stepContainer : stepContainers) {
+      for (StepSource stepSource : stepContainer.steps) {
+        idToStepSource.put(stepSource.id, stepSource);
+      }
+    }
+    return idToStepSource;
+  }
+
+  @NotNull
+  private static List<StepSource> getStepSources(String[] stepIds, @NotNull Map<Key, Object> params) throws IOException {
     List<StepContainer> stepContainers = multipleRequestToStepik(StepikNames.STEPS, stepIds, StepContainer.class, params);
     return stepContainers.stream().flatMap(stepContainer -> stepContainer.steps.stream()).collect(Collectors.toList());
   }
 
+  public static List<StepSource> getStepSources(String[] stepIds, String language) throws IOException {
+    return getStepSources(stepIds, Collections.singletonMap(COURSE_LANGUAGE, language));
+  }
+
   @NotNull
   public static List<Task> getTasks(@NotNull Language language, @NotNull Lesson lesson, String[] stepIds, List<StepSource> allStepSources) {
     List<Task> tasks = new ArrayList<>();
@@ -777,13 +815,8 @@ public class StepikConnector {
   @Nullable
   static Reply getLastSubmission(@NotNull String stepId, boolean isSolved, String language) throws IOException {
     try {
-      URI url = new URIBuilder(StepikNames.SUBMISSIONS)
-        .addParameter("order", "desc")
-        .addParameter("page", "1")
-        .addParameter("status", isSolved ? "correct" : "wrong")
-        .addParameter("step", stepId).build();
       Map<Key, Object> params = Collections.singletonMap(COURSE_LANGUAGE, language);
-      Submission[] submissions = getFromStepik(url.toString(), SubmissionsWrapper.class, params).submissions;
+      Submission[] submissions = getFromStepik(lastSubmissionLink(stepId, isSolved), SubmissionsWrapper.class, params).submissions;
       if (submissions.length > 0) {
         return submissions[0].reply;
       }
@@ -794,6 +827,15 @@ public class StepikConnector {
     return null;
   }
 
+  @NotNull
+  private static String lastSubmissionLink(@NotNull String stepId, boolean isSolved) throws URISyntaxException {
+    return new URIBuilder(StepikNames.SUBMISSIONS)
+      .addParameter("order", "desc")
+      .addParameter("page", "1")
+      .addParameter("status", isSolved ? "correct" : "wrong")
+      .addParameter("step", stepId).build().toString();
+  }
+
   @NotNull
   static HashMap<String, String> getSolutionForStepikAssignment(@NotNull Task task, boolean isSolved) throws IOException {
     HashMap<String, String> taskFileToText = new HashMap<>();
@@ -804,17 +846,8 @@ public class StepikConnector {
         .addParameter("status", isSolved ? "correct" : "wrong")
         .addParameter("step", String.valueOf(task.getStepId())).build();
       Submission[] submissions = getFromStepik(url.toString(), SubmissionsWrapper.class).submissions;
-      Language language = task.getLesson().getCourse().getLanguageById();
-      String stepikLanguage = StepikLanguages.langOfId(language.getID()).getLangName();
       for (Submission submission : submissions) {
-        Reply reply = submission.reply;
-        if (stepikLanguage != null && stepikLanguage.equals(reply.language)) {
-          Collection<TaskFile> taskFiles = task.getTaskFiles().values();
-          assert taskFiles.size() == 1;
-          for (TaskFile taskFile : taskFiles) {
-            taskFileToText.put(taskFile.getName(), reply.code);
-          }
-        }
+        putSolutionText(task, submission.reply, taskFileToText);
       }
     }
     catch (URISyntaxException e) {
@@ -824,6 +857,88 @@ public class StepikConnector {
     return taskFileToText;
   }
 
+  @NotNull
+  static HashMap<String, String> getSolutionForStepikAssignment(@NotNull Task task,
+                                                                boolean isSolved,
+                                                                @NotNull StepikSubmissionsIndex submissionsIndex) throws IOException {
+    Reply reply = submissionsIndex.getLastReply(task.getStepId(), isSolved, task.getCourse().getLanguageID());
+    HashMap<String, String> taskFileToText = new HashMap<>();
+    if (reply != null) {
+      putSolutionText(task, reply, taskFileToText);
+    }
+    if (taskFileToText.isEmpty() && reply != null) {
+      // the last submission is in another language, so look through other submissions
+      return getSolutionForStepikAssignment(task, isSolved);
+    }
+    return taskFileToText;
+  }
+
+  private static void putSolutionText(@NotNull Task task, @NotNull Reply reply, @NotNull Map<String, String> taskFileToText) {
+    Language language = task.getLesson().getCourse().getLanguageById();
+    String stepikLanguage = StepikLanguages.langOfId(language.getID()).getLangName();
+    if (stepikLanguage != null && stepikLanguage.equals(reply.language)) {
+      Collection<TaskFile> taskFiles = task.getTaskFiles().values();
+      assert taskFiles.size() == 1;
+      for (TaskFile taskFile : taskFiles) {
+        taskFileToText.put(taskFile.getName(), reply.code);
+      }
+    }
+  }
+
+  /**
+   * Loads the last submissions with required statuses for all given steps, one request per step.
+   * Stepik can't filter submissions of a user by course, so there is no cheaper way to get them.
+   * Requests are sent concurrently if parallel mode is enabled (see {@link StepikRequestScheduler}).
+   *
+   * @param steps step ids mapped to the status of required submission, true for correct one
+   */
+  @NotNull
+  static StepikSubmissionsIndex getLastSubmissions(@NotNull Map<Integer, Boolean> steps, @Nullable String language) {
+    StepikSubmissionsIndex index = new StepikSubmissionsIndex();
+    if (steps.isEmpty()) {
+      return index;
+    }
+    Map<Key, Object> params = Collections.singletonMap(COURSE_LANGUAGE, language);
+    try {
+      List<Integer> stepIds = new ArrayList<>(steps.keySet());
+      List<String> links = new ArrayList<>();
+      for (Integer stepId : stepIds) {
+        links.add(lastSubmissionLink(String.valueOf(stepId), steps.get(stepId)));
+      }
+
+      List<SubmissionsWrapper> wrappers;
+      if (links.size() > 1 && StepikRequestScheduler.isParallelModeEnabled()) {
+        List<Callable<SubmissionsWrapper>> requests = new ArrayList<>();
+        for (String link : links) {
+          requests.add(() -> {
+            StepikRequestScheduler.acquirePermit(StepikNames.STEPIK_API_URL + link);
+            return getFromStepik(link, SubmissionsWrapper.class, params);
+          });
+        }
+        wrappers = StepikRequestScheduler.invokeAllInOrder(requests, null);
+      }
+      else {
+        wrappers = new ArrayList<>();
+        for (String link : links) {
+          wrappers.add(getFromStepik(link, SubmissionsWrapper.class, params));
+        }
+      }
+
+      for (int i = 0; i < stepIds.size(); i++) {
+        SubmissionsWrapper wrapper = wrappers.get(i);
+        if (wrapper != null && wrapper.submissions != null && wrapper.submissions.length > 0) {
+          Integer stepId = stepIds.get(i);
+          index.add(stepId, steps.get(stepId), wrapper.submissions[0]);
+        }
+      }
+      index.setComplete();
+    }
+    catch (URISyntaxException | IOException e) {
+      LOG.warn("Failed to load submissions: " + e.getMessage());
+    }
+    return index;
+  }
+
   public static StepSource getStep(int step) throws IOException {
     return getFromStepik(StepikNames.STEPS + step,
                          StepContainer.class).steps.get(0);
@@ -854,27 +969,54 @@ public class StepikConnector {
   private static <T> List<T> multipleRequestToStepik(String apiUrl, String[] ids,
                                                      final Class<T> container,
                                                      @Nullable Map<Key, Object> params) throws IOException {
-    List<T> result = new ArrayList<>();
+    return multipleRequestToStepik(apiUrl, ids, container, params, null);
+  }
 
+  /**
+   * Requests objects with given ids by chunks of {@link #MAX_REQUEST_PARAMS}.
+   * If there're several chunks, they're loaded concurrently (see {@link StepikRequestScheduler}),
+   * but the result always keeps the order of chunks.
+   *
+   * @param onChunkLoaded is called with number of already loaded chunks
+   */
+  private static <T> List<T> multipleRequestToStepik(String apiUrl, String[] ids,
+                                                     final Class<T> container,
+                                                     @Nullable Map<Key, Object> params,
+                                                     @Nullable IntConsumer onChunkLoaded) throws IOException {
+    List<String> links = new ArrayList<>();
     int length = ids.length;
     for (int i = 0; i < length ; i += MAX_REQUEST_PARAMS) {
-      String link;
       try {
         URIBuilder builder = new URIBuilder(apiUrl);
         List<String> sublist = Arrays.asList(ids).subList(i, Math.min(i + MAX_REQUEST_PARAMS, length));
         for (String id : sublist) {
           builder.addParameter("ids[]", id);
         }
-        link = builder.build().toString();
-
+        links.add(builder.build().toString());
       }
       catch (URISyntaxException e) {
         LOG.error(e.getMessage());
-        continue;
       }
-      result.add(getFromStepik(link, container, params));
     }
 
+    if (links.size() > 1 && StepikRequestScheduler.isParallelModeEnabled()) {
+      List<Callable<T>> requests = new ArrayList<>();
+      for (String link : links) {
+        requests.add(() -> {
+          StepikRequestScheduler.acquirePermit(StepikNames.STEPIK_API_URL + link);
+          return getFromStepik(link, container, params);
+        });
+      }
+      return StepikRequestScheduler.invokeAllInOrder(requests, onChunkLoaded);
+    }
+
+    List<T> result = new ArrayList<>();
+    for (String link : links) {
+      result.add(getFromStepik(link, container, params));
+      if (onChunkLoaded != null) {
+        onChunkLoaded.accept(result.size());
+      }
+    }
     return result;
   }
 
@@ -0,0 +1,122 @@
+package com.jetbrains.edu.learning.stepik;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.*;
+
+/**
+ * Waits for results of submissions evaluated on Stepik.
+ *
+ * Submission status is polled with exponentially growing randomized delay, so fast checks get their results quickly
+ * and long ones don't flood Stepik with requests. Polls of all pending submissions are timed by a single scheduler thread
+ * and run on the application pool, so a slow request doesn't delay polls of other submissions.
+ *
+ * Checking thread still blocks until the result is received, because remote checkers return the check result synchronously.
+ * It wakes up every {@link #CANCELLATION_CHECK_INTERVAL_MS} to cancel polling if its progress indicator is cancelled.
+ *
+ * Delays and evaluation deadline can be configured with `edu.stepik.evaluation.*` system properties.
+ */
+class StepikEvaluationTracker {
+  private static final Logger LOG = Logger.getInstance(StepikEvaluationTracker.class);
+
+  private static final long INITIAL_DELAY_MS = Long.getLong("edu.stepik.evaluation.initial.delay", 200);
+  private static final long MAX_DELAY_MS = Long.getLong("edu.stepik.evaluation.max.delay", 5_000);
+  private static final long TIMEOUT_MS = Long.getLong("edu.stepik.evaluation.timeout", 5 * 60 * 1000);
+  private static final long CANCELLATION_CHECK_INTERVAL_MS = 100;
+
+  private static final ScheduledExecutorService SCHEDULER =
+    AppExecutorUtil.createBoundedScheduledExecutorService("Stepik evaluation tracker", 1);
+
+  private StepikEvaluationTracker() {
+  }
+
+  /**
+   * @param submission current state of the submission
+   * @param poll       requests the current state of the submission, returns null if request failed
+   * @return final state of the submission or null if it can't be received
+   * @throws TimeoutException if submission wasn't evaluated in time
+   */
+  @Nullable
+  static StepikWrappers.ResultSubmissionWrapper waitForEvaluation(@NotNull StepikWrappers.ResultSubmissionWrapper submission,
+                                                                  @NotNull Callable<StepikWrappers.ResultSubmissionWrapper> poll,
+                                                                  @Nullable ProgressIndicator indicator) throws TimeoutException {
+    if (!isEvaluating(submission)) {
+      return submission;
+    }
+    CompletableFuture<StepikWrappers.ResultSubmissionWrapper> result = new CompletableFuture<>();
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    schedulePoll(result, poll, INITIAL_DELAY_MS, deadline);
+    return waitForResult(result, indicator);
+  }
+
+  private static void schedulePoll(@NotNull CompletableFuture<StepikWrappers.ResultSubmissionWrapper> result,
+                                   @NotNull Callable<StepikWrappers.ResultSubmissionWrapper> poll,
+                                   long delay,
+                                   long deadline) {
+    long jitteredDelay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    SCHEDULER.schedule(() -> {
+      if (result.isDone()) return;
+      AppExecutorUtil.getAppExecutorService().execute(() -> pollOnce(result, poll, delay, deadline));
+    }, jitteredDelay, TimeUnit.MILLISECONDS);
+  }
+
+  private static void pollOnce(@NotNull CompletableFuture<StepikWrappers.ResultSubmissionWrapper> result,
+                               @NotNull Callable<StepikWrappers.ResultSubmissionWrapper> poll,
+                               long delay,
+                               long deadline) {
+    if (result.isDone()) return;
+    try {
+      StepikWrappers.ResultSubmissionWrapper submission = poll.call();
+      if (submission == null || !isEvaluating(submission)) {
+        result.complete(submission);
+      }
+      else if (System.currentTimeMillis() >= deadline) {
+        result.completeExceptionally(new TimeoutException("Submission wasn't evaluated in " + TIMEOUT_MS + " ms"));
+      }
+      else {
+        schedulePoll(result, poll, Math.min(delay * 2, MAX_DELAY_MS), deadline);
+      }
+    }
+    catch (Exception e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  @Nullable
+  private static StepikWrappers.ResultSubmissionWrapper waitForResult(@NotNull CompletableFuture<StepikWrappers.ResultSubmissionWrapper> result,
+                                                                      @Nullable ProgressIndicator indicator) throws TimeoutException {
+    while (true) {
+      if (indicator != null && indicator.isCanceled()) {
+        result.cancel(false);
+        throw new ProcessCanceledException();
+      }
+      try {
+        return result.get(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException e) {
+        // check cancellation and wait again
+      }
+      catch (InterruptedException e) {
+        result.cancel(false);
+        throw new ProcessCanceledException(e);
+      }
+      catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof TimeoutException) {
+          throw (TimeoutException)cause;
+        }
+        LOG.warn(cause.getMessage());
+        return null;
+      }
+    }
+  }
+
+  private static boolean isEvaluating(@NotNull StepikWrappers.ResultSubmissionWrapper wrapper) {
+    return wrapper.submissions.length == 1 && wrapper.submissions[0].status.equals("evaluation");
+  }
+}
@@ -0,0 +1,95 @@
+package com.jetbrains.edu.learning.stepik;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs independent Stepik requests concurrently.
+ *
+ * Number of requests in flight is limited by {@link #MAX_PARALLEL_REQUESTS} for the whole plugin
+ * and every host gets no more than {@link #MAX_REQUESTS_PER_SECOND} requests per second.
+ * Both limits can be changed with system properties.
+ */
+class StepikRequestScheduler {
+  static final int MAX_PARALLEL_REQUESTS = Integer.getInteger("edu.stepik.max.parallel.requests", 4);
+  private static final int MAX_REQUESTS_PER_SECOND = Integer.getInteger("edu.stepik.max.requests.per.second", 20);
+  private static final long CANCELLATION_CHECK_TIMEOUT_MS = 100;
+
+  private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(Math.max(MAX_PARALLEL_REQUESTS, 1));
+  private static final ConcurrentMap<String, RateLimiter> HOST_RATE_LIMITERS = ContainerUtil.newConcurrentMap();
+
+  private StepikRequestScheduler() {
+  }
+
+  static boolean isParallelModeEnabled() {
+    return MAX_PARALLEL_REQUESTS > 1;
+  }
+
+  /**
+   * Waits until request to the host of given url can be sent according to per-host rate limit.
+   */
+  static void acquirePermit(@NotNull String url) {
+    String host = URI.create(url).getHost();
+    HOST_RATE_LIMITERS.computeIfAbsent(host == null ? "" : host, h -> RateLimiter.create(MAX_REQUESTS_PER_SECOND)).acquire();
+  }
+
+  /**
+   * Executes requests concurrently and returns their results in the order of {@code requests}.
+   * If one of requests fails or the current progress is canceled, all unfinished requests are cancelled.
+   *
+   * @param onRequestLoaded is called in the caller thread with number of already loaded requests
+   */
+  @NotNull
+  static <T> List<T> invokeAllInOrder(@NotNull List<Callable<T>> requests, @Nullable IntConsumer onRequestLoaded) throws IOException {
+    CompletionService<T> completionService = new ExecutorCompletionService<>(EXECUTOR_SERVICE);
+    Map<Future<T>, Integer> futureToIndex = new HashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      futureToIndex.put(completionService.submit(requests.get(i)), i);
+    }
+
+    List<T> result = new ArrayList<>(Collections.nCopies(requests.size(), null));
+    try {
+      for (int loaded = 1; loaded <= requests.size(); loaded++) {
+        Future<T> future = takeCompleted(completionService);
+        result.set(futureToIndex.get(future), future.get());
+        if (onRequestLoaded != null) {
+          onRequestLoaded.accept(loaded);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Stepik request was interrupted", e);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof IOException ? (IOException)cause : new IOException(cause);
+    }
+    finally {
+      for (Future<T> future : futureToIndex.keySet()) {
+        future.cancel(true);
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  private static <T> Future<T> takeCompleted(@NotNull CompletionService<T> completionService) throws InterruptedException {
+    while (true) {
+      ProgressManager.checkCanceled();
+      Future<T> future = completionService.poll(CANCELLATION_CHECK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      if (future != null) {
+        return future;
+      }
+    }
+  }
+}
@@ -0,0 +1,408 @@
+package com.jetbrains.edu.learning.stepik;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk cache of Stepik GET responses keyed by request url and user.
+ *
+ * Cached entries are revalidated with conditional requests ({@code If-None-Match}/{@code If-Modified-Since})
+ * when Stepik provided {@code ETag} or {@code Last-Modified} headers for them.
+ * Least recently used entries are evicted when total size exceeds {@link #MAX_CACHE_SIZE}.
+ * Responses of endpoints that change with every user action (see {@link #isCacheable(String)}) aren't cached.
+ *
+ * In offline mode (see {@link #OFFLINE_MODE}) cached responses are returned without any network request.
+ */
+public class StepikResponseCache {
+  private static final Logger LOG = Logger.getInstance(StepikResponseCache.class);
+
+  private static final boolean IS_ENABLED = Boolean.parseBoolean(System.getProperty("edu.stepik.cache.enabled", "true"));
+  private static final boolean OFFLINE_MODE = Boolean.getBoolean("edu.stepik.cache.offline");
+  private static final long MAX_CACHE_SIZE = Long.getLong("edu.stepik.cache.size.mb", 100) * 1024 * 1024;
+  private static final String CACHE_DIR_NAME = "edu-stepik-cache";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  // entries of other format versions are ignored and removed
+  private static final int FORMAT_VERSION = 2;
+  private static final List<String> VOLATILE_ENDPOINTS =
+    Arrays.asList(StepikNames.ATTEMPTS, StepikNames.SUBMISSIONS, StringUtil.trimEnd(StepikNames.PROGRESS, "/"));
+
+  private static final StepikResponseCache INSTANCE = new StepikResponseCache(new File(PathManager.getSystemPath(), CACHE_DIR_NAME));
+
+  private final File myCacheDir;
+  // file name -> file size, in access order
+  private final LinkedHashMap<String, Long> myEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private long myTotalSize;
+  private boolean myIsIndexLoaded;
+
+  private final AtomicLong myHits = new AtomicLong();
+  private final AtomicLong myRevalidatedHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+
+  private StepikResponseCache(@NotNull File cacheDir) {
+    myCacheDir = cacheDir;
+  }
+
+  @Nullable
+  static StepikResponseCache getInstance() {
+    return IS_ENABLED && !ApplicationManager.getApplication().isUnitTestMode() ? INSTANCE : null;
+  }
+
+  static boolean isOfflineMode() {
+    return OFFLINE_MODE;
+  }
+
+  /**
+   * @return false for urls of attempts, submissions and progresses, they are outdated after every check
+   */
+  static boolean isCacheable(@NotNull String url) {
+    String path = StringUtil.trimStart(url, StepikNames.STEPIK_API_URL);
+    for (String endpoint : VOLATILE_ENDPOINTS) {
+      if (path.startsWith(endpoint) && (path.length() == endpoint.length() || "/?".indexOf(path.charAt(endpoint.length())) >= 0)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long getHitCount() {
+    return myHits.get();
+  }
+
+  /**
+   * Number of hits that required conditional request to Stepik, included into {@link #getHitCount()}
+   */
+  public long getRevalidatedHitCount() {
+    return myRevalidatedHits.get();
+  }
+
+  public long getMissCount() {
+    return myMisses.get();
+  }
+
+  @Nullable
+  Entry get(@NotNull String url, @NotNull String user) {
+    String key = key(url, user);
+    File file = new File(myCacheDir, key);
+    if (!file.exists()) {
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        remove(key);
+        return null;
+      }
+      String eTag = readNullableString(input);
+      String lastModified = readNullableString(input);
+      Charset charset = Charset.forName(input.readUTF());
+      touch(key, file);
+      return new Entry(eTag, lastModified, charset, file);
+    }
+    catch (IOException | IllegalArgumentException e) {
+      LOG.warn("Failed to read cached Stepik response for " + url, e);
+      remove(key);
+      return null;
+    }
+  }
+
+  /**
+   * Returns stream that reads response body and saves it into the cache at the same time.
+   * The rest of the body is read when the stream is closed. Entry is stored by {@link CachingInputStream#commit()}
+   * which should be called after the body is successfully parsed, otherwise it's discarded.
+   *
+   * @return null if the response can't be cached
+   */
+  @Nullable
+  CachingInputStream cacheWhileReading(@NotNull String url,
+                                       @NotNull String user,
+                                       @NotNull HttpResponse response,
+                                       @NotNull InputStream body,
+                                       @NotNull Charset charset) {
+    String key = key(url, user);
+    try {
+      FileUtil.createDirectory(myCacheDir);
+      // write into temporary file first not to let concurrent readers see partially written entry
+      File tempFile = FileUtil.createTempFile(myCacheDir, key, TEMP_FILE_SUFFIX, true, true);
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+      try {
+        output.writeInt(FORMAT_VERSION);
+        writeNullableString(output, headerValue(response, HttpHeaders.ETAG));
+        writeNullableString(output, headerValue(response, HttpHeaders.LAST_MODIFIED));
+        output.writeUTF(charset.name());
+      }
+      catch (IOException e) {
+        output.close();
+        FileUtil.delete(tempFile);
+        throw e;
+      }
+      return new CachingInputStream(body, output, tempFile, key);
+    }
+    catch (IOException e) {
+      LOG.warn("Failed to cache Stepik response for " + url, e);
+      return null;
+    }
+  }
+
+  void recordHit(boolean isRevalidated) {
+    myHits.incrementAndGet();
+    if (isRevalidated) {
+      myRevalidatedHits.incrementAndGet();
+    }
+  }
+
+  void recordMiss() {
+    myMisses.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return "Stepik response cache: hits=" + getHitCount() + " (revalidated " + getRevalidatedHitCount() + "), misses=" + getMissCount();
+  }
+
+  private synchronized void touch(@NotNull String key, @NotNull File file) {
+    loadIndexIfNeeded();
+    myEntries.get(key);
+    //noinspection ResultOfMethodCallIgnored
+    file.setLastModified(System.currentTimeMillis());
+  }
+
+  private synchronized void added(@NotNull String key, long size) {
+    loadIndexIfNeeded();
+    Long oldSize = myEntries.put(key, size);
+    myTotalSize += size - (oldSize == null ? 0 : oldSize);
+    evictIfNeeded();
+  }
+
+  private synchronized void remove(@NotNull String key) {
+    loadIndexIfNeeded();
+    Long size = myEntries.remove(key);
+    if (size != null) {
+      myTotalSize -= size;
+    }
+    FileUtil.delete(new File(myCacheDir, key));
+  }
+
+  private void evictIfNeeded() {
+    Iterator<Map.Entry<String, Long>> iterator = myEntries.entrySet().iterator();
+    while (myTotalSize > MAX_CACHE_SIZE && iterator.hasNext()) {
+      Map.Entry<String, Long> eldest = iterator.next();
+      myTotalSize -= eldest.getValue();
+      iterator.remove();
+      FileUtil.delete(new File(myCacheDir, eldest.getKey()));
+    }
+  }
+
+  private void loadIndexIfNeeded() {
+    if (myIsIndexLoaded) return;
+    myIsIndexLoaded = true;
+    File[] files = myCacheDir.listFiles();
+    if (files == null) return;
+    // last modification time of a cache file is the time of its last access
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for (File file : files) {
+      if (file.getName().endsWith(TEMP_FILE_SUFFIX)) continue;
+      myEntries.put(file.getName(), file.length());
+      myTotalSize += file.length();
+    }
+    evictIfNeeded();
+  }
+
+  @NotNull
+  private static String key(@NotNull String url, @NotNull String user) {
+    return DigestUtils.sha1Hex(user + "@" + url);
+  }
+
+  @Nullable
+  private static String headerValue(@NotNull HttpResponse response, @NotNull String name) {
+    Header header = response.getFirstHeader(name);
+    return header == null ? null : header.getValue();
+  }
+
+  private static void writeNullableString(@NotNull DataOutputStream output, @Nullable String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  @Nullable
+  private static String readNullableString(@NotNull DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  class CachingInputStream extends FilterInputStream {
+    private final File myTempFile;
+    private final String myKey;
+    @Nullable private OutputStream myOutput;
+    private boolean myIsFinished;
+    private boolean myIsClosed;
+
+    CachingInputStream(@NotNull InputStream body, @NotNull OutputStream output, @NotNull File tempFile, @NotNull String key) {
+      super(body);
+      myOutput = output;
+      myTempFile = tempFile;
+      myKey = key;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b == -1) {
+        myIsFinished = true;
+      }
+      else {
+        copy(new byte[]{(byte)b}, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(@NotNull byte[] b, int off, int len) throws IOException {
+      int count = super.read(b, off, len);
+      if (count == -1) {
+        myIsFinished = true;
+      }
+      else {
+        copy(b, off, count);
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      byte[] buffer = new byte[(int)Math.min(n, 8192)];
+      int count = read(buffer, 0, buffer.length);
+      return Math.max(count, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (myOutput != null && !myIsFinished) {
+          byte[] buffer = new byte[8192];
+          //noinspection StatementWithEmptyBody
+          while (read(buffer, 0, buffer.length) != -1) ;
+        }
+      }
+      finally {
+        myIsClosed = true;
+        super.close();
+        closeOutput();
+      }
+    }
+
+    private void copy(@NotNull byte[] b, int off, int len) {
+      if (myOutput == null) return;
+      try {
+        myOutput.write(b, off, len);
+      }
+      catch (IOException e) {
+        LOG.warn("Failed to cache Stepik response", e);
+        discard();
+      }
+    }
+
+    /**
+     * Stores the entry if the whole body was read and saved, should be called after the stream is closed
+     */
+    void commit() {
+      if (myIsClosed && myIsFinished && myTempFile.exists()) {
+        File file = new File(myCacheDir, myKey);
+        try {
+          FileUtil.rename(myTempFile, file);
+          added(myKey, file.length());
+          return;
+        }
+        catch (IOException e) {
+          LOG.warn("Failed to cache Stepik response", e);
+        }
+      }
+      discard();
+    }
+
+    /**
+     * Drops the entry, e.g. if the body couldn't be parsed. Does nothing after successful {@link #commit()}
+     */
+    void discard() {
+      closeOutput();
+      FileUtil.delete(myTempFile);
+    }
+
+    private void closeOutput() {
+      if (myOutput == null) return;
+      try {
+        myOutput.close();
+      }
+      catch (IOException e) {
+        LOG.warn("Failed to cache Stepik response", e);
+        myIsFinished = false;
+      }
+      myOutput = null;
+    }
+  }
+
+  static class Entry {
+    @Nullable private final String myETag;
+    @Nullable private final String myLastModified;
+    @NotNull private final Charset myCharset;
+    @NotNull private final File myFile;
+
+    private Entry(@Nullable String eTag, @Nullable String lastModified, @NotNull Charset charset, @NotNull File file) {
+      myETag = eTag;
+      myLastModified = lastModified;
+      myCharset = charset;
+      myFile = file;
+    }
+
+    /**
+     * @return charset of the cached response body
+     */
+    @NotNull
+    Charset getCharset() {
+      return myCharset;
+    }
+
+    @NotNull
+    InputStream openBody() throws IOException {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(myFile)));
+      try {
+        input.readInt();
+        readNullableString(input);
+        readNullableString(input);
+        input.readUTF();
+      }
+      catch (IOException e) {
+        input.close();
+        throw e;
+      }
+      return input;
+    }
+
+    boolean canBeRevalidated() {
+      return myETag != null || myLastModified != null;
+    }
+
+    void addConditionalHeaders(@NotNull HttpGet request) {
+      if (myETag != null) {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, myETag);
+      }
+      if (myLastModified != null) {
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, myLastModified);
+      }
+    }
+  }
+}
@@ -37,9 +37,10 @@ import org.jetbrains.annotations.TestOnly;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -54,10 +55,11 @@ public class StepikSolutionsLoader implements Disposable {
                                                      "<a href=\"\">Update plugin</a> to avoid compatibility problems.\n";
 
   private static final Logger LOG = Logger.getInstance(StepikSolutionsLoader.class);
-  private final HashMap<Integer, Future<Boolean>> myFutures = new HashMap<>();
+  private volatile SolutionsLoadingQueue myLoadingQueue = new SolutionsLoadingQueue();
   private final Project myProject;
   private MessageBusConnection myBusConnection;
   private Task mySelectedTask;
+  private volatile StepikSubmissionsIndex mySubmissionsIndex = new StepikSubmissionsIndex();
 
   protected StepikSolutionsLoader(@NotNull final Project project) {
     this.myProject = project;
@@ -103,68 +105,78 @@ public class StepikSolutionsLoader implements Disposable {
 
   private void updateTasks(@NotNull List<Task> tasks, @Nullable ProgressIndicator progressIndicator) {
     cancelUnfinishedTasks();
-    myFutures.clear();
+    SolutionsLoadingQueue loadingQueue = new SolutionsLoadingQueue();
+    myLoadingQueue = loadingQueue;
 
     List<Task> tasksToUpdate = tasks.stream()
       .filter(task -> !(task instanceof TheoryTask))
       .collect(Collectors.toList());
 
-    CountDownLatch countDownLatch = new CountDownLatch(tasksToUpdate.size());
-    for (int i = 0; i < tasksToUpdate.size(); i++) {
-      final Task task = tasksToUpdate.get(i);
-      final int progressIndex = i + 1;
-      if (progressIndicator == null || !progressIndicator.isCanceled()) {
-        Future<Boolean> future = ApplicationManager.getApplication().executeOnPooledThread(() -> {
-          try {
-            boolean isSolved = task.getStatus() == CheckStatus.Solved;
-            if (progressIndicator != null) {
-              progressIndicator.setFraction((double)progressIndex / tasksToUpdate.size());
-              progressIndicator.setText(String.format("Loading solution %d from %d", progressIndex, tasksToUpdate.size()));
-            }
-            return loadSolution(myProject, task, isSolved);
-          }
-          finally {
-            countDownLatch.countDown();
-          }
-        });
-        myFutures.put(task.getStepId(), future);
-      }
-      else {
-        countDownLatch.countDown();
-      }
+    AtomicInteger loadedCount = new AtomicInteger();
+    for (Task task : tasksToUpdate) {
+      loadingQueue.submit(task.getStepId(), () -> {
+        if (progressIndicator != null && progressIndicator.isCanceled()) {
+          return false;
+        }
+        boolean isSolved = task.getStatus() == CheckStatus.Solved;
+        boolean result = loadSolution(myProject, task, isSolved, mySubmissionsIndex);
+        if (progressIndicator != null) {
+          int progressIndex = loadedCount.incrementAndGet();
+          progressIndicator.setFraction((double)progressIndex / tasksToUpdate.size());
+          progressIndicator.setText(String.format("Loading solution %d from %d", progressIndex, tasksToUpdate.size()));
+        }
+        return result;
+      });
+    }
+    Task selectedTask = mySelectedTask;
+    if (selectedTask != null) {
+      loadingQueue.prioritize(selectedTask.getStepId());
     }
+    loadingQueue.start();
 
     ApplicationManager.getApplication().invokeLater(() -> {
       if (mySelectedTask != null && tasksToUpdate.contains(mySelectedTask)) {
         EduEditor selectedEduEditor = EduUtils.getSelectedEduEditor(myProject);
-        if (selectedEduEditor != null) {
+        Future<Boolean> future = loadingQueue.getFuture(mySelectedTask.getStepId());
+        if (selectedEduEditor != null && future != null) {
           selectedEduEditor.startLoading();
-          enableEditorWhenFutureDone(myFutures.get(mySelectedTask.getStepId()));
+          enableEditorWhenFutureDone(future);
         }
       }
     });
 
-    try {
-      countDownLatch.await();
-      final boolean needToShowNotification = needToShowUpdateNotification();
-      ApplicationManager.getApplication().invokeLater(() -> ApplicationManager.getApplication().runWriteAction(() -> {
-        if (needToShowNotification) {
-          new UpdateNotification(NOTIFICATION_TITLE, NOTIFICATION_CONTENT).notify(myProject);
-        }
-        EduUtils.synchronize();
-        if (mySelectedTask != null) {
-          updateUI(myProject, mySelectedTask);
-        }
-      }));
-      myBusConnection.disconnect();
-    }
-    catch (InterruptedException e) {
-      LOG.warn(e);
+    waitForAll(loadingQueue.getFutures());
+    final boolean needToShowNotification = needToShowUpdateNotification(loadingQueue);
+    ApplicationManager.getApplication().invokeLater(() -> ApplicationManager.getApplication().runWriteAction(() -> {
+      if (needToShowNotification) {
+        new UpdateNotification(NOTIFICATION_TITLE, NOTIFICATION_CONTENT).notify(myProject);
+      }
+      EduUtils.synchronize();
+      if (mySelectedTask != null) {
+        updateUI(myProject, mySelectedTask);
+      }
+    }));
+    myBusConnection.disconnect();
+  }
+
+  private static void waitForAll(@NotNull List<Future<Boolean>> futures) {
+    for (Future<Boolean> future : futures) {
+      try {
+        future.get();
+      }
+      catch (CancellationException | ExecutionException e) {
+        // failures are reported by needToShowUpdateNotification
+      }
+      catch (InterruptedException e) {
+        LOG.warn(e);
+        return;
+      }
     }
   }
 
-  private boolean needToShowUpdateNotification() {
-    return myFutures.values().stream().anyMatch(future -> {
+  private static boolean needToShowUpdateNotification(@NotNull SolutionsLoadingQueue loadingQueue) {
+    return loadingQueue.getFutures().stream().anyMatch(future -> {
+      if (future.isCancelled()) return false;
       try {
         Boolean result = future.get();
         return result == Boolean.TRUE;
@@ -176,11 +188,7 @@ public class StepikSolutionsLoader implements Disposable {
   }
 
   private void cancelUnfinishedTasks() {
-    for (Future future : myFutures.values()) {
-      if (!future.isDone()) {
-        future.cancel(true);
-      }
-    }
+    myLoadingQueue.cancelAll();
   }
 
   public List<Task> tasksToUpdate(@NotNull Course course) {
@@ -192,12 +200,24 @@ public class StepikSolutionsLoader implements Disposable {
     String[] progresses = Arrays.stream(allTasks).map(task -> PROGRESS_ID_PREFIX + String.valueOf(task.getStepId())).toArray(String[]::new);
     Boolean[] taskStatuses = taskStatuses(progresses);
     if (taskStatuses == null) return tasksToUpdate;
+
+    Map<Integer, Boolean> stepsToLoad = new HashMap<>();
+    for (int j = 0; j < allTasks.length; j++) {
+      Boolean isSolved = taskStatuses[j];
+      Task task = allTasks[j];
+      if (isSolved != null && !(task instanceof TheoryTask) && !(isSolved && task.getStatus() == CheckStatus.Solved)) {
+        stepsToLoad.put(task.getStepId(), isSolved);
+      }
+    }
+    StepikSubmissionsIndex submissionsIndex = getLastSubmissions(stepsToLoad, course.getLanguageID());
+    mySubmissionsIndex = submissionsIndex;
+
     for (int j = 0; j < allTasks.length; j++) {
       Boolean isSolved = taskStatuses[j];
       Task task = allTasks[j];
       boolean toUpdate = false;
       if (isSolved != null && !(task instanceof TheoryTask)) {
-        toUpdate = isToUpdate(task, isSolved, task.getStatus(), task.getStepId());
+        toUpdate = isToUpdate(task, isSolved, task.getStatus(), task.getStepId(), submissionsIndex);
       }
       if (toUpdate) {
         task.setStatus(checkStatus(isSolved));
@@ -221,12 +241,11 @@ public class StepikSolutionsLoader implements Disposable {
         if (eduEditor != null && taskFile != null) {
           mySelectedTask = taskFile.getTask();
           Task task = taskFile.getTask();
-          if (myFutures.containsKey(task.getStepId())) {
+          myLoadingQueue.prioritize(task.getStepId());
+          Future future = myLoadingQueue.getFuture(task.getStepId());
+          if (future != null && !future.isCancelled()) {
             eduEditor.startLoading();
-            Future future = myFutures.get(task.getStepId());
-            if (!future.isDone() || !future.isCancelled()) {
-              enableEditorWhenFutureDone(future);
-            }
+            enableEditorWhenFutureDone(future);
           }
         }
       }
@@ -245,13 +264,19 @@ public class StepikSolutionsLoader implements Disposable {
           }
         });
       }
+      catch (CancellationException ignored) {
+      }
       catch (InterruptedException | ExecutionException e) {
         LOG.warn(e.getCause());
       }
     });
   }
 
-  private static boolean isToUpdate(Task task, @NotNull Boolean isSolved, @NotNull CheckStatus currentStatus, int stepId) {
+  private static boolean isToUpdate(Task task,
+                                    @NotNull Boolean isSolved,
+                                    @NotNull CheckStatus currentStatus,
+                                    int stepId,
+                                    @NotNull StepikSubmissionsIndex submissionsIndex) {
     if (isSolved && currentStatus != CheckStatus.Solved) {
       return true;
     }
@@ -259,13 +284,13 @@ public class StepikSolutionsLoader implements Disposable {
       try {
         if (task instanceof EduTask) {
           String language = task.getCourse().getLanguageID();
-          StepikWrappers.Reply reply = getLastSubmission(String.valueOf(stepId), isSolved, language);
-          if (reply != null && !reply.solution.isEmpty()) {
+          StepikWrappers.Reply reply = submissionsIndex.getLastReply(stepId, isSolved, language);
+          if (reply != null && reply.solution != null && !reply.solution.isEmpty()) {
             return true;
           }
         }
         else {
-          HashMap<String, String> solution = getSolutionForStepikAssignment(task, isSolved);
+          HashMap<String, String> solution = getSolutionForStepikAssignment(task, isSolved, submissionsIndex);
           if (!solution.isEmpty()) {
             return true;
           }
@@ -282,9 +307,12 @@ public class StepikSolutionsLoader implements Disposable {
   /**
    * @return true if solutions for given task are incompatible with current plugin version, false otherwise
    */
-  private static boolean loadSolution(@NotNull Project project, @NotNull Task task, boolean isSolved) {
+  private static boolean loadSolution(@NotNull Project project,
+                                      @NotNull Task task,
+                                      boolean isSolved,
+                                      @NotNull StepikSubmissionsIndex submissionsIndex) {
     try {
-      TaskSolutions taskSolutions = loadSolutionTexts(task, isSolved);
+      TaskSolutions taskSolutions = loadSolutionTexts(task, isSolved, submissionsIndex);
       if (!taskSolutions.hasIncompatibleSolutions && !taskSolutions.solutions.isEmpty()) {
         updateFiles(project, task, taskSolutions.solutions);
       }
@@ -296,17 +324,21 @@ public class StepikSolutionsLoader implements Disposable {
     }
   }
 
-  private static TaskSolutions loadSolutionTexts(@NotNull Task task, boolean isSolved) throws IOException {
+  private static TaskSolutions loadSolutionTexts(@NotNull Task task,
+                                                 boolean isSolved,
+                                                 @NotNull StepikSubmissionsIndex submissionsIndex) throws IOException {
     if (task.isToSubmitToStepik()) {
-      return getEduTaskSolution(task, isSolved);
+      return getEduTaskSolution(task, isSolved, submissionsIndex);
     }
     else {
-      return new TaskSolutions(getStepikTaskSolution(task, isSolved));
+      return new TaskSolutions(getStepikTaskSolution(task, isSolved, submissionsIndex));
     }
   }
 
-  private static HashMap<String, String> getStepikTaskSolution(@NotNull Task task, boolean isSolved) throws IOException {
-    HashMap<String, String> solutions = getSolutionForStepikAssignment(task, isSolved);
+  private static HashMap<String, String> getStepikTaskSolution(@NotNull Task task,
+                                                               boolean isSolved,
+                                                               @NotNull StepikSubmissionsIndex submissionsIndex) throws IOException {
+    HashMap<String, String> solutions = getSolutionForStepikAssignment(task, isSolved, submissionsIndex);
     if (!solutions.isEmpty()) {
       for (Map.Entry<String, String> entry : solutions.entrySet()) {
         String solutionWithoutEduPrefix = removeEduPrefix(task, entry.getValue());
@@ -317,9 +349,11 @@ public class StepikSolutionsLoader implements Disposable {
     return solutions;
   }
 
-  private static TaskSolutions getEduTaskSolution(@NotNull Task task, boolean isSolved) throws IOException {
+  private static TaskSolutions getEduTaskSolution(@NotNull Task task,
+                                                  boolean isSolved,
+                                                  @NotNull StepikSubmissionsIndex submissionsIndex) throws IOException {
     String language = task.getCourse().getLanguageID();
-    StepikWrappers.Reply reply = getLastSubmission(String.valueOf(task.getStepId()), isSolved, language);
+    StepikWrappers.Reply reply = submissionsIndex.getLastReply(task.getStepId(), isSolved, language);
     if (reply == null || reply.solution == null || reply.solution.isEmpty()) {
       // https://youtrack.jetbrains.com/issue/EDU-1449
       if (reply != null && reply.solution == null) {
@@ -449,7 +483,7 @@ public class StepikSolutionsLoader implements Disposable {
 
   @TestOnly
   public void doLoadSolution(Task task, boolean isSolved) {
-    loadSolution(myProject, task, isSolved);
+    loadSolution(myProject, task, isSolved, new StepikSubmissionsIndex());
   }
 
   private static void updateUI(@NotNull Project project, @NotNull Task task) {
@@ -0,0 +1,52 @@
+package com.jetbrains.edu.learning.stepik;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.jetbrains.edu.learning.stepik.StepikWrappers.Reply;
+import static com.jetbrains.edu.learning.stepik.StepikWrappers.Submission;
+
+/**
+ * Last correct and wrong submissions of the current user indexed by step id.
+ *
+ * Index is filled by {@link StepikConnector#getLastSubmissions}.
+ * If submissions weren't loaded, requests for missing steps fall back to per-step requests.
+ */
+class StepikSubmissionsIndex {
+  private final Map<Integer, Reply> myLastCorrectReplies = new HashMap<>();
+  private final Map<Integer, Reply> myLastWrongReplies = new HashMap<>();
+  private boolean myIsComplete;
+
+  /**
+   * @param isSolved true if the submission is correct
+   */
+  void add(int stepId, boolean isSolved, @NotNull Submission submission) {
+    if (submission.reply == null) return;
+    getReplies(isSolved).put(stepId, submission.reply);
+  }
+
+  /**
+   * Marks that submissions of all required steps were looked up, so missing steps don't have submissions at all
+   */
+  void setComplete() {
+    myIsComplete = true;
+  }
+
+  @Nullable
+  Reply getLastReply(int stepId, boolean isSolved, @Nullable String language) throws IOException {
+    Reply reply = getReplies(isSolved).get(stepId);
+    if (reply != null || myIsComplete) {
+      return reply;
+    }
+    return StepikConnector.getLastSubmission(String.valueOf(stepId), isSolved, language);
+  }
+
+  @NotNull
+  private Map<Integer, Reply> getReplies(boolean isSolved) {
+    return isSolved ? myLastCorrectReplies : myLastWrongReplies;
+  }
+}
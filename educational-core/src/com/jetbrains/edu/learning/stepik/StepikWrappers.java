@@ -3,7 +3,7 @@ package com.jetbrains.edu.learning.stepik;
 import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -87,13 +87,13 @@ public class StepikWrappers {
         final VirtualFile taskDir = task.getTaskDir(project);
         assert taskDir != null;
         for (final Map.Entry<String, TaskFile> entry : task.getTaskFiles().entrySet()) {
-          ApplicationManager.getApplication().invokeAndWait(() -> ApplicationManager.getApplication().runWriteAction(() -> {
+          TaskFile studentTaskFile = ReadAction.compute(() -> {
             VirtualFile answerFile = EduUtils.findTaskFileInDir(entry.getValue(), taskDir);
-            if (answerFile == null) return;
-            TaskFile studentTaskFile = EduUtils.createStudentFile(project, answerFile, task);
-            if (studentTaskFile == null) return;
+            return answerFile == null ? null : EduUtils.createStudentFile(project, answerFile, task);
+          });
+          if (studentTaskFile != null) {
             source.files.add(studentTaskFile);
-          }));
+          }
         }
       } else {
         for (Map.Entry<String, TaskFile> entry : task.getTaskFiles().entrySet()) {
@@ -183,6 +183,7 @@ public class StepikWrappers {
   }
 
   public static class StepSource {
+    public int id;
     @Expose public Step block;
     @Expose public int position;
     @Expose public int lesson;
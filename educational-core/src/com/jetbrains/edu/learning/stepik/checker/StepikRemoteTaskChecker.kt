@@ -23,8 +23,8 @@ class StepikRemoteTaskChecker : RemoteTaskChecker {
   override fun check(project: Project, task: Task, indicator: ProgressIndicator): CheckResult {
     val user = EduSettings.getInstance().user ?: return CheckResult.LOGIN_NEEDED
     return when (task) {
-      is ChoiceTask -> StepikCheckerConnector.checkChoiceTask(task, user)
-      is CodeTask -> StepikCheckerConnector.checkCodeTask(project, task, user)
+      is ChoiceTask -> StepikCheckerConnector.checkChoiceTask(task, user, indicator)
+      is CodeTask -> StepikCheckerConnector.checkCodeTask(project, task, user, indicator)
       else -> error("Can't check ${task.taskType} on Stepik")
     }
   }
@@ -31,6 +31,6 @@ fun getLesson(course: HyperskillCourse, lessonId: Int, language: Language, stage
     convertedTasks.add(eduTask)
   }
 
-  lesson.taskList.addAll(convertedTasks)
+  lesson.addTasks(convertedTasks)
   return lesson
 }
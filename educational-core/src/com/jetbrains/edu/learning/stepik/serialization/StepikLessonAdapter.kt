@@ -9,12 +9,13 @@ import com.jetbrains.edu.learning.stepik.StepikWrappers
 import java.lang.reflect.Type
 
 class StepikLessonAdapter(private val language: String?) : JsonDeserializer<Lesson> {
+  private val gson: Gson = GsonBuilder()
+    .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+    .registerTypeAdapter(StepikWrappers.StepOptions::class.java,
+                         StepikStepOptionsAdapter(language)).create()
+
   @Throws(JsonParseException::class)
   override fun deserialize(json: JsonElement, type: Type, jsonDeserializationContext: JsonDeserializationContext): Lesson {
-    val gson = GsonBuilder()
-      .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-      .registerTypeAdapter(StepikWrappers.StepOptions::class.java,
-                           StepikStepOptionsAdapter(language)).create()
     val lesson = gson.fromJson(json, Lesson::class.java)
     val name = lesson.name
     if (StepikNames.PYCHARM_ADDITIONAL == name) {
@@ -28,8 +28,7 @@ class StepikStepOptionsAdapter(val language: String?) : JsonDeserializer<StepikW
       }
       version++
     }
-    val stepOptions = GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create()
-      .fromJson(stepOptionsJson, StepikWrappers.StepOptions::class.java)
+    val stepOptions = GSON.fromJson(stepOptionsJson, StepikWrappers.StepOptions::class.java)
     stepOptions.formatVersion = JSON_FORMAT_VERSION
     return stepOptions
   }
@@ -57,4 +56,8 @@ class StepikStepOptionsAdapter(val language: String?) : JsonDeserializer<StepikW
   private fun convertToSeventhVersion(stepOptionsJson: JsonObject): JsonObject {
     return ToSeventhVersionJsonStepOptionConverter(language).convert(stepOptionsJson)
   }
+
+  companion object {
+    private val GSON: Gson = GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create()
+  }
 }
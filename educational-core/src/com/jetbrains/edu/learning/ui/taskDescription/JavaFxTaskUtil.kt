@@ -82,6 +82,7 @@ private fun createSelectionListener(task: ChoiceTask, index: Int): (ObservableVa
     else {
       task.selectedVariants.remove(index)
     }
+    task.incModificationStamp()
   }
 }
 
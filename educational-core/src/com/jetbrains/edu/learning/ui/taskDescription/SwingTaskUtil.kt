@@ -73,6 +73,7 @@ fun createListener(task: ChoiceTask, index: Int): ItemListener? {
     else {
       task.selectedVariants.remove(index)
     }
+    task.incModificationStamp()
   }
 }
 
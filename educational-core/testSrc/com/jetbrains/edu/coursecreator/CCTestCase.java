@@ -30,6 +30,7 @@ import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCa
 import com.intellij.ui.docking.DockContainer;
 import com.intellij.ui.docking.DockManager;
 import com.intellij.util.containers.ContainerUtil;
+import com.jetbrains.edu.learning.EduUtils;
 import com.jetbrains.edu.learning.PlaceholderPainter;
 import com.jetbrains.edu.learning.StudyTaskManager;
 import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder;
@@ -117,6 +118,7 @@ public abstract class CCTestCase extends LightPlatformCodeInsightFixtureTestCase
     Course course = new Course();
     course.setName("test course");
     course.setLanguage(PlainTextLanguage.INSTANCE.getID());
+    StudyTaskManager.getInstance(getProject()).setCourseDirectoryPath(EduUtils.getCourseDir(getProject()).getPath());
     StudyTaskManager.getInstance(getProject()).setCourse(course);
 
     Lesson lesson = new Lesson();
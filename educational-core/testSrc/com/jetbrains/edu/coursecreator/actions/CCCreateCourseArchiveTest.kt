@@ -0,0 +1,33 @@
+package com.jetbrains.edu.coursecreator.actions
+
+import com.intellij.openapi.application.runWriteAction
+import com.intellij.openapi.vfs.CharsetToolkit
+import com.jetbrains.edu.coursecreator.CCUtils
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.courseFormat.ext.getVirtualFile
+
+class CCCreateCourseArchiveTest : EduTestCase() {
+
+  fun `test student text of file with CRLF line separators`() {
+    val course = courseWithFiles(courseMode = CCUtils.COURSE_MODE) {
+      lesson("lesson1") {
+        eduTask("task1") {
+          taskFile("Task.kt", "fun foo() = 1\nfun bar(): String = <p>\"Bar\"</p>") {
+            placeholder(0, "\"Bar\"")
+          }
+        }
+      }
+    }
+    val task = course.findTask("lesson1", "task1")
+    val taskFile = task.getTaskFile("Task.kt")!!
+    taskFile.answerPlaceholders[0].placeholderText = "TODO()"
+    val file = taskFile.getVirtualFile(project)!!
+    runWriteAction { file.setBinaryContent("fun foo() = 1\r\nfun bar(): String = \"Bar\"".toByteArray(CharsetToolkit.UTF8_CHARSET)) }
+
+    CCCreateCourseArchive.convertToStudentTaskFiles(task, task.getTaskDir(project)!!)
+
+    val studentFile = task.getTaskFile("Task.kt")!!
+    assertEquals("fun foo() = 1\nfun bar(): String = TODO()", studentFile.getText())
+    assertEquals(studentFile.getText().indexOf("TODO()"), studentFile.answerPlaceholders[0].offset)
+  }
+}
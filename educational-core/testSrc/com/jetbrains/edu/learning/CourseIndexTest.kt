@@ -0,0 +1,105 @@
+package com.jetbrains.edu.learning
+
+import com.jetbrains.edu.learning.courseFormat.Section
+import com.jetbrains.edu.learning.courseFormat.tasks.EduTask
+
+class CourseIndexTest : EduTestCase() {
+
+  fun `test items by paths`() {
+    val course = createTestCourse()
+    assertTrue(course.findItem("section1") is Section)
+    assertEquals(course.getSection("section1")!!.getLesson("lesson1"), course.findItem("section1/lesson1"))
+    assertEquals(course.getLesson("lesson2")!!.getTask("task2"), course.findItem("lesson2/task2"))
+    assertNull(course.findItem("lesson2/task3"))
+  }
+
+  fun `test task is renamed`() {
+    val course = createTestCourse()
+    val task = course.getLesson("lesson2")!!.getTask("task1")!!
+    task.name = "renamed"
+    assertNull(course.findItem("lesson2/task1"))
+    assertEquals(task, course.findItem("lesson2/renamed"))
+    assertEquals(task, course.getLesson("lesson2")!!.getTask("renamed"))
+  }
+
+  fun `test tasks swap names`() {
+    val course = createTestCourse()
+    val lesson = course.getLesson("lesson2")!!
+    val task1 = lesson.getTask("task1")!!
+    val task2 = lesson.getTask("task2")!!
+    task1.name = "task2"
+    task2.name = "task1"
+    assertEquals(task1, course.findItem("lesson2/task2"))
+    assertEquals(task2, course.findItem("lesson2/task1"))
+  }
+
+  fun `test lesson is moved to section`() {
+    val course = createTestCourse()
+    val lesson = course.getLesson("lesson2")!!
+    val section = course.getSection("section1")!!
+    course.removeLesson(lesson)
+    section.addLesson(lesson)
+    assertNull(course.findItem("lesson2"))
+    assertNull(course.findItem("lesson2/task1"))
+    assertEquals(lesson, course.findItem("section1/lesson2"))
+    assertEquals(lesson.getTask("task1"), course.findItem("section1/lesson2/task1"))
+  }
+
+  fun `test task is added and removed`() {
+    val course = createTestCourse()
+    val lesson = course.getLesson("lesson2")!!
+    val task = EduTask("task3")
+    lesson.addTask(task)
+    assertEquals(task, course.findItem("lesson2/task3"))
+    lesson.removeTask(task)
+    assertNull(course.findItem("lesson2/task3"))
+    assertNull(lesson.getTask("task3"))
+  }
+
+  fun `test ids are changed`() {
+    val course = createTestCourse()
+    val lesson = course.getLesson("lesson2")!!
+    val task = lesson.getTask("task1")!!
+    task.stepId = 42
+    lesson.id = 7
+    assertEquals(task, course.getTask(42))
+    assertEquals(lesson, course.getLesson(7))
+    task.stepId = 43
+    assertNull(course.getTask(42))
+    assertEquals(task, course.getTask(43))
+  }
+
+  fun `test task dir is resolved by path`() {
+    courseWithFiles {
+      section("section1") {
+        lesson("lesson1") {
+          eduTask("task1") {
+            taskFile("src/Task.txt")
+          }
+        }
+      }
+      lesson("lesson2") {
+        eduTask("task1") {
+          taskFile("Task.txt")
+        }
+      }
+    }
+    val course = getCourse()
+    assertEquals(findFile("section1/lesson1/task1"), EduUtils.getTaskDir(course, findFile("section1/lesson1/task1/src/Task.txt")))
+    assertEquals(course.findTask("lesson2", "task1"), EduUtils.getTaskForFile(project, findFile("lesson2/task1/Task.txt")))
+    assertEquals(course.getSection("section1"), EduUtils.getSection(findFile("section1"), course))
+    assertNull(EduUtils.getLesson(findFile("section1"), course))
+  }
+
+  private fun createTestCourse() = course {
+    section("section1") {
+      lesson("lesson1") {
+        eduTask("task1")
+      }
+    }
+    lesson("lesson2") {
+      eduTask("task1")
+      eduTask("task2")
+    }
+  }.apply { init(null, null, false) }
+}
@@ -0,0 +1,19 @@
+package com.jetbrains.edu.learning
+
+import com.jetbrains.edu.learning.serialization.CourseJsonCodec
+
+class CourseJsonCodecPerformanceTest : EduTestCase() {
+
+  fun `test course json round trip`() {
+    val course = createLargeCourse(10, 20)
+    assertTiming("Course json round trip", 1000) {
+      repeat(ITERATIONS) {
+        CourseJsonCodec.deserialize(CourseJsonCodec.serialize(course))
+      }
+    }
+  }
+
+  companion object {
+    private const val ITERATIONS = 5
+  }
+}
@@ -0,0 +1,67 @@
+package com.jetbrains.edu.learning
+
+import com.google.gson.JsonParser
+import com.jetbrains.edu.learning.courseFormat.DescriptionFormat
+import com.jetbrains.edu.learning.courseFormat.FeedbackLink
+import com.jetbrains.edu.learning.courseFormat.FrameworkLesson
+import com.jetbrains.edu.learning.courseFormat.Section
+import com.jetbrains.edu.learning.courseFormat.tasks.OutputTask
+import com.jetbrains.edu.learning.serialization.CourseJsonCodec
+import com.jetbrains.edu.learning.serialization.SerializationUtils
+import java.io.File
+import java.io.StringReader
+
+class CourseJsonCodecTest : EduTestCase() {
+
+  fun `test round trip`() {
+    val json = CourseJsonCodec.serialize(createLargeCourse(2, 5))
+    val course = CourseJsonCodec.deserialize(json)
+    assertEquals(json, CourseJsonCodec.serialize(course))
+  }
+
+  fun `test format version is written first`() {
+    val json = CourseJsonCodec.serialize(createLargeCourse(1, 1))
+    val firstProperty = JsonParser().parse(json).asJsonObject.entrySet().first()
+    assertEquals(SerializationUtils.Json.VERSION, firstProperty.key)
+    assertEquals(EduVersions.JSON_FORMAT_VERSION, firstProperty.value.asInt)
+  }
+
+  fun `test read json written by previous plugin version`() {
+    val course = CourseJsonCodec.deserialize(loadPreviousVersionJson())
+    assertEquals("Test Course", course.name)
+    assertEquals("Course description", course.description)
+    assertEquals(EduNames.KOTLIN, course.languageID)
+
+    val section = course.items[0] as Section
+    val task = section.lessons[0].taskList[0]
+    assertEquals(listOf("hint1", "hint2"), task.getTaskFile("src/Task.kt")!!.answerPlaceholders[0].hints)
+    assertEquals("class Tests {\n}", task.testsText["test/Tests.kt"])
+    assertFalse(task.additionalFiles["data.txt"]!!.isVisible)
+    assertEquals(DescriptionFormat.HTML, task.descriptionFormat)
+
+    val frameworkLesson = course.items[1] as FrameworkLesson
+    val dependency = frameworkLesson.taskList[0].getTaskFile("src/Task.kt")!!.answerPlaceholders[0].placeholderDependency!!
+    assertEquals("section1", dependency.sectionName)
+    assertEquals(FeedbackLink.LinkType.CUSTOM, frameworkLesson.taskList[0].feedbackLink.type)
+    assertTrue(frameworkLesson.taskList[1] is OutputTask)
+  }
+
+  // previous plugin versions read json of the same format version, so written json shouldn't differ from json they wrote
+  fun `test write json as previous plugin version`() {
+    val json = loadPreviousVersionJson()
+    assertEquals(JsonParser().parse(json), JsonParser().parse(CourseJsonCodec.serialize(CourseJsonCodec.deserialize(json))))
+  }
+
+  fun `test read course info`() {
+    val course = createLargeCourse(2, 5)
+    course.description = "Course description"
+    val info = CourseJsonCodec.deserializeInfo(StringReader(CourseJsonCodec.serialize(course)))
+    assertEquals(course.name, info.name)
+    assertEquals(course.description, info.description)
+    assertEquals(course.languageID, info.languageID)
+    assertEquals(course.courseType, info.courseType)
+    assertEmpty(info.items)
+  }
+
+  private fun loadPreviousVersionJson(): String = File("testData/courseJson/courseOfPreviousPluginVersion.json").readText()
+}
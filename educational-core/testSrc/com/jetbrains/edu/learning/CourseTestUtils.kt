@@ -55,3 +55,25 @@ enum class CourseMode {
     EDUCATOR -> CCUtils.COURSE_MODE
   }
 }
+
+/**
+ * Creates course with [lessonCount] lessons of [taskCount] tasks, every task has files, placeholders, tests and additional files
+ */
+fun createLargeCourse(lessonCount: Int, taskCount: Int): Course {
+  return course {
+    for (lessonIndex in 0 until lessonCount) {
+      lesson("lesson$lessonIndex") {
+        for (taskIndex in 0 until taskCount) {
+          eduTask("task$taskIndex", taskDescription = "<p>Task description</p>".repeat(50)) {
+            taskFile("Task.kt", "fun foo() = <p>TODO()</p>\nfun bar() = <p>TODO()</p>") {
+              placeholder(0, "1", hints = listOf("hint"))
+              placeholder(1, "2")
+            }
+            testFile("Tests.kt", "test")
+            additionalFile("image.png", "a".repeat(1000))
+          }
+        }
+      }
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.jetbrains.edu.learning
 import com.intellij.openapi.application.runWriteAction
 import com.intellij.openapi.command.CommandProcessor
 import com.intellij.openapi.fileTypes.PlainTextLanguage
+import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder
 import com.jetbrains.edu.learning.courseFormat.Course
 import java.io.IOException
 
@@ -293,6 +294,41 @@ class EduDocumentListenerTest : EduTestCase() {
     assertEquals(9, answerPlaceholders[1].length)
   }
 
+  fun testTypeAfterPlaceholders() {
+    val taskFileName = "taskFile2.txt"
+    configureByTaskFile(1, 2, taskFileName)
+    val task = StudyTaskManager.getInstance(myFixture.project).course!!.getLesson("lesson1")!!.getTask("task2")!!
+    myFixture.editor.caretModel.moveToOffset(myFixture.editor.document.textLength)
+    myFixture.type("a")
+    val modificationStamp = task.modificationStamp
+    myFixture.type("test")
+    assertEquals(modificationStamp, task.modificationStamp)
+    val answerPlaceholders = task.getTaskFile(taskFileName)!!.answerPlaceholders
+    assertEquals(12, answerPlaceholders[0].offset)
+    assertEquals(40, answerPlaceholders[1].offset)
+  }
+
+  fun testPlaceholderAddedAfterChange() {
+    val taskFileName = "taskFile2.txt"
+    configureByTaskFile(1, 2, taskFileName)
+    val task = StudyTaskManager.getInstance(myFixture.project).course!!.getLesson("lesson1")!!.getTask("task2")!!
+    val taskFile = task.getTaskFile(taskFileName)!!
+    myFixture.editor.caretModel.moveToOffset(0)
+    myFixture.type("a")
+    val placeholder = AnswerPlaceholder()
+    placeholder.offset = 52
+    placeholder.length = 11
+    placeholder.taskFile = taskFile
+    taskFile.addAnswerPlaceholder(placeholder)
+    myFixture.editor.caretModel.moveToOffset(0)
+    myFixture.type("b")
+    val answerPlaceholders = taskFile.answerPlaceholders
+    assertEquals(14, answerPlaceholders[0].offset)
+    assertEquals(42, answerPlaceholders[1].offset)
+    assertEquals(53, answerPlaceholders[2].offset)
+    assertEquals(11, answerPlaceholders[2].length)
+  }
+
   @Throws(IOException::class)
   override fun createCourse() {
     myFixture.copyDirectoryToProject("lesson1", "lesson1")
@@ -47,6 +47,7 @@ abstract class EduTestCase : LightPlatformCodeInsightFixtureTestCase() {
     super.setUp()
     registerConfigurator(PlainTextLanguage.INSTANCE, PlainTextConfigurator::class.java, myFixture.testRootDisposable)
     registerConfigurator(FakeGradleBasedLanguage, FakeGradleConfigurator::class.java, myFixture.testRootDisposable)
+    StudyTaskManager.getInstance(project).setCourseDirectoryPath(EduUtils.getCourseDir(project).path)
     createCourse()
 
     val dockManager = DockManager.getInstance(myFixture.project)
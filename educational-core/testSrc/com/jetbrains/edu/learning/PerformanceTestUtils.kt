@@ -0,0 +1,26 @@
+package com.jetbrains.edu.learning
+
+import com.intellij.testFramework.PlatformTestUtil
+import com.intellij.util.ThrowableRunnable
+import junit.framework.TestCase.assertTrue
+import kotlin.system.measureTimeMillis
+
+/**
+ * Checks that [action] takes about [expectedMs], expected time is adjusted to the speed of the machine
+ * (see [PlatformTestUtil.startPerformanceTest])
+ */
+fun assertTiming(what: String, expectedMs: Int, action: () -> Unit) {
+  PlatformTestUtil.startPerformanceTest(what, expectedMs, ThrowableRunnable<Throwable> { action() }).assertTiming()
+}
+
+/**
+ * Checks that [action] is faster than [baseline] doing the same work.
+ * Both are run once to warm up and then [iterations] times, so the check doesn't depend on the speed of the machine.
+ */
+fun assertFasterThan(what: String, iterations: Int, baseline: () -> Unit, action: () -> Unit) {
+  baseline()
+  action()
+  val baselineTime = measureTimeMillis { repeat(iterations) { baseline() } }
+  val actionTime = measureTimeMillis { repeat(iterations) { action() } }
+  assertTrue("$what takes $actionTime ms, baseline takes $baselineTime ms", actionTime < baselineTime)
+}
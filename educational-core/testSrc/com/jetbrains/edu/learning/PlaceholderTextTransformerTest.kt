@@ -0,0 +1,47 @@
+package com.jetbrains.edu.learning
+
+import com.jetbrains.edu.learning.courseFormat.AnswerPlaceholder
+
+class PlaceholderTextTransformerTest : EduTestCase() {
+
+  fun `test student text`() {
+    val text = "fun foo() = 42\nfun bar() = \"bar\""
+    val placeholders = listOf(
+      placeholder(text.indexOf("\"bar\""), "\"bar\"", "TODO()"),
+      placeholder(text.indexOf("42"), "42", "TODO()")
+    )
+    val result = PlaceholderTextTransformer.toStudentText(text, placeholders)
+    assertEquals("fun foo() = TODO()\nfun bar() = TODO()", result.text)
+    assertEquals(result.text.lastIndexOf("TODO()"), result.getOffset(0))
+    assertEquals(result.text.indexOf("TODO()"), result.getOffset(1))
+
+    result.applyOffsets(placeholders)
+    assertEquals(listOf(result.getOffset(0), result.getOffset(1)), placeholders.map { it.offset })
+  }
+
+  fun `test empty placeholder text`() {
+    val text = "a = 1 + 2"
+    val placeholders = listOf(placeholder(4, "1 + 2", ""))
+    val result = PlaceholderTextTransformer.toStudentText(text, placeholders)
+    assertEquals("a = ", result.text)
+    assertEquals(4, result.getOffset(0))
+  }
+
+  fun `test invalid placeholder`() {
+    try {
+      PlaceholderTextTransformer.toStudentText("text", listOf(placeholder(2, "long answer", "")))
+      fail("Placeholder outside of the text should be rejected")
+    }
+    catch (e: IllegalArgumentException) {
+      // expected
+    }
+  }
+
+  private fun placeholder(offset: Int, possibleAnswer: String, placeholderText: String): AnswerPlaceholder {
+    val placeholder = AnswerPlaceholder()
+    placeholder.offset = offset
+    placeholder.possibleAnswer = possibleAnswer
+    placeholder.placeholderText = placeholderText
+    return placeholder
+  }
+}
@@ -0,0 +1,25 @@
+package com.jetbrains.edu.learning
+
+import com.intellij.util.xmlb.XmlSerializer
+import com.jetbrains.edu.learning.courseFormat.Course
+import com.jetbrains.edu.learning.courseFormat.StudyItemCopier
+
+/**
+ * Compares [StudyItemCopier] with copying a course through xml serialization, as it was done before
+ */
+class StudyItemCopierPerformanceTest : EduTestCase() {
+
+  fun `test course copy`() {
+    val course = createLargeCourse(10, 20).apply { init(null, null, false) }
+    assertFasterThan("Course copy", ITERATIONS, baseline = {
+      val copy = XmlSerializer.deserialize(XmlSerializer.serialize(course), Course::class.java)
+      copy.init(null, null, true)
+    }) {
+      course.copy()
+    }
+  }
+
+  companion object {
+    private const val ITERATIONS = 5
+  }
+}
@@ -0,0 +1,206 @@
+package com.jetbrains.edu.learning
+
+import com.google.gson.annotations.Expose
+import com.intellij.openapi.util.JDOMUtil
+import com.intellij.util.xmlb.XmlSerializer
+import com.intellij.util.xmlb.annotations.Transient
+import com.jetbrains.edu.learning.courseFormat.Course
+import com.jetbrains.edu.learning.courseFormat.TaskContentMap
+import com.jetbrains.edu.learning.courseFormat.TextContent
+import com.jetbrains.edu.learning.stepik.StepikUserInfo
+import java.lang.reflect.Modifier
+import java.util.*
+
+class StudyItemCopierTest : EduTestCase() {
+
+  fun `test task copy`() {
+    val task = createCourse().lessons[0].taskList[1]
+    val copy = task.copy()
+    assertNull(copy.lesson)
+    assertStructurallyEqual(task, copy, task.lesson)
+    assertEquals(serialize(task), serialize(copy))
+  }
+
+  fun `test course copy`() {
+    val course = createCourse()
+    val copy = course.copy()
+    assertStructurallyEqual(course, copy)
+    assertEquals(serialize(course), serialize(copy))
+  }
+
+  fun `test placeholder dependency copy`() {
+    val copy = createCourse().copy()
+    val placeholderCopy = copy.lessons[0].taskList[1].getTaskFile("Task.kt")!!.answerPlaceholders[0]
+    val dependencyCopy = placeholderCopy.placeholderDependency!!
+    assertSame(placeholderCopy, dependencyCopy.answerPlaceholder)
+    assertSame(copy.lessons[0].taskList[0].getTaskFile("Task.kt")!!.answerPlaceholders[0], dependencyCopy.resolve(copy))
+  }
+
+  fun `test copy is independent`() {
+    val task = createCourse().lessons[0].taskList[0]
+    val copy = task.copy()
+
+    val taskFile = task.getTaskFile("Task.kt")!!
+    val taskFileCopy = copy.getTaskFile("Task.kt")!!
+    assertNotSame(taskFile, taskFileCopy)
+    assertSame(copy, taskFileCopy.task)
+
+    val placeholderCopy = taskFileCopy.answerPlaceholders[0]
+    assertSame(taskFileCopy, placeholderCopy.taskFile)
+    placeholderCopy.offset += 10
+    placeholderCopy.hints.add("new hint")
+    taskFileCopy.setText("changed")
+    copy.testsText["Tests.kt"] = "changed"
+
+    val placeholder = taskFile.answerPlaceholders[0]
+    assertFalse(placeholder.offset == placeholderCopy.offset)
+    assertEquals(listOf("hint"), placeholder.hints)
+    assertEquals("fun foo() = TODO()\nfun bar() = TODO()", taskFile.text)
+    assertEquals("test", task.testsText["Tests.kt"])
+  }
+
+  fun `test texts are shared with copy`() {
+    val task = createCourse().lessons[0].taskList[0]
+    val copy = task.copy()
+    assertSame(getStoredValue(task.testsText, "Tests.kt"), getStoredValue(copy.testsText, "Tests.kt"))
+    assertSame(copy, (copy.testsText as TaskContentMap<*>).task)
+    assertSame(copy, (copy.additionalFiles as TaskContentMap<*>).task)
+  }
+
+  fun `test transient fields`() {
+    val course = createCourse()
+    course.directoryPath = "/course"
+    course.archivePath = "/course.zip"
+    course.authors = listOf(StepikUserInfo.createEmptyUser().apply { firstName = "Foo" })
+    val copy = course.copy()
+    assertNull(copy.directoryPath)
+    assertNull(copy.archivePath)
+    assertEquals("Foo", copy.authors.single().firstName)
+    assertNotSame(course.authors[0], copy.authors[0])
+  }
+
+  private fun getStoredValue(map: Map<String, *>, key: String): Any? {
+    val field = TaskContentMap::class.java.getDeclaredField("myMap")
+    field.isAccessible = true
+    return (field.get(map) as Map<*, *>)[key]
+  }
+
+  private fun createCourse(): Course {
+    val course = course {
+      lesson("lesson1") {
+        eduTask("task1", taskDescription = "<p>Task description</p>".repeat(100)) {
+          taskFile("Task.kt", "fun foo() = <p>TODO()</p>\nfun bar() = <p>TODO()</p>") {
+            placeholder(0, "1", hints = mutableListOf("hint"))
+            placeholder(1, "2")
+          }
+          testFile("Tests.kt", "test")
+          additionalFile("image.png", "a".repeat(100_000))
+        }
+        eduTask("task2") {
+          taskFile("Task.kt", "fun foo() = <p>TODO()</p>") {
+            placeholder(0, "1", dependency = "lesson1#task1#Task.kt#1")
+          }
+        }
+      }
+    }
+    course.init(null, null, false)
+    return course
+  }
+
+  private fun serialize(item: Any): String = JDOMUtil.writeElement(XmlSerializer.serialize(item))
+
+  /**
+   * Checks that [copy] has the same fields as [original] recursively and shares no mutable objects with it.
+   * Links to parent items and placeholder dependencies of the copy should refer to the corresponding objects of the copy.
+   *
+   * @param external objects referenced by the original which aren't copied, e.g. lesson of a copied task
+   */
+  private fun assertStructurallyEqual(original: Any, copy: Any, vararg external: Any) {
+    val comparator = StructureComparator(external.toList())
+    comparator.compare(original, copy, original.javaClass.simpleName)
+    comparator.assertNoSharedObjects()
+  }
+
+  private inner class StructureComparator(external: List<Any>) {
+    private val copies = IdentityHashMap<Any, Any>()
+    private val originals = identitySet()
+    private val copyReferences = identitySet()
+    private val external = identitySet().apply { addAll(external) }
+
+    fun compare(original: Any?, copy: Any?, path: String) {
+      if (original == null || copy == null || isImmutable(original)) {
+        assertEquals(path, original, copy)
+        return
+      }
+      copyReferences += copy
+      val mappedCopy = copies[original]
+      if (mappedCopy != null) {
+        assertSame(path, mappedCopy, copy)
+        return
+      }
+      assertNotSame(path, original, copy)
+      assertEquals(path, original.javaClass, copy.javaClass)
+      copies[original] = copy
+      originals += original
+
+      when (original) {
+        is Date -> assertEquals(path, original, copy)
+        is Map<*, *> -> {
+          copy as Map<*, *>
+          assertEquals(path, original.keys, copy.keys)
+          for ((key, value) in original) {
+            compare(value, copy[key], "$path[$key]")
+          }
+        }
+        is Collection<*> -> compareElements(original.toList(), (copy as Collection<*>).toList(), path)
+        is Array<*> -> compareElements(original.toList(), (copy as Array<*>).toList(), path)
+        else -> if (original.javaClass.name.startsWith("com.jetbrains.edu.")) compareFields(original, copy, path)
+      }
+    }
+
+    fun assertNoSharedObjects() {
+      for (copy in copyReferences) {
+        assertFalse("Copy refers to the original object $copy", copy in originals)
+      }
+    }
+
+    private fun compareElements(original: List<*>, copy: List<*>, path: String) {
+      assertEquals(path, original.size, copy.size)
+      for (i in original.indices) {
+        compare(original[i], copy[i], "$path[$i]")
+      }
+    }
+
+    private fun compareFields(original: Any, copy: Any, path: String) {
+      var aClass: Class<*>? = original.javaClass
+      while (aClass != null && aClass != Any::class.java) {
+        for (field in aClass.declaredFields) {
+          if (Modifier.isStatic(field.modifiers) || field.isSynthetic) continue
+          field.isAccessible = true
+          val originalValue = field.get(original)
+          val copyValue = field.get(copy)
+          val fieldPath = "$path.${field.name}"
+          when {
+            originalValue != null && originalValue in external -> Unit
+            field.isAnnotationPresent(Transient::class.java) && !field.isAnnotationPresent(Expose::class.java) -> {
+              // transient fields are links to parent items or caches, only links are checked
+              if (copyValue != null) copyReferences += copyValue
+              if (originalValue != null && originalValue in copies) {
+                assertSame(fieldPath, copies[originalValue], copyValue)
+              }
+            }
+            else -> compare(originalValue, copyValue, fieldPath)
+          }
+        }
+        aClass = aClass.superclass
+      }
+    }
+
+    private fun isImmutable(value: Any): Boolean {
+      return value is String || value is Number || value is Boolean || value is Char ||
+             value is Enum<*> || value is Class<*> || value is TextContent
+    }
+
+    private fun identitySet(): MutableSet<Any> = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>())
+  }
+}
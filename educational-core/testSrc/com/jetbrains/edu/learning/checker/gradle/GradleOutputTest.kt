@@ -0,0 +1,82 @@
+package com.jetbrains.edu.learning.checker.gradle
+
+import com.jetbrains.edu.learning.checker.CheckResult
+import com.jetbrains.edu.learning.checker.TestsOutputParser
+import com.jetbrains.edu.learning.courseFormat.CheckStatus
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class GradleOutputTest {
+
+  @Test
+  fun `failed build`() {
+    val result = GradleOutput(false, listOf("Compilation failed", "Unresolved reference: foo")).toCheckResult()
+    checkResult(CheckStatus.Failed, "Compilation failed", result)
+    assertEquals("Compilation failed\nUnresolved reference: foo", result.details)
+  }
+
+  @Test
+  fun `passed tests without test events`() {
+    val result = GradleOutput(true, listOf("test OK")).toCheckResult()
+    checkResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS, result)
+  }
+
+  @Test
+  fun `failed tests without test events`() {
+    val result = GradleOutput(true, listOf("test OK", "FAILED + Wrong answer")).toCheckResult()
+    checkResult(CheckStatus.Failed, "Wrong answer", result)
+  }
+
+  @Test
+  fun `empty test events`() {
+    val result = GradleOutput(true, listOf("FAILED + Wrong answer"), emptyList()).toCheckResult()
+    checkResult(CheckStatus.Failed, "Wrong answer", result)
+  }
+
+  @Test
+  fun `passed test events without messages`() {
+    val result = GradleOutput(true, emptyList(), listOf(passed("test1"), passed("test2"))).toCheckResult()
+    checkResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS, result)
+  }
+
+  @Test
+  fun `passed test events with custom congratulations`() {
+    val result = GradleOutput(true, listOf("CONGRATS_MESSAGE Well done!"), listOf(passed("test1"))).toCheckResult()
+    checkResult(CheckStatus.Solved, "Well done!", result)
+  }
+
+  @Test
+  fun `passed test events with failure message`() {
+    val result = GradleOutput(true, listOf("FAILED + Wrong answer"), listOf(passed("test1"))).toCheckResult()
+    checkResult(CheckStatus.Solved, TestsOutputParser.CONGRATULATIONS, result)
+  }
+
+  @Test
+  fun `failed test events without messages`() {
+    val tests = listOf(passed("test1"), failed("test2", "expected 1"), failed("test3", "expected 2"))
+    val result = GradleOutput(true, emptyList(), tests).toCheckResult()
+    checkResult(CheckStatus.Failed, "expected 1", result)
+    assertEquals("expected 1\nexpected 2", result.details)
+  }
+
+  @Test
+  fun `failed test events with failure message`() {
+    val result = GradleOutput(true, listOf("FAILED + Wrong answer"), listOf(failed("test1", "expected 1"))).toCheckResult()
+    checkResult(CheckStatus.Failed, "Wrong answer", result)
+  }
+
+  @Test
+  fun `failed test events with passed messages`() {
+    val result = GradleOutput(true, listOf("test OK"), listOf(failed("test1", "expected 1"))).toCheckResult()
+    checkResult(CheckStatus.Failed, "expected 1", result)
+  }
+
+  private fun passed(name: String): GradleTestResult = GradleTestResult(name, null)
+
+  private fun failed(name: String, message: String): GradleTestResult = GradleTestResult(name, message)
+
+  private fun checkResult(expectedStatus: CheckStatus, expectedMessage: String, result: CheckResult) {
+    assertEquals(expectedStatus, result.status)
+    assertEquals(expectedMessage, result.message)
+  }
+}
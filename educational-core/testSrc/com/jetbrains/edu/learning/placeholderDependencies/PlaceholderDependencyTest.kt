@@ -159,6 +159,54 @@ class PlaceholderDependencyTest : EduTestCase() {
     checkPlaceholderContent("type here", findPlaceholder(1, 0, "task.txt", 1))
   }
 
+  fun `test propagate answers`() {
+    courseWithFiles {
+      lesson {
+        eduTask { taskFile("task.txt", "<p>placeholder</p>") }
+      }
+      lesson {
+        eduTask {
+          taskFile("task.txt", "task with another <p>type here</p>") {
+            placeholder(0, dependency = "lesson1#task1#task.txt#1")
+          }
+        }
+      }
+    }
+
+    val solvedTask = getCourse().lessons[0].taskList[0]
+    solvedTask.status = CheckStatus.Solved
+    PlaceholderDependencyManager.propagateAnswers(project, solvedTask)
+
+    checkPlaceholderContent("placeholder", findPlaceholder(1, 0, "task.txt", 0))
+  }
+
+  fun `test transitively dependent tasks order`() {
+    courseWithFiles {
+      lesson {
+        eduTask { taskFile("task.txt", "<p>placeholder</p>") }
+      }
+      lesson {
+        eduTask {
+          taskFile("task.txt", "<p>type here</p> and <p>type here</p>") {
+            placeholder(0, dependency = "lesson3#task1#task.txt#1")
+            placeholder(1, dependency = "lesson1#task1#task.txt#1")
+          }
+        }
+      }
+      lesson {
+        eduTask {
+          taskFile("task.txt", "<p>type here</p>") {
+            placeholder(0, dependency = "lesson1#task1#task.txt#1")
+          }
+        }
+      }
+    }
+
+    val course = getCourse()
+    val tasks = course.placeholderDependencyGraph.getTransitivelyDependentTasks(course.lessons[0].taskList[0])
+    assertEquals(listOf(course.lessons[2].taskList[0], course.lessons[1].taskList[0]), tasks)
+  }
+
   private fun checkEditorNotification(virtualFile: VirtualFile, taskNames: List<String>) {
     val fileEditor = FileEditorManager.getInstance(project).getSelectedEditor(virtualFile)!!
     val notificationPanel = fileEditor.getUserData(UnsolvedDependenciesNotificationProvider.KEY)
@@ -0,0 +1,136 @@
+package com.jetbrains.edu.learning.serialization
+
+import com.intellij.openapi.util.JDOMUtil
+import com.intellij.openapi.util.io.FileUtil
+import com.intellij.util.xmlb.XmlSerializer
+import com.jetbrains.edu.learning.EduNames
+import com.jetbrains.edu.learning.EduTestCase
+import com.jetbrains.edu.learning.course
+import com.jetbrains.edu.learning.courseFormat.Course
+import org.jdom.Element
+import java.io.File
+import java.io.IOException
+
+class ShardedCourseSerializerTest : EduTestCase() {
+
+  private lateinit var baseDir: File
+
+  override fun setUp() {
+    super.setUp()
+    baseDir = FileUtil.createTempDirectory("sharded", null)
+  }
+
+  fun `test round trip`() {
+    val course = createCourse()
+    val state = save(ShardedCourseSerializer(baseDir.path), course)
+    assertEquals(3, shardFiles().size)
+    assertFalse(JDOMUtil.write(state).contains("Task description"))
+
+    val loaded = load(state)
+    assertEquals(JDOMUtil.write(XmlSerializer.serialize(course)), JDOMUtil.write(XmlSerializer.serialize(loaded)))
+  }
+
+  fun `test only modified tasks are written`() {
+    val course = createCourse()
+    val serializer = ShardedCourseSerializer(baseDir.path)
+    save(serializer, course)
+    for (file in shardFiles()) {
+      assertTrue(file.setLastModified(0))
+    }
+
+    course.lessons[0].taskList[1].descriptionText = "changed"
+    save(serializer, course)
+    assertEquals(1, shardFiles().count { it.lastModified() != 0L })
+  }
+
+  fun `test only modified tasks of loaded course are written`() {
+    val state = save(ShardedCourseSerializer(baseDir.path), createCourse())
+    val serializer = ShardedCourseSerializer(baseDir.path)
+    val course = load(state, serializer)
+    for (file in shardFiles()) {
+      assertTrue(file.setLastModified(0))
+    }
+
+    course.lessons[0].taskList[0].descriptionText = "changed"
+    save(serializer, course)
+    assertEquals(3, shardFiles().size)
+    assertEquals(1, shardFiles().count { it.lastModified() != 0L })
+  }
+
+  fun `test file of removed task is deleted after state is written`() {
+    val course = createCourse()
+    val serializer = ShardedCourseSerializer(baseDir.path)
+    save(serializer, course)
+
+    val lesson = course.lessons[0]
+    lesson.removeTask(lesson.taskList[0])
+    // state on disk still references the file
+    serializer.serialize(course)
+    assertEquals(3, shardFiles().size)
+    save(serializer, course)
+    assertEquals(3, shardFiles().size)
+    serializer.serialize(course)
+    assertEquals(2, shardFiles().size)
+  }
+
+  fun `test files of saved state are kept by new serializer`() {
+    save(ShardedCourseSerializer(baseDir.path), createCourse())
+    ShardedCourseSerializer(baseDir.path).serialize(createCourse())
+    assertEquals(6, shardFiles().size)
+  }
+
+  fun `test missing task file`() {
+    val state = save(ShardedCourseSerializer(baseDir.path), createCourse())
+    val stateText = JDOMUtil.write(state)
+    assertTrue(shardFiles()[0].delete())
+
+    try {
+      ShardedCourseSerializer(baseDir.path).resolveShards(state)
+      fail("Course with missing task file is loaded")
+    }
+    catch (e: IOException) {
+      // expected
+    }
+    assertEquals(stateText, JDOMUtil.write(state))
+  }
+
+  private fun save(serializer: ShardedCourseSerializer, course: Course): Element {
+    val state = Element("state").addContent(serializer.serialize(course))
+    val stateFile = File(baseDir, EduNames.STUDY_PROJECT_XML_PATH)
+    FileUtil.writeToFile(stateFile, JDOMUtil.write(state))
+    return state
+  }
+
+  private fun load(state: Element, serializer: ShardedCourseSerializer = ShardedCourseSerializer(baseDir.path)): Course {
+    val loadedState = state.clone()
+    val keys = serializer.resolveShards(loadedState)
+    val course = XmlSerializer.deserialize(loadedState.children[0], Course::class.java)
+    course.init(null, null, false)
+    serializer.courseLoaded(course, keys)
+    return course
+  }
+
+  private fun shardFiles(): List<File> = File(baseDir, ".idea/edu/tasks").listFiles().orEmpty().toList()
+
+  private fun createCourse(): Course {
+    val course = course {
+      lesson("lesson1") {
+        eduTask("task1", taskDescription = "Task description") {
+          taskFile("Task.kt", "fun foo() = <p>TODO()</p>") {
+            placeholder(0, "1")
+          }
+          testFile("Tests.kt", "test")
+        }
+        eduTask("task2", taskDescription = "Task description") {
+          taskFile("Task.kt")
+          additionalFile("data.txt", "data")
+        }
+      }
+      lesson("lesson2") {
+        eduTask("task1", taskDescription = "Task description")
+      }
+    }
+    course.init(null, null, false)
+    return course
+  }
+}